@@ -0,0 +1,21 @@
+package ru.astondevs.kafka.benchmark;
+
+/**
+ * Сообщение, используемое в тестах производительности.
+ *
+ * @param id идентификатор
+ * @param timestamp время создания
+ * @param payload полезная нагрузка заданного размера
+ */
+public record BenchmarkEvent(String id, long timestamp, String payload) {
+
+    /**
+     * Создает сообщение с полезной нагрузкой указанного размера.
+     *
+     * @param payloadSize размер полезной нагрузки в символах
+     * @return новое сообщение
+     */
+    public static BenchmarkEvent ofSize(int payloadSize) {
+        return new BenchmarkEvent("2b1f5c1e-8f34-4a0e-9a55-7d0c2f1e6a11", 1_700_000_000_000L, "x".repeat(payloadSize));
+    }
+}
@@ -0,0 +1,74 @@
+package ru.astondevs.kafka.benchmark;
+
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.errors.InterruptException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MockConsumer}, который возвращает из poll переданные тестом сообщения без копирования и без проверки
+ * смещений, а при отсутствии сообщений ожидает их, не нагружая поток контейнера.
+ * Следующий вызов poll означает, что контейнер доставил сообщения предыдущего poll потребителю.
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ */
+public class BenchmarkMockConsumer<K,V> extends MockConsumer<K,V> {
+
+    /**
+     * Сообщения, передаваемые следующему вызову poll.
+     */
+    private final SynchronousQueue<ConsumerRecords<K,V>> pending = new SynchronousQueue<>();
+
+    /**
+     * Разрешение, освобождаемое после доставки сообщений poll.
+     */
+    private final Semaphore delivered = new Semaphore(0);
+
+    /**
+     * Признак того, что сообщения последнего poll переданы контейнеру.
+     */
+    private boolean dispatching;
+
+    public BenchmarkMockConsumer() {
+        super(OffsetResetStrategy.EARLIEST);
+    }
+
+    /**
+     * Передает сообщения контейнеру и ожидает их доставки потребителю.
+     *
+     * @param records сообщения одного poll
+     * @throws InterruptedException если поток прерван во время ожидания
+     */
+    public void deliver(ConsumerRecords<K,V> records) throws InterruptedException {
+        pending.put(records);
+        delivered.acquire();
+    }
+
+    @Override
+    public ConsumerRecords<K,V> poll(Duration timeout) {
+        if (dispatching) {
+            dispatching = false;
+            delivered.release();
+        }
+
+        ConsumerRecords<K,V> records;
+        try {
+            records = pending.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            throw new InterruptException(e);
+        }
+
+        if (records == null) {
+            return ConsumerRecords.empty();
+        }
+
+        dispatching = true;
+        return records;
+    }
+}
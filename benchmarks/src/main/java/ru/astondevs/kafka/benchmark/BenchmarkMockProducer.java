@@ -0,0 +1,52 @@
+package ru.astondevs.kafka.benchmark;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.time.Duration;
+import java.util.concurrent.Future;
+
+/**
+ * {@link MockProducer}, который подтверждает отправку сразу, не закрывается шаблоном после каждой отправки
+ * и периодически очищает историю отправленных сообщений, чтобы она не влияла на измерения.
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ */
+public class BenchmarkMockProducer<K,V> extends MockProducer<K,V> {
+
+    /**
+     * Количество отправок, после которого очищается история.
+     */
+    private static final int CLEAR_INTERVAL = 8192;
+
+    /**
+     * Количество отправок с последней очистки истории.
+     */
+    private int sendCount;
+
+    public BenchmarkMockProducer(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        super(true, keySerializer, valueSerializer);
+    }
+
+    @Override
+    public synchronized Future<RecordMetadata> send(ProducerRecord<K,V> record, Callback callback) {
+        if (++sendCount == CLEAR_INTERVAL) {
+            sendCount = 0;
+            clear();
+        }
+
+        return super.send(record, callback);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void close(Duration timeout) {
+    }
+}
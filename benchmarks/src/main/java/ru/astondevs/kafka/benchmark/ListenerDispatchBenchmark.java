@@ -0,0 +1,161 @@
+package ru.astondevs.kafka.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.lang.NonNull;
+import ru.astondevs.kafka.autoconfigure.consumer.AbstractKafkaBatchConsumer;
+import ru.astondevs.kafka.autoconfigure.consumer.AbstractKafkaConsumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость доставки одного poll потребителю по одному сообщению и пакетом через
+ * {@link KafkaMessageListenerContainer} поверх {@link BenchmarkMockConsumer}, включая подтверждение смещений.
+ * Результаты приводятся на одно сообщение.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerDispatchBenchmark {
+
+    /**
+     * Количество сообщений в одном poll.
+     */
+    private static final int POLL_SIZE = 500;
+
+    private static final TopicPartition PARTITION = new TopicPartition("benchmark", 0);
+
+    /**
+     * Способ доставки сообщений потребителю: {@code single} - по одному, {@code batch} - пакетом.
+     */
+    @Param({"single", "batch"})
+    public String listener;
+
+    /**
+     * Включает таймер вызова потребителя контейнером, создаваемый при наличии реестра метрик.
+     */
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private ConsumerRecords<String, String> records;
+
+    private BenchmarkMockConsumer<String, String> mockConsumer;
+
+    private GenericApplicationContext applicationContext;
+
+    private KafkaMessageListenerContainer<String, String> container;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        List<ConsumerRecord<String, String>> partitionRecords = new ArrayList<>(POLL_SIZE);
+        for (int i = 0; i < POLL_SIZE; i++) {
+            partitionRecords.add(new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), i, "key-" + (i % 16), "value-" + i));
+        }
+        records = new ConsumerRecords<>(Map.of(PARTITION, partitionRecords));
+
+        mockConsumer = new BenchmarkMockConsumer<>();
+        DefaultKafkaConsumerFactory<String, String> consumerFactory = new DefaultKafkaConsumerFactory<>(Map.of(
+                ConsumerConfig.GROUP_ID_CONFIG, "benchmark",
+                ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false)) {
+
+            @Override
+            @NonNull
+            protected Consumer<String, String> createRawConsumer(@NonNull Map<String, Object> configProps) {
+                return mockConsumer;
+            }
+        };
+
+        ContainerProperties containerProperties = new ContainerProperties(new TopicPartitionOffset(PARTITION.topic(), PARTITION.partition(), 0L));
+        containerProperties.setPollTimeout(100);
+        containerProperties.setMessageListener("batch".equals(listener) ? new BatchConsumer(blackhole) : new SingleConsumer(blackhole));
+
+        container = new KafkaMessageListenerContainer<>(consumerFactory, containerProperties);
+        if (metrics) {
+            applicationContext = new GenericApplicationContext();
+            applicationContext.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+            applicationContext.refresh();
+            container.setApplicationContext(applicationContext);
+        }
+        container.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        container.stop();
+        if (applicationContext != null) {
+            applicationContext.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POLL_SIZE)
+    public void dispatch() throws InterruptedException {
+        mockConsumer.deliver(records);
+    }
+
+    /**
+     * Потребитель, получающий сообщения по одному.
+     */
+    static class SingleConsumer extends AbstractKafkaConsumer<String, String> {
+
+        private final Blackhole blackhole;
+
+        SingleConsumer(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onMessage(ConsumerRecord<String, String> data) {
+            blackhole.consume(data.value());
+        }
+    }
+
+    /**
+     * Потребитель, получающий сообщения пакетом.
+     */
+    static class BatchConsumer extends AbstractKafkaBatchConsumer<String, String> {
+
+        private final Blackhole blackhole;
+
+        BatchConsumer(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onMessage(List<ConsumerRecord<String, String>> data) {
+            for (ConsumerRecord<String, String> record : data) {
+                blackhole.consume(record.value());
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ru.astondevs.kafka.benchmark;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import ru.astondevs.kafka.autoconfigure.producer.AbstractKafkaProducer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы перегрузок {@link AbstractKafkaProducer#send} и {@link AbstractKafkaProducer#sendAndForget}
+ * поверх {@link BenchmarkMockProducer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProducerSendBenchmark {
+
+    private static final String KEY = "key";
+
+    private static final String VALUE = "value";
+
+    private static final Callback CALLBACK = (metadata, exception) -> {
+    };
+
+    /**
+     * Включает таймер отправки, устанавливаемый при наличии реестра метрик.
+     */
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private BenchmarkProducer producer;
+
+    @Setup
+    public void setUp() {
+        BenchmarkMockProducer<String, String> mockProducer = new BenchmarkMockProducer<>(new StringSerializer(), new StringSerializer());
+        ProducerFactory<String, String> producerFactory = () -> mockProducer;
+        KafkaTemplate<String, String> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        kafkaTemplate.setDefaultTopic("benchmark");
+
+        producer = new BenchmarkProducer();
+        producer.setKafkaTemplate(kafkaTemplate);
+        if (metrics) {
+            producer.setSendTimer(Timer.builder("benchmark.send").publishPercentileHistogram().register(new SimpleMeterRegistry()));
+        }
+    }
+
+    @Benchmark
+    public CompletableFuture<SendResult<String, String>> sendValue() {
+        return producer.send(VALUE);
+    }
+
+    @Benchmark
+    public CompletableFuture<SendResult<String, String>> sendKeyValue() {
+        return producer.send(KEY, VALUE);
+    }
+
+    @Benchmark
+    public CompletableFuture<SendResult<String, String>> sendPartitionKeyValue() {
+        return producer.send(0, KEY, VALUE);
+    }
+
+    @Benchmark
+    public CompletableFuture<SendResult<String, String>> sendPartitionTimestampKeyValue() {
+        return producer.send(0, 1_700_000_000_000L, KEY, VALUE);
+    }
+
+    @Benchmark
+    public void sendAndForgetKeyValue() {
+        producer.sendAndForget(KEY, VALUE);
+    }
+
+    @Benchmark
+    public void sendKeyValueCallback() {
+        producer.send(KEY, VALUE, CALLBACK);
+    }
+
+    /**
+     * Продюсер, отправляющий строки.
+     */
+    public static class BenchmarkProducer extends AbstractKafkaProducer<String, String> {
+    }
+}
@@ -0,0 +1,221 @@
+package ru.astondevs.kafka.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import ru.astondevs.kafka.autoconfigure.serialization.AvroDeserializer;
+import ru.astondevs.kafka.autoconfigure.serialization.AvroSerializer;
+import ru.astondevs.kafka.autoconfigure.serialization.JacksonDeserializer;
+import ru.astondevs.kafka.autoconfigure.serialization.JacksonSerializer;
+import ru.astondevs.kafka.autoconfigure.serialization.ProtobufDeserializer;
+import ru.astondevs.kafka.autoconfigure.serialization.ProtobufSerializer;
+import ru.astondevs.kafka.autoconfigure.serialization.SchemaSerialization;
+import ru.astondevs.kafka.autoconfigure.serialization.SchemaSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость серелизации и десерелизации значений при разных размерах сообщения.
+ * Размеры сообщения в JSON, Avro и Protobuf выводятся при подготовке каждого набора параметров.
+ * Protobuf измеряется на {@link DynamicMessage}, сгенерированные классы обрабатываются быстрее.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    private static final String TOPIC = "benchmark";
+
+    /**
+     * Размер полезной нагрузки сообщения в символах.
+     */
+    @Param({"64", "1024", "16384"})
+    public int payloadSize;
+
+    private BenchmarkEvent event;
+
+    private String json;
+
+    private byte[] jsonBytes;
+
+    private ByteBuffer jsonBuffer;
+
+    private StringSerializer stringSerializer;
+
+    private StringDeserializer stringDeserializer;
+
+    private JsonSerializer<BenchmarkEvent> springJsonSerializer;
+
+    private JsonDeserializer<BenchmarkEvent> springJsonDeserializer;
+
+    private JacksonSerializer<BenchmarkEvent> jacksonSerializer;
+
+    private JacksonDeserializer<BenchmarkEvent> jacksonDeserializer;
+
+    private GenericRecord avroRecord;
+
+    private byte[] avroBytes;
+
+    private AvroSerializer<GenericRecord> avroSerializer;
+
+    private AvroDeserializer<GenericRecord> avroDeserializer;
+
+    private DynamicMessage protobufMessage;
+
+    private byte[] protobufBytes;
+
+    private ProtobufSerializer<DynamicMessage> protobufSerializer;
+
+    private ProtobufDeserializer<DynamicMessage> protobufDeserializer;
+
+    @Setup
+    public void setUp() throws JsonProcessingException, Descriptors.DescriptorValidationException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        event = BenchmarkEvent.ofSize(payloadSize);
+        json = objectMapper.writeValueAsString(event);
+        jsonBytes = objectMapper.writeValueAsBytes(event);
+        jsonBuffer = ByteBuffer.wrap(jsonBytes);
+
+        stringSerializer = new StringSerializer();
+        stringDeserializer = new StringDeserializer();
+        springJsonSerializer = new JsonSerializer<>(objectMapper);
+        springJsonDeserializer = new JsonDeserializer<>(BenchmarkEvent.class, objectMapper, false);
+        jacksonSerializer = new JacksonSerializer<>(objectMapper);
+        jacksonDeserializer = new JacksonDeserializer<>(objectMapper, BenchmarkEvent.class);
+
+        Map<String, String> avroConfigs = Map.of(SchemaSerialization.VALUE_SCHEMA_CONFIG, "benchmark-event.avsc");
+        avroSerializer = new AvroSerializer<>();
+        avroSerializer.configure(avroConfigs, false);
+        avroDeserializer = new AvroDeserializer<>();
+        avroDeserializer.configure(avroConfigs, false);
+        Schema avroSchema = new Schema.Parser().parse(new String(SchemaSource.classpath().load("benchmark-event.avsc"), StandardCharsets.UTF_8));
+        avroRecord = new GenericData.Record(avroSchema);
+        avroRecord.put("id", event.id());
+        avroRecord.put("timestamp", event.timestamp());
+        avroRecord.put("payload", event.payload());
+        avroBytes = avroSerializer.serialize(TOPIC, avroRecord);
+
+        Descriptors.Descriptor descriptor = createProtobufDescriptor();
+        protobufMessage = DynamicMessage.newBuilder(descriptor)
+                .setField(descriptor.findFieldByName("id"), event.id())
+                .setField(descriptor.findFieldByName("timestamp"), event.timestamp())
+                .setField(descriptor.findFieldByName("payload"), event.payload())
+                .build();
+        protobufSerializer = new ProtobufSerializer<>();
+        protobufDeserializer = new ProtobufDeserializer<>(DynamicMessage.getDefaultInstance(descriptor).getParserForType());
+        protobufBytes = protobufSerializer.serialize(TOPIC, protobufMessage);
+
+        System.out.printf("Message size for payload %d: json %d, avro %d, protobuf %d bytes%n",
+                payloadSize, jsonBytes.length, avroBytes.length, protobufBytes.length);
+    }
+
+    /**
+     * Создает описание сообщения Protobuf с полями {@link BenchmarkEvent}.
+     *
+     * @return описание сообщения
+     */
+    private static Descriptors.Descriptor createProtobufDescriptor() throws Descriptors.DescriptorValidationException {
+        DescriptorProtos.DescriptorProto message = DescriptorProtos.DescriptorProto.newBuilder()
+                .setName("BenchmarkEvent")
+                .addField(createProtobufField("id", 1, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(createProtobufField("timestamp", 2, DescriptorProtos.FieldDescriptorProto.Type.TYPE_INT64))
+                .addField(createProtobufField("payload", 3, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                .build();
+        DescriptorProtos.FileDescriptorProto file = DescriptorProtos.FileDescriptorProto.newBuilder()
+                .setName("benchmark_event.proto")
+                .setSyntax("proto3")
+                .addMessageType(message)
+                .build();
+        return Descriptors.FileDescriptor.buildFrom(file, new Descriptors.FileDescriptor[0]).findMessageTypeByName("BenchmarkEvent");
+    }
+
+    private static DescriptorProtos.FieldDescriptorProto createProtobufField(String name, int number, DescriptorProtos.FieldDescriptorProto.Type type) {
+        return DescriptorProtos.FieldDescriptorProto.newBuilder()
+                .setName(name)
+                .setNumber(number)
+                .setType(type)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serializeString() {
+        return stringSerializer.serialize(TOPIC, json);
+    }
+
+    @Benchmark
+    public byte[] serializeSpringJson() {
+        return springJsonSerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public byte[] serializeJackson() {
+        return jacksonSerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public String deserializeString() {
+        return stringDeserializer.deserialize(TOPIC, jsonBytes);
+    }
+
+    @Benchmark
+    public BenchmarkEvent deserializeSpringJson() {
+        return springJsonDeserializer.deserialize(TOPIC, jsonBytes);
+    }
+
+    @Benchmark
+    public BenchmarkEvent deserializeJackson() {
+        return jacksonDeserializer.deserialize(TOPIC, jsonBytes);
+    }
+
+    @Benchmark
+    public BenchmarkEvent deserializeJacksonByteBuffer() {
+        return jacksonDeserializer.deserialize(TOPIC, new RecordHeaders(), jsonBuffer.duplicate());
+    }
+
+    @Benchmark
+    public byte[] serializeAvro() {
+        return avroSerializer.serialize(TOPIC, avroRecord);
+    }
+
+    @Benchmark
+    public GenericRecord deserializeAvro() {
+        return avroDeserializer.deserialize(TOPIC, avroBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeProtobuf() {
+        return protobufSerializer.serialize(TOPIC, protobufMessage);
+    }
+
+    @Benchmark
+    public DynamicMessage deserializeProtobuf() {
+        return protobufDeserializer.deserialize(TOPIC, protobufBytes);
+    }
+}
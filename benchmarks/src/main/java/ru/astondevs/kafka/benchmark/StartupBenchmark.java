@@ -0,0 +1,152 @@
+package ru.astondevs.kafka.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
+import ru.astondevs.kafka.autoconfigure.aot.KafkaAnnotatedBeans;
+import ru.astondevs.kafka.autoconfigure.consumer.AbstractKafkaConsumer;
+import ru.astondevs.kafka.autoconfigure.consumer.KafkaConsumer;
+import ru.astondevs.kafka.autoconfigure.consumer.KafkaConsumerBeanPostProcessor;
+import ru.astondevs.kafka.autoconfigure.consumer.KafkaReceiverRegistry;
+import ru.astondevs.kafka.autoconfigure.producer.AbstractKafkaProducer;
+import ru.astondevs.kafka.autoconfigure.producer.KafkaProducer;
+import ru.astondevs.kafka.autoconfigure.producer.KafkaProducerBeanPostProcessor;
+import ru.astondevs.kafka.autoconfigure.producer.KafkaSenderRegistry;
+import ru.astondevs.kafka.autoconfigure.producer.ProducerErrorHandler;
+import ru.astondevs.kafka.autoconfigure.producer.ProducerFactoryRegistry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость обработки компонентов пост процессорами продюсеров и потребителей при запуске контекста.
+ * Контекст содержит заданное количество продюсеров, потребителей и обычных компонентов.
+ * Контейнеры потребителей не запускаются, поэтому тест не требует kafka.
+ * С {@code aot} фабрика содержит индекс {@link KafkaAnnotatedBeans}, который регистрирует код AOT обработки.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final String CONFIG = "benchmark";
+
+    /**
+     * Количество компонентов каждого вида.
+     */
+    @Param({"10", "100", "1000"})
+    public int beanCount;
+
+    /**
+     * Признак запуска с индексом компонентов AOT обработки.
+     */
+    @Param({"false", "true"})
+    public boolean aot;
+
+    private KafkaConfigurationProperties properties;
+
+    private DefaultListableBeanFactory beanFactory;
+
+    private ProducerFactoryRegistry producerFactoryRegistry;
+
+    @Setup
+    public void setUpProperties() {
+        KafkaConfigurationProperties.ProducerProperties producerProperties = new KafkaConfigurationProperties.ProducerProperties();
+        producerProperties.setTopic(CONFIG);
+        producerProperties.setBootstrapServers(List.of("localhost:9092"));
+
+        KafkaConfigurationProperties.ConsumerProperties consumerProperties = new KafkaConfigurationProperties.ConsumerProperties();
+        consumerProperties.setTopic(CONFIG);
+        consumerProperties.setGroupId(CONFIG);
+        consumerProperties.setBootstrapServers(List.of("localhost:9092"));
+
+        properties = new KafkaConfigurationProperties();
+        properties.setProducers(Map.of(CONFIG, producerProperties));
+        properties.setConsumers(Map.of(CONFIG, consumerProperties));
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpBeanFactory() {
+        beanFactory = new DefaultListableBeanFactory();
+        KafkaAnnotatedBeans annotatedBeans = new KafkaAnnotatedBeans();
+        for (int i = 0; i < beanCount; i++) {
+            beanFactory.registerBeanDefinition("producer" + i, new RootBeanDefinition(BenchmarkProducer.class));
+            beanFactory.registerBeanDefinition("consumer" + i, new RootBeanDefinition(BenchmarkConsumer.class));
+            beanFactory.registerBeanDefinition("plain" + i, new RootBeanDefinition(PlainBean.class));
+            annotatedBeans.producer("producer" + i, CONFIG).consumer("consumer" + i, CONFIG);
+        }
+
+        if (aot) {
+            beanFactory.registerSingleton(KafkaAnnotatedBeans.BEAN_NAME, annotatedBeans);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws Exception {
+        producerFactoryRegistry.destroy();
+    }
+
+    @Benchmark
+    public Object postProcessBeans() {
+        producerFactoryRegistry = new ProducerFactoryRegistry(beanFactory, properties, beanFactory.getBeanProvider(MeterRegistry.class));
+        KafkaProducerBeanPostProcessor producerPostProcessor =
+                new KafkaProducerBeanPostProcessor(beanFactory, producerFactoryRegistry, beanFactory.getBeanProvider(MeterRegistry.class),
+                        beanFactory.getBeanProvider(ProducerErrorHandler.class), beanFactory.getBeanProvider(KafkaSenderRegistry.class));
+        KafkaConsumerBeanPostProcessor consumerPostProcessor =
+                new KafkaConsumerBeanPostProcessor(beanFactory, properties, producerFactoryRegistry, beanFactory.getBeanProvider(MeterRegistry.class),
+                        beanFactory.getBeanProvider(KafkaReceiverRegistry.class));
+
+        Object last = null;
+        for (int i = 0; i < beanCount; i++) {
+            last = producerPostProcessor.postProcessBeforeInitialization(new BenchmarkProducer(), "producer" + i);
+            last = consumerPostProcessor.postProcessBeforeInitialization(new BenchmarkConsumer(), "consumer" + i);
+            last = producerPostProcessor.postProcessBeforeInitialization(new PlainBean(), "plain" + i);
+            last = consumerPostProcessor.postProcessBeforeInitialization(last, "plain" + i);
+        }
+
+        return last;
+    }
+
+    /**
+     * Продюсер, используемый в тесте.
+     */
+    @KafkaProducer(config = CONFIG)
+    public static class BenchmarkProducer extends AbstractKafkaProducer<String, String> {
+    }
+
+    /**
+     * Потребитель, используемый в тесте.
+     */
+    @KafkaConsumer(config = CONFIG)
+    public static class BenchmarkConsumer extends AbstractKafkaConsumer<String, String> {
+
+        @Override
+        public void onMessage(ConsumerRecord<String, String> data) {
+        }
+    }
+
+    /**
+     * Компонент без аннотаций kafka.
+     */
+    public static class PlainBean {
+    }
+}
@@ -1,15 +1,31 @@
 package ru.astondevs.kafka.autoconfigure;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import ru.astondevs.kafka.autoconfigure.aot.KafkaStarterRuntimeHints;
+import ru.astondevs.kafka.autoconfigure.consumer.AbstractReactiveKafkaConsumer;
 import ru.astondevs.kafka.autoconfigure.consumer.KafkaConsumer;
 import ru.astondevs.kafka.autoconfigure.producer.KafkaProducer;
 import ru.astondevs.kafka.autoconfigure.consumer.KafkaConsumerBeanPostProcessor;
+import ru.astondevs.kafka.autoconfigure.consumer.KafkaConsumerLifecycle;
+import ru.astondevs.kafka.autoconfigure.consumer.KafkaConsumersEndpoint;
+import ru.astondevs.kafka.autoconfigure.consumer.KafkaReceiverRegistry;
+import ru.astondevs.kafka.autoconfigure.producer.AbstractReactiveKafkaProducer;
 import ru.astondevs.kafka.autoconfigure.producer.KafkaProducerBeanPostProcessor;
+import ru.astondevs.kafka.autoconfigure.producer.KafkaSenderRegistry;
+import ru.astondevs.kafka.autoconfigure.producer.ProducerErrorHandler;
+import ru.astondevs.kafka.autoconfigure.producer.ProducerFactoryRegistry;
 
 /**
  * Класс авто-конфигурации kafka.
@@ -19,23 +35,96 @@ import ru.astondevs.kafka.autoconfigure.producer.KafkaProducerBeanPostProcessor;
  */
 @AutoConfiguration
 @EnableConfigurationProperties(KafkaConfigurationProperties.class)
+@ImportRuntimeHints(KafkaStarterRuntimeHints.class)
 @ConditionalOnProperty(prefix = "ru.astondevs.kafka", name = "enabled", havingValue = "true", matchIfMissing = true)
 public class KafkaAutoConfiguration {
 
+    /**
+     * Реестр фабрик продюсеров, общих для всех {@link KafkaProducer} компонентов одной конфигурации.
+     */
+    @Bean
+    public ProducerFactoryRegistry kafkaProducerFactoryRegistry(ConfigurableListableBeanFactory beanFactory, KafkaConfigurationProperties properties,
+                                                                ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new ProducerFactoryRegistry(beanFactory, properties, meterRegistryProvider);
+    }
+
     /**
      * {@link BeanPostProcessor} отвечающий за конфигурацию {@link KafkaProducer} компонентов.
      */
     @Bean
-    public KafkaProducerBeanPostProcessor kafkaProducerBeanPostProcessor(ConfigurableListableBeanFactory beanFactory, KafkaConfigurationProperties properties) {
-        return new KafkaProducerBeanPostProcessor(beanFactory, properties);
+    public KafkaProducerBeanPostProcessor kafkaProducerBeanPostProcessor(ConfigurableListableBeanFactory beanFactory, ProducerFactoryRegistry producerFactoryRegistry,
+                                                                         ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                                                         ObjectProvider<ProducerErrorHandler> errorHandlerProvider,
+                                                                         ObjectProvider<KafkaSenderRegistry> kafkaSenderRegistryProvider) {
+        return new KafkaProducerBeanPostProcessor(beanFactory, producerFactoryRegistry, meterRegistryProvider, errorHandlerProvider, kafkaSenderRegistryProvider);
     }
 
     /**
      * {@link BeanPostProcessor} отвечающий за конфигурацию {@link KafkaConsumer} компонентов.
      */
     @Bean
-    public KafkaConsumerBeanPostProcessor kafkaListenerBeanPostProcessor(ConfigurableListableBeanFactory factory, KafkaConfigurationProperties properties) {
-        return new KafkaConsumerBeanPostProcessor(factory, properties);
+    public KafkaConsumerBeanPostProcessor kafkaListenerBeanPostProcessor(ConfigurableListableBeanFactory factory, KafkaConfigurationProperties properties,
+                                                                         ProducerFactoryRegistry producerFactoryRegistry,
+                                                                         ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                                                         ObjectProvider<KafkaReceiverRegistry> kafkaReceiverRegistryProvider) {
+        return new KafkaConsumerBeanPostProcessor(factory, properties, producerFactoryRegistry, meterRegistryProvider, kafkaReceiverRegistryProvider);
+    }
+
+    /**
+     * Параллельный запуск контейнеров {@link KafkaConsumer} компонентов.
+     */
+    @Bean
+    public KafkaConsumerLifecycle kafkaConsumerLifecycle(KafkaConsumerBeanPostProcessor consumerBeanPostProcessor, KafkaConfigurationProperties properties,
+                                                         ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new KafkaConsumerLifecycle(consumerBeanPostProcessor, properties, meterRegistryProvider);
+    }
+
+    /**
+     * Конфигурация реактивных продюсеров и потребителей, активная при наличии reactor-kafka.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "reactor.kafka.sender.KafkaSender")
+    static class ReactiveKafkaConfiguration {
+
+        /**
+         * Реестр отправителей, общих для всех {@link AbstractReactiveKafkaProducer} компонентов одной конфигурации.
+         */
+        @Bean
+        public KafkaSenderRegistry kafkaSenderRegistry(ProducerFactoryRegistry producerFactoryRegistry) {
+            return new KafkaSenderRegistry(producerFactoryRegistry);
+        }
+
+        /**
+         * Реестр подписок {@link AbstractReactiveKafkaConsumer} компонентов.
+         */
+        @Bean
+        public KafkaReceiverRegistry kafkaReceiverRegistry() {
+            return new KafkaReceiverRegistry();
+        }
+    }
+
+    /**
+     * Конфигурация actuator endpoint потребителей, активная при наличии spring-boot-actuator-autoconfigure.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = {
+            "org.springframework.boot.actuate.endpoint.annotation.Endpoint",
+            "org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint"
+    })
+    static class ActuatorConfiguration {
+
+        /**
+         * Endpoint состояния, приостановки и изменения количества потоков {@link KafkaConsumer} компонентов.
+         * Создается, только если endpoint включен и опубликован.
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnAvailableEndpoint
+        public KafkaConsumersEndpoint kafkaConsumersEndpoint(KafkaConsumerBeanPostProcessor consumerBeanPostProcessor,
+                                                             KafkaConsumerLifecycle consumerLifecycle,
+                                                             KafkaConfigurationProperties properties) {
+            return new KafkaConsumersEndpoint(consumerBeanPostProcessor, consumerLifecycle, properties);
+        }
     }
 
 }
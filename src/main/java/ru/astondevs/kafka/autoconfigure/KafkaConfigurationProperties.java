@@ -1,7 +1,16 @@
 package ru.astondevs.kafka.autoconfigure;
 
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.consumer.RangeAssignor;
+import org.apache.kafka.clients.consumer.RoundRobinAssignor;
+import org.apache.kafka.clients.consumer.StickyAssignor;
+import org.apache.kafka.common.IsolationLevel;
+import org.apache.kafka.common.record.CompressionType;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -9,6 +18,8 @@ import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +44,53 @@ public class KafkaConfigurationProperties {
      */
     private Map<String, ConsumerProperties> consumers;
 
+    /**
+     * Свойства запуска и остановки продюсеров и потребителей.
+     */
+    private Lifecycle lifecycle = new Lifecycle();
+
+    /**
+     * Свойства запуска и остановки продюсеров и потребителей.
+     */
+    @Getter
+    @Setter
+    public static class Lifecycle {
+
+        /**
+         * Момент запуска контейнеров потребителей.
+         */
+        private ConsumerStartup consumerStartup = ConsumerStartup.REFRESH;
+
+        /**
+         * Создает продюсеров всех используемых конфигураций при запуске и загружает метаданные их топиков,
+         * чтобы первая отправка не ожидала подключения к кластеру.
+         */
+        private boolean producerWarmUp = false;
+
+        /**
+         * Максимальное время остановки контейнеров потребителей и, отдельно, отправки буферов продюсеров
+         * при остановке контекста.
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+        /**
+         * Момент запуска контейнеров потребителей.
+         */
+        public enum ConsumerStartup {
+
+            /**
+             * Контейнеры запускаются параллельно после обновления контекста.
+             */
+            REFRESH,
+
+            /**
+             * Контейнеры запускаются параллельно после готовности приложения ({@code ApplicationReadyEvent}).
+             */
+            READY
+        }
+
+    }
+
     /**
      * Свойства kafka продюсера.
      */
@@ -81,6 +139,175 @@ public class KafkaConfigurationProperties {
          */
         private String valueSerializerBeanName;
 
+        /**
+         * Количество kafka продюсеров в пуле этой конфигурации.
+         * По умолчанию все компоненты конфигурации используют один общий продюсер.
+         * Каждый отправляющий поток закрепляется за одним продюсером пула, поэтому порядок сообщений
+         * с одинаковым ключом сохраняется в рамках потока.
+         */
+        private int poolSize = 1;
+
+        /**
+         * Количество подтверждений брокеров, необходимое для успешной отправки: {@code all}, {@code 1} или {@code 0}.
+         */
+        private String acks;
+
+        /**
+         * Тип сжатия пакетов: {@code none}, {@code gzip}, {@code snappy}, {@code lz4} или {@code zstd}.
+         */
+        private CompressionType compressionType;
+
+        /**
+         * Включает идемпотентную отправку, исключающую дубликаты при повторных попытках.
+         */
+        private Boolean enableIdempotence;
+
+        /**
+         * Объем памяти продюсера для буферизации сообщений, ожидающих отправки.
+         */
+        private DataSize bufferMemory;
+
+        /**
+         * Максимальное количество неподтвержденных запросов на одно соединение.
+         */
+        private Integer maxInFlightRequestsPerConnection;
+
+        /**
+         * Максимальный размер запроса к брокеру.
+         */
+        private DataSize maxRequestSize;
+
+        /**
+         * Максимальное время от вызова отправки до получения подтверждения или ошибки, включая повторные попытки.
+         */
+        private Duration deliveryTimeout;
+
+        /**
+         * Максимальное количество неподтвержденных сообщений одной пакетной отправки {@code sendAll}.
+         * При достижении границы отправка блокируется до получения подтверждений.
+         */
+        private int bulkMaxInFlight = 10_000;
+
+        /**
+         * Префикс {@code transactional.id}, включающий транзакционную отправку.
+         * Должен быть уникальным для каждого экземпляра приложения. Транзакционная конфигурация допускает только
+         * {@code pool-size} равный единице, а отправка вне транзакции в ней недоступна.
+         */
+        private String transactionIdPrefix;
+
+        /**
+         * Объединение отправок {@code sendAndForget(key, value)} по ключу.
+         */
+        private Coalescing coalescing = new Coalescing();
+
+        /**
+         * Журнал на диске для отправок {@code sendAndForget} при заполненном буфере kafka продюсера.
+         */
+        private Spill spill = new Spill();
+
+        /**
+         * Добавляет в каждое сообщение заголовок {@code LatencyHeader} со временем отправки и названием конфигурации
+         * для измерения задержки доставки потребителями с {@code latency-tracking}.
+         */
+        private boolean latencyTracking = false;
+
+        /**
+         * Дополнительные свойства kafka продюсера, применяемые поверх остальных свойств конфигурации.
+         *
+         * @see org.apache.kafka.clients.producer.ProducerConfig
+         */
+        private Map<String, String> properties = new HashMap<>();
+
+        /**
+         * Свойства объединения отправок. Если задано окно, {@code sendAndForget(key, value)} помещает значение в буфер,
+         * хранящий только последнее значение каждого ключа, и буфер отправляется по окончании окна или при достижении
+         * {@code max-keys} ключей. Подходит для топиков состояний, в которых важно только последнее значение ключа.
+         * Не поддерживается транзакционной конфигурацией.
+         */
+        @Getter
+        @Setter
+        public static class Coalescing {
+
+            /**
+             * Окно объединения. Объединение включено, если задано это свойство.
+             */
+            private Duration window;
+
+            /**
+             * Количество ключей буфера, при котором он отправляется до окончания окна.
+             */
+            private int maxKeys = 10_000;
+
+        }
+
+        /**
+         * Свойства журнала переполнения. Если задан каталог, {@code sendAndForget} при заполненном {@code buffer-memory}
+         * kafka продюсера не блокирует вызывающий поток, а записывает сообщение в журнал из отображенных в память
+         * сегментов. Фоновая задача отправляет сообщения журнала по порядку, когда у продюсера освобождается буфер,
+         * и до опустошения журнала последующие сообщения также записываются в журнал.
+         * Не поддерживается транзакционной конфигурацией.
+         */
+        @Getter
+        @Setter
+        public static class Spill {
+
+            /**
+             * Каталог журнала, журнал конфигурации хранится в подкаталоге с ее названием. Журнал включен, если задано это свойство.
+             */
+            private String directory;
+
+            /**
+             * Размер сегмента журнала.
+             */
+            private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+            /**
+             * Максимальный размер журнала на диске. Сообщения, не поместившиеся в журнал, отбрасываются.
+             */
+            private DataSize maxSize = DataSize.ofGigabytes(1);
+
+            /**
+             * Максимальный возраст сообщения журнала. Более старые сообщения отбрасываются при отправке из журнала.
+             */
+            private Duration maxAge;
+
+            /**
+             * Политика сброса журнала на диск.
+             */
+            private Fsync fsync = Fsync.INTERVAL;
+
+            /**
+             * Интервал сброса журнала на диск для политики {@code interval}.
+             */
+            private Duration fsyncInterval = Duration.ofSeconds(1);
+
+            /**
+             * Интервал проверки журнала фоновой задачей отправки.
+             */
+            private Duration drainInterval = Duration.ofMillis(100);
+
+            /**
+             * Политика сброса журнала на диск.
+             */
+            public enum Fsync {
+
+                /**
+                 * Сброс выполняет операционная система.
+                 */
+                NONE,
+
+                /**
+                 * Сброс выполняется с интервалом {@code fsync-interval}.
+                 */
+                INTERVAL,
+
+                /**
+                 * Сброс выполняется после записи каждого сообщения.
+                 */
+                ALWAYS
+            }
+        }
+
     }
 
     /**
@@ -90,6 +317,11 @@ public class KafkaConfigurationProperties {
     @Setter
     public static class ConsumerProperties {
 
+        /**
+         * Значение {@code concurrency}, включающее выбор количества потоков по числу партиций топика.
+         */
+        public static final String AUTO_CONCURRENCY = "auto";
+
         /**
          * Разделенный запятыми список пар хост:порт,
          * которые будут использоваться для установления начальных подключений к кластеру Kafka.
@@ -126,5 +358,359 @@ public class KafkaConfigurationProperties {
          */
         private String valueDeserializerBeanName;
 
+        /**
+         * Включает пакетную доставку сообщений.
+         * Потребители такой конфигурации должны расширять {@code AbstractKafkaBatchConsumer}.
+         */
+        private boolean batchListener = false;
+
+        /**
+         * Максимальное количество сообщений, возвращаемых одним poll.
+         */
+        private Integer maxPollRecords;
+
+        /**
+         * Минимальный объем данных, который брокер накапливает перед ответом на fetch запрос.
+         */
+        private DataSize fetchMinBytes;
+
+        /**
+         * Максимальное время ожидания брокером {@code fetch-min-bytes} перед ответом на fetch запрос.
+         */
+        private Duration fetchMaxWait;
+
+        /**
+         * Количество потоков потребителя на каждый компонент этой конфигурации.
+         * Значение {@value #AUTO_CONCURRENCY} выбирает количество по числу партиций топика при запуске,
+         * но не больше {@code max-concurrency}.
+         */
+        private String concurrency = "1";
+
+        /**
+         * Верхняя граница количества потоков в режиме {@value #AUTO_CONCURRENCY}.
+         * По умолчанию равна количеству доступных процессоров.
+         */
+        private Integer maxConcurrency;
+
+        /**
+         * Режим выполнения обработки сообщений.
+         */
+        private ExecutionMode executionMode = ExecutionMode.CONTAINER;
+
+        /**
+         * Максимальное количество неподтвержденных сообщений одной партиции в режиме {@code virtual-threads}.
+         * При достижении границы партиция приостанавливается.
+         */
+        private int maxInFlight = 256;
+
+        /**
+         * Максимальный объем данных, возвращаемый брокером на один fetch запрос.
+         */
+        private DataSize fetchMaxBytes;
+
+        /**
+         * Максимальный объем данных одной партиции, возвращаемый брокером на один fetch запрос.
+         */
+        private DataSize maxPartitionFetchBytes;
+
+        /**
+         * Максимальный интервал между вызовами poll, после которого потребитель исключается из группы.
+         */
+        private Duration maxPollInterval;
+
+        /**
+         * Стратегия выбора начального смещения при отсутствии зафиксированного: {@code latest}, {@code earliest} или {@code none}.
+         */
+        private OffsetResetStrategy autoOffsetReset;
+
+        /**
+         * Уровень изоляции чтения транзакционных сообщений: {@code read-uncommitted} или {@code read-committed}.
+         */
+        private IsolationLevel isolationLevel;
+
+        /**
+         * Стратегия распределения партиций между потребителями группы.
+         */
+        private AssignmentStrategy partitionAssignmentStrategy;
+
+        /**
+         * Название транзакционной конфигурации продюсера, в транзакции которой выполняется обработка сообщений.
+         * Смещения обработанных сообщений фиксируются в этой транзакции вместе с отправками продюсеров конфигурации.
+         * Поддерживается только режим выполнения {@code container}.
+         */
+        private String transactionalProducer;
+
+        /**
+         * Количество подтвержденных сообщений реактивного потребителя, после которого фиксируются смещения.
+         */
+        private Integer commitBatchSize;
+
+        /**
+         * Интервал фиксации смещений подтвержденных сообщений реактивного потребителя.
+         */
+        private Duration commitInterval;
+
+        /**
+         * Повторная обработка сообщений через топики повторов и топик недоставленных сообщений.
+         */
+        private Retry retry = new Retry();
+
+        /**
+         * Приостановка потребителей при загруженности ресурсов, которым передаются сообщения.
+         */
+        private Backpressure backpressure = new Backpressure();
+
+        /**
+         * Автоматическое изменение количества потоков контейнеров по отставанию группы.
+         */
+        private Autoscaling autoscaling = new Autoscaling();
+
+        /**
+         * Отбрасывание повторно доставленных сообщений до вызова компонента потребителя.
+         */
+        private Dedup dedup = new Dedup();
+
+        /**
+         * Измеряет задержку доставки сообщений с заголовком {@code LatencyHeader} по этапам: ожидание в брокере,
+         * ожидание в полученном poll и обработка. В режиме {@code virtual-threads} ожидание в poll включает
+         * ожидание потока обработки.
+         */
+        private boolean latencyTracking = false;
+
+        /**
+         * Максимальное количество значений тега {@code source} метрики задержки доставки каждого топика.
+         * Сообщения остальных конфигураций продюсеров записываются с тегом {@code source=other}.
+         */
+        private int latencyMaxSources = 16;
+
+        /**
+         * Дополнительные свойства kafka потребителя, применяемые поверх остальных свойств конфигурации.
+         *
+         * @see org.apache.kafka.clients.consumer.ConsumerConfig
+         */
+        private Map<String, String> properties = new HashMap<>();
+
+        /**
+         * Свойства неблокирующей повторной обработки сообщений.
+         * Сообщение, обработка которого завершилась исключением, публикуется в следующий топик повторов,
+         * не задерживая обработку остальных сообщений партиции, а после исчерпания попыток - в топик недоставленных сообщений.
+         */
+        @Getter
+        @Setter
+        public static class Retry {
+
+            /**
+             * Название конфигурации продюсера, которым публикуются сообщения в топики повторов и недоставленных сообщений.
+             * Повторная обработка включена, если задано это свойство. Серелизаторы конфигурации должны поддерживать
+             * типы ключа и значения потребителя.
+             */
+            private String producer;
+
+            /**
+             * Количество повторных попыток обработки, каждая из которых выполняется через отдельный топик повторов.
+             * При значении {@code 0} сообщение сразу публикуется в топик недоставленных сообщений.
+             */
+            private int attempts = 3;
+
+            /**
+             * Задержка перед первой повторной попыткой.
+             */
+            private Duration delay = Duration.ofSeconds(1);
+
+            /**
+             * Множитель задержки каждой следующей попытки.
+             */
+            private double multiplier = 1.0;
+
+            /**
+             * Максимальная задержка перед повторной попыткой.
+             */
+            private Duration maxDelay;
+
+            /**
+             * Суффикс топиков повторов, к которому добавляется номер попытки: {@code <topic><suffix>-<номер>}.
+             */
+            private String topicSuffix = "-retry";
+
+            /**
+             * Топик недоставленных сообщений. По умолчанию {@code <topic>-dlt}.
+             */
+            private String dltTopic;
+
+        }
+
+        /**
+         * Свойства приостановки потребителей по сигналу загруженности.
+         * Пороги задают гистерезис: контейнеры конфигурации приостанавливаются при достижении {@code pause-threshold}
+         * и возобновляются только после снижения уровня до {@code resume-threshold}.
+         */
+        @Getter
+        @Setter
+        public static class Backpressure {
+
+            /**
+             * Название компонента {@code BackpressureSignal}. Приостановка включена, если задано это свойство.
+             */
+            private String signal;
+
+            /**
+             * Уровень сигнала, при котором контейнеры приостанавливаются. Обязателен, если задан сигнал, и положителен.
+             */
+            private Double pauseThreshold;
+
+            /**
+             * Уровень сигнала, при котором приостановленные контейнеры возобновляются. Обязателен, если задан сигнал,
+             * положителен и меньше {@code pause-threshold}.
+             */
+            private Double resumeThreshold;
+
+            /**
+             * Интервал проверки сигнала.
+             */
+            private Duration checkInterval = Duration.ofMillis(100);
+
+        }
+
+        /**
+         * Свойства автоматического масштабирования потребителя. Количество потоков вычисляется как отставание группы
+         * по всем партициям топика, деленное на {@code lag-per-thread}, в границах {@code min-concurrency}
+         * и {@code max-concurrency}. Количество потоков увеличивается сразу до необходимого, а уменьшается
+         * на один поток. После каждого изменения следующее выполняется не раньше, чем через {@code cooldown}.
+         */
+        @Getter
+        @Setter
+        public static class Autoscaling {
+
+            /**
+             * Включает автоматическое масштабирование.
+             */
+            private boolean enabled = false;
+
+            /**
+             * Минимальное количество потоков.
+             */
+            private int minConcurrency = 1;
+
+            /**
+             * Максимальное количество потоков (по умолчанию количество партиций топика).
+             */
+            private Integer maxConcurrency;
+
+            /**
+             * Отставание группы, обрабатываемое одним потоком.
+             */
+            private long lagPerThread = 1000;
+
+            /**
+             * Интервал проверки отставания.
+             */
+            private Duration checkInterval = Duration.ofSeconds(30);
+
+            /**
+             * Минимальный интервал между изменениями количества потоков.
+             */
+            private Duration cooldown = Duration.ofMinutes(2);
+
+        }
+
+        /**
+         * Свойства отбрасывания повторно доставленных сообщений. Ключ дедупликации извлекается компонентом
+         * {@code DedupKeyExtractor}, если задано {@code extractor}, значением заголовка, если задано {@code header},
+         * иначе ключом сообщения. Сообщение без ключа дедупликации передается потребителю всегда.
+         * Ключ запоминается после успешной обработки и отбрасывает сообщения с тем же ключом той же партиции
+         * в течение {@code window}. Для каждой партиции хранится не более {@code capacity} ключей,
+         * при превышении вытесняются самые старые. Ключи партиций, отозванных при ребалансировке, удаляются.
+         */
+        @Getter
+        @Setter
+        public static class Dedup {
+
+            /**
+             * Включает отбрасывание повторно доставленных сообщений.
+             */
+            private boolean enabled = false;
+
+            /**
+             * Название заголовка, значение которого является ключом дедупликации.
+             */
+            private String header;
+
+            /**
+             * Название компонента {@code DedupKeyExtractor}, извлекающего ключ дедупликации из сообщения.
+             */
+            private String extractor;
+
+            /**
+             * Использует ключ сообщения как ключ дедупликации. Подходит только для топиков, в которых ключ
+             * уникален для каждого события: иначе новые значения уже обработанного ключа отбрасываются.
+             * Включенной дедупликации требуется ровно один из {@code header}, {@code extractor} или {@code record-key}.
+             */
+            private boolean recordKey = false;
+
+            /**
+             * Максимальное количество запоминаемых ключей одной партиции.
+             */
+            private int capacity = 100_000;
+
+            /**
+             * Время, в течение которого сообщения с запомненным ключом отбрасываются.
+             */
+            private Duration window = Duration.ofMinutes(10);
+
+        }
+
+        /**
+         * Режим выполнения обработки сообщений.
+         */
+        public enum ExecutionMode {
+
+            /**
+             * Сообщения обрабатываются последовательно в потоке контейнера.
+             */
+            CONTAINER,
+
+            /**
+             * Каждое сообщение обрабатывается в отдельном виртуальном потоке (платформенном, если JVM не поддерживает
+             * виртуальные потоки). Сообщения с одинаковым ключом обрабатываются по порядку, а смещения подтверждаются
+             * только после обработки всех предшествующих сообщений партиции. Ошибки обработки передаются
+             * обработчику ошибок контейнера, например, публикуются в топик повторов.
+             */
+            VIRTUAL_THREADS
+        }
+
+        /**
+         * Стратегия распределения партиций между потребителями группы.
+         */
+        @Getter
+        @RequiredArgsConstructor
+        public enum AssignmentStrategy {
+
+            /**
+             * Диапазоны партиций каждого топика.
+             */
+            RANGE(RangeAssignor.class),
+
+            /**
+             * Партиции всех топиков по кругу.
+             */
+            ROUND_ROBIN(RoundRobinAssignor.class),
+
+            /**
+             * Равномерное распределение с сохранением прежних назначений.
+             */
+            STICKY(StickyAssignor.class),
+
+            /**
+             * Распределение {@link #STICKY} с кооперативной ребалансировкой,
+             * не останавливающей обработку неперемещаемых партиций.
+             */
+            COOPERATIVE_STICKY(CooperativeStickyAssignor.class);
+
+            /**
+             * Класс назначителя партиций.
+             */
+            private final Class<? extends ConsumerPartitionAssignor> assignorClass;
+        }
+
     }
 }
@@ -0,0 +1,133 @@
+package ru.astondevs.kafka.autoconfigure;
+
+/**
+ * Названия и теги метрик, публикуемых авто-конфигурацией.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+public final class KafkaMetrics {
+
+    /**
+     * Тег с названием конфигурации продюсера или потребителя.
+     */
+    public static final String TAG_CONFIG = "config";
+
+    /**
+     * Тег с названием компонента продюсера или потребителя.
+     */
+    public static final String TAG_BEAN = "bean";
+
+    /**
+     * Время от вызова отправки до подтверждения брокером.
+     */
+    public static final String PRODUCER_SEND = "kafka.starter.producer.send";
+
+    /**
+     * Время пакетной отправки от вызова {@code sendAll} до подтверждения всех сообщений.
+     */
+    public static final String PRODUCER_SEND_BULK = "kafka.starter.producer.send.bulk";
+
+    /**
+     * Количество ошибок отправок {@code sendAndForget} и отправок с {@code Callback}.
+     */
+    public static final String PRODUCER_ERRORS = "kafka.starter.producer.errors";
+
+    /**
+     * Время создания продюсера и загрузки метаданных топика при запуске.
+     */
+    public static final String PRODUCER_WARM_UP = "kafka.starter.producer.warmup";
+
+    /**
+     * Количество значений, замененных более новыми значениями того же ключа в буфере объединения.
+     */
+    public static final String PRODUCER_COALESCED = "kafka.starter.producer.coalesced";
+
+    /**
+     * Количество сообщений, записанных в журнал переполнения из-за заполненного буфера продюсера.
+     */
+    public static final String PRODUCER_SPILLED = "kafka.starter.producer.spilled";
+
+    /**
+     * Количество сообщений, отброшенных журналом переполнения.
+     */
+    public static final String PRODUCER_SPILL_DROPPED = "kafka.starter.producer.spill.dropped";
+
+    /**
+     * Размер сегментов журнала переполнения на диске.
+     */
+    public static final String PRODUCER_SPILL_SIZE = "kafka.starter.producer.spill.size";
+
+    /**
+     * Тег причины отбрасывания сообщения: {@code full} или {@code expired}.
+     */
+    public static final String TAG_REASON = "reason";
+
+    /**
+     * Время вызова потребителя для сообщения или пакета сообщений.
+     */
+    public static final String CONSUMER_PROCESS = "kafka.starter.consumer.process";
+
+    /**
+     * Количество запущенных потоков контейнера потребителя.
+     */
+    public static final String CONSUMER_THREADS = "kafka.starter.consumer.threads";
+
+    /**
+     * Признак приостановки потребителей конфигурации по сигналу загруженности: 1 - приостановлены, 0 - работают.
+     */
+    public static final String CONSUMER_PAUSED = "kafka.starter.consumer.paused";
+
+    /**
+     * Время запуска контейнера потребителя.
+     */
+    public static final String CONSUMER_STARTUP = "kafka.starter.consumer.startup";
+
+    /**
+     * Отставание группы потребителя конфигурации с автоматическим масштабированием.
+     */
+    public static final String CONSUMER_LAG = "kafka.starter.consumer.lag";
+
+    /**
+     * Количество изменений количества потоков контейнера потребителя автоматическим масштабированием.
+     */
+    public static final String CONSUMER_SCALING = "kafka.starter.consumer.scaling";
+
+    /**
+     * Тег направления изменения количества потоков: {@code up} или {@code down}.
+     */
+    public static final String TAG_DIRECTION = "direction";
+
+    /**
+     * Количество сообщений, проверенных по ключам дедупликации потребителя.
+     */
+    public static final String CONSUMER_DEDUP = "kafka.starter.consumer.dedup";
+
+    /**
+     * Тег результата проверки ключа дедупликации: {@code hit} (сообщение отброшено) или {@code miss}.
+     */
+    public static final String TAG_RESULT = "result";
+
+    /**
+     * Задержка доставки сообщения от отправки продюсером до завершения обработки потребителем по этапам.
+     */
+    public static final String CONSUMER_LATENCY = "kafka.starter.consumer.latency";
+
+    /**
+     * Тег этапа задержки доставки: {@code broker}, {@code queue} или {@code processing}.
+     */
+    public static final String TAG_PHASE = "phase";
+
+    /**
+     * Тег топика.
+     */
+    public static final String TAG_TOPIC = "topic";
+
+    /**
+     * Тег конфигурации продюсера, отправившего сообщение.
+     */
+    public static final String TAG_SOURCE = "source";
+
+    private KafkaMetrics() {
+    }
+}
@@ -0,0 +1,94 @@
+package ru.astondevs.kafka.autoconfigure;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Заголовок сообщения для измерения задержки доставки от отправки продюсером до обработки потребителем.
+ * <p>
+ * Значение заголовка: 8 байт времени отправки в микросекундах от эпохи (big-endian),
+ * за которыми следует название конфигурации продюсера в UTF-8. Время отправки берется из системных часов,
+ * поэтому задержка между разными хостами включает расхождение их часов.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see KafkaConfigurationProperties.ProducerProperties#isLatencyTracking()
+ * @see KafkaConfigurationProperties.ConsumerProperties#isLatencyTracking()
+ */
+public final class LatencyHeader {
+
+    /**
+     * Название заголовка.
+     */
+    public static final String NAME = "kafka-starter-sent";
+
+    /**
+     * Размер времени отправки в значении заголовка.
+     */
+    private static final int TIMESTAMP_SIZE = Long.BYTES;
+
+    private LatencyHeader() {
+    }
+
+    /**
+     * Возвращает текущее время в микросекундах от эпохи.
+     *
+     * @return текущее время
+     */
+    public static long currentTimeMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+    }
+
+    /**
+     * Создает значение заголовка.
+     *
+     * @param sentMicros время отправки в микросекундах от эпохи
+     * @param source название конфигурации продюсера в UTF-8
+     * @return значение заголовка
+     */
+    public static byte[] encode(long sentMicros, byte[] source) {
+        byte[] value = new byte[TIMESTAMP_SIZE + source.length];
+        for (int i = TIMESTAMP_SIZE - 1; i >= 0; i--) {
+            value[i] = (byte) sentMicros;
+            sentMicros >>>= 8;
+        }
+        System.arraycopy(source, 0, value, TIMESTAMP_SIZE, source.length);
+        return value;
+    }
+
+    /**
+     * Проверяет, что значение имеет формат заголовка.
+     *
+     * @param value значение заголовка
+     * @return true, если значение содержит время отправки
+     */
+    public static boolean isValid(byte[] value) {
+        return value != null && value.length >= TIMESTAMP_SIZE;
+    }
+
+    /**
+     * Возвращает время отправки из значения заголовка.
+     *
+     * @param value значение заголовка
+     * @return время отправки в микросекундах от эпохи
+     */
+    public static long sentMicros(byte[] value) {
+        long sentMicros = 0;
+        for (int i = 0; i < TIMESTAMP_SIZE; i++) {
+            sentMicros = (sentMicros << 8) | (value[i] & 0xff);
+        }
+        return sentMicros;
+    }
+
+    /**
+     * Возвращает название конфигурации продюсера из значения заголовка.
+     *
+     * @param value значение заголовка
+     * @return название конфигурации продюсера
+     */
+    public static String source(byte[] value) {
+        return new String(value, TIMESTAMP_SIZE, value.length - TIMESTAMP_SIZE, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package ru.astondevs.kafka.autoconfigure.aot;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.lang.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Индекс компонентов {@code @KafkaProducer} и {@code @KafkaConsumer}, найденных при AOT обработке приложения.
+ * Регистрируется сгенерированным кодом инициализации и позволяет пост процессорам определять конфигурацию компонента
+ * без поиска аннотаций через reflection. Компоненты, определения которых добавлены после AOT обработки,
+ * проверяются по аннотациям.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see KafkaBeansAotProcessor
+ */
+public final class KafkaAnnotatedBeans {
+
+    /**
+     * Название компонента индекса.
+     */
+    public static final String BEAN_NAME = "ru.astondevs.kafka.autoconfigure.aot.kafkaAnnotatedBeans";
+
+    /**
+     * Карта названия компонента продюсера и названия его конфигурации.
+     */
+    private final Map<String, String> producerConfigMap = new HashMap<>();
+
+    /**
+     * Карта названия компонента потребителя и названия его конфигурации.
+     */
+    private final Map<String, String> consumerConfigMap = new HashMap<>();
+
+    /**
+     * Возвращает индекс, зарегистрированный в фабрике компонентов.
+     *
+     * @param beanFactory фабрика компонентов
+     * @return индекс или null, если приложение запущено без AOT обработки
+     */
+    @Nullable
+    public static KafkaAnnotatedBeans of(ConfigurableListableBeanFactory beanFactory) {
+        return beanFactory.getSingleton(BEAN_NAME) instanceof KafkaAnnotatedBeans annotatedBeans ? annotatedBeans : null;
+    }
+
+    /**
+     * Добавляет компонент продюсера.
+     *
+     * @param beanName название компонента
+     * @param configName название конфигурации продюсера
+     * @return этот индекс
+     */
+    public KafkaAnnotatedBeans producer(String beanName, String configName) {
+        producerConfigMap.put(beanName, configName);
+        return this;
+    }
+
+    /**
+     * Добавляет компонент потребителя.
+     *
+     * @param beanName название компонента
+     * @param configName название конфигурации потребителя
+     * @return этот индекс
+     */
+    public KafkaAnnotatedBeans consumer(String beanName, String configName) {
+        consumerConfigMap.put(beanName, configName);
+        return this;
+    }
+
+    /**
+     * Возвращает компоненты продюсеров.
+     *
+     * @return карта названия компонента и названия конфигурации
+     */
+    public Map<String, String> getProducers() {
+        return Collections.unmodifiableMap(producerConfigMap);
+    }
+
+    /**
+     * Возвращает компоненты потребителей.
+     *
+     * @return карта названия компонента и названия конфигурации
+     */
+    public Map<String, String> getConsumers() {
+        return Collections.unmodifiableMap(consumerConfigMap);
+    }
+}
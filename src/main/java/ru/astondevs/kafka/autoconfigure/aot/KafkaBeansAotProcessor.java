@@ -0,0 +1,202 @@
+package ru.astondevs.kafka.autoconfigure.aot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aot.generate.GeneratedMethod;
+import org.springframework.aot.generate.GenerationContext;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationCode;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.javapoet.CodeBlock;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
+import ru.astondevs.kafka.autoconfigure.consumer.KafkaConsumer;
+import ru.astondevs.kafka.autoconfigure.producer.KafkaProducer;
+import ru.astondevs.kafka.autoconfigure.serialization.JacksonSerialization;
+import ru.astondevs.kafka.autoconfigure.serialization.SchemaSerialization;
+
+import javax.lang.model.element.Modifier;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * AOT обработчик фабрики компонентов. Во время сборки находит компоненты {@link KafkaProducer} и {@link KafkaConsumer}
+ * и генерирует регистрацию {@link KafkaAnnotatedBeans}, с которым пост процессоры не ищут аннотации при запуске.
+ * <p>
+ * По свойствам {@link KafkaConfigurationProperties} окружения сборки регистрирует подсказки native образа
+ * для классов, которые kafka клиенты создают через reflection: серелизаторов, десерелизаторов, назначителей партиций,
+ * классов из {@code properties} и классов значений Jackson, Avro и Protobuf, а также ресурсы схем Avro.
+ * Конфигурации, заданные только при запуске приложения, подсказок не получают.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+@Slf4j
+public class KafkaBeansAotProcessor implements BeanFactoryInitializationAotProcessor {
+
+    /**
+     * Префикс свойств стартера.
+     */
+    private static final String PROPERTIES_PREFIX = "ru.astondevs.kafka";
+
+    @Override
+    public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+        Map<String, String> producers = new LinkedHashMap<>();
+        Map<String, String> consumers = new LinkedHashMap<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            if (beanFactory.getBeanDefinition(beanName).isAbstract()) {
+                continue;
+            }
+
+            KafkaProducer kafkaProducer = beanFactory.findAnnotationOnBean(beanName, KafkaProducer.class, false);
+            if (kafkaProducer != null) {
+                producers.put(beanName, kafkaProducer.config());
+            }
+
+            KafkaConsumer kafkaConsumer = beanFactory.findAnnotationOnBean(beanName, KafkaConsumer.class, false);
+            if (kafkaConsumer != null) {
+                consumers.put(beanName, kafkaConsumer.config());
+            }
+        }
+
+        KafkaConfigurationProperties properties = bindProperties(beanFactory);
+        return (generationContext, code) -> {
+            registerAnnotatedBeans(code, producers, consumers);
+            if (properties != null) {
+                registerHints(generationContext, properties, beanFactory.getBeanClassLoader());
+            }
+        };
+    }
+
+    /**
+     * Добавляет в код инициализации фабрики компонентов регистрацию {@link KafkaAnnotatedBeans}.
+     *
+     * @param code код инициализации фабрики компонентов
+     * @param producers карта названия компонента продюсера и названия конфигурации
+     * @param consumers карта названия компонента потребителя и названия конфигурации
+     */
+    private void registerAnnotatedBeans(BeanFactoryInitializationCode code, Map<String, String> producers, Map<String, String> consumers) {
+        GeneratedMethod method = code.getMethods().add("registerKafkaAnnotatedBeans", builder -> {
+            builder.addJavadoc("Register the index of {@code @KafkaProducer} and {@code @KafkaConsumer} beans.");
+            builder.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+            builder.addParameter(DefaultListableBeanFactory.class, "beanFactory");
+
+            CodeBlock.Builder annotatedBeans = CodeBlock.builder().add("new $T()", KafkaAnnotatedBeans.class);
+            producers.forEach((beanName, configName) -> annotatedBeans.add("\n.producer($S, $S)", beanName, configName));
+            consumers.forEach((beanName, configName) -> annotatedBeans.add("\n.consumer($S, $S)", beanName, configName));
+            builder.addStatement("beanFactory.registerSingleton($T.BEAN_NAME, $L)", KafkaAnnotatedBeans.class, annotatedBeans.build());
+        });
+        code.addInitializer(method.toMethodReference());
+    }
+
+    /**
+     * Привязывает свойства стартера из окружения сборки.
+     *
+     * @param beanFactory фабрика компонентов
+     * @return свойства или null, если окружение недоступно или свойства не привязываются
+     */
+    private KafkaConfigurationProperties bindProperties(ConfigurableListableBeanFactory beanFactory) {
+        if (!beanFactory.containsBean(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME)) {
+            return null;
+        }
+
+        try {
+            Environment environment = beanFactory.getBean(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME, Environment.class);
+            return Binder.get(environment).bind(PROPERTIES_PREFIX, KafkaConfigurationProperties.class).orElse(null);
+        } catch (RuntimeException e) {
+            log.warn("Can't bind kafka properties at build time, runtime hints of configured classes are skipped", e);
+            return null;
+        }
+    }
+
+    /**
+     * Регистрирует подсказки native образа для классов и ресурсов конфигураций.
+     *
+     * @param generationContext контекст генерации
+     * @param properties свойства стартера
+     * @param classLoader загрузчик классов приложения
+     */
+    private void registerHints(GenerationContext generationContext, KafkaConfigurationProperties properties, ClassLoader classLoader) {
+        RuntimeHints hints = generationContext.getRuntimeHints();
+        if (properties.getProducers() != null) {
+            properties.getProducers().values().forEach(producer -> {
+                registerConstructors(hints, producer.getKeySerializer());
+                registerConstructors(hints, producer.getValueSerializer());
+                registerProperties(hints, producer.getProperties(), classLoader);
+            });
+        }
+
+        if (properties.getConsumers() != null) {
+            properties.getConsumers().values().forEach(consumer -> {
+                registerConstructors(hints, consumer.getKeyDeserializer());
+                registerConstructors(hints, consumer.getValueDeserializer());
+                if (consumer.getPartitionAssignmentStrategy() != null) {
+                    registerConstructors(hints, consumer.getPartitionAssignmentStrategy().getAssignorClass());
+                }
+                registerProperties(hints, consumer.getProperties(), classLoader);
+            });
+        }
+    }
+
+    /**
+     * Регистрирует подсказки для свойств kafka клиента: классов kafka ({@code *.class}, {@code *.classes}),
+     * классов и схем серелизаторов стартера.
+     *
+     * @param hints подсказки
+     * @param clientProperties свойства kafka клиента
+     * @param classLoader загрузчик классов приложения
+     */
+    private void registerProperties(RuntimeHints hints, Map<String, String> clientProperties, ClassLoader classLoader) {
+        if (clientProperties == null) {
+            return;
+        }
+
+        clientProperties.forEach((name, value) -> {
+            if (!StringUtils.hasText(value)) {
+                return;
+            }
+
+            switch (name) {
+                case JacksonSerialization.KEY_TYPE_CONFIG, JacksonSerialization.VALUE_TYPE_CONFIG -> {
+                    if (ClassUtils.isPresent(value.trim(), classLoader)) {
+                        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                                ClassUtils.resolveClassName(value.trim(), classLoader));
+                    }
+                }
+                case SchemaSerialization.KEY_TYPE_CONFIG, SchemaSerialization.VALUE_TYPE_CONFIG ->
+                        hints.reflection().registerType(TypeReference.of(value.trim()), MemberCategory.values());
+                case SchemaSerialization.KEY_SCHEMA_CONFIG, SchemaSerialization.VALUE_SCHEMA_CONFIG ->
+                        hints.resources().registerPattern(value.trim());
+                case SchemaSerialization.SCHEMA_SOURCE_CONFIG -> registerConstructors(hints, value);
+                default -> {
+                    if (name.endsWith(".class") || name.endsWith(".classes")) {
+                        registerConstructors(hints, value);
+                    }
+                }
+            }
+        });
+    }
+
+    private static void registerConstructors(RuntimeHints hints, Class<?> type) {
+        if (type != null) {
+            hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+    }
+
+    private static void registerConstructors(RuntimeHints hints, String classNames) {
+        for (String className : StringUtils.commaDelimitedListToStringArray(classNames)) {
+            if (StringUtils.hasText(className)) {
+                hints.reflection().registerType(TypeReference.of(className.trim()), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            }
+        }
+    }
+}
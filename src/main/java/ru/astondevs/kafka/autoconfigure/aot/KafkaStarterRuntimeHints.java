@@ -0,0 +1,35 @@
+package ru.astondevs.kafka.autoconfigure.aot;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.stream.Stream;
+
+/**
+ * Подсказки native образа для классов стартера, которые kafka клиенты создают по имени класса:
+ * серелизаторов, десерелизаторов и перехватчиков. Классы Avro и Protobuf регистрируются по имени,
+ * поэтому подсказки не требуют наличия необязательных зависимостей.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see KafkaBeansAotProcessor
+ */
+public class KafkaStarterRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        Stream.of(
+                "ru.astondevs.kafka.autoconfigure.serialization.JacksonSerializer",
+                "ru.astondevs.kafka.autoconfigure.serialization.JacksonDeserializer",
+                "ru.astondevs.kafka.autoconfigure.serialization.AvroSerializer",
+                "ru.astondevs.kafka.autoconfigure.serialization.AvroDeserializer",
+                "ru.astondevs.kafka.autoconfigure.serialization.ProtobufSerializer",
+                "ru.astondevs.kafka.autoconfigure.serialization.ProtobufDeserializer",
+                "ru.astondevs.kafka.autoconfigure.producer.LatencyHeaderInterceptor",
+                "ru.astondevs.kafka.autoconfigure.consumer.LatencyPollInterceptor"
+        ).forEach(className -> hints.reflection().registerType(TypeReference.of(className), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+    }
+}
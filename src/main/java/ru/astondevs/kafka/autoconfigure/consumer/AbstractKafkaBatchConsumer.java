@@ -0,0 +1,41 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * Базовый тип для потребителей из kafka, получающих все сообщения одного poll за один вызов.
+ * Смещения пакета фиксируются после успешной обработки всего пакета.
+ * Конфигурация такого потребителя должна включать свойство {@code batch-listener}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ *
+ * @see KafkaConsumer
+ */
+public abstract class AbstractKafkaBatchConsumer<K,V> implements BatchMessageListener<K,V> {
+
+    @Override
+    public void onMessage(@NonNull List<ConsumerRecord<K,V>> data, @Nullable Acknowledgment acknowledgment) {
+        BatchMessageListener.super.onMessage(data, acknowledgment);
+    }
+
+    @Override
+    public void onMessage(@NonNull List<ConsumerRecord<K,V>> data, @NonNull Consumer<?,?> consumer) {
+        BatchMessageListener.super.onMessage(data, consumer);
+    }
+
+    @Override
+    public void onMessage(@NonNull List<ConsumerRecord<K,V>> data, @Nullable Acknowledgment acknowledgment, @NonNull Consumer<?,?> consumer) {
+        BatchMessageListener.super.onMessage(data, acknowledgment, consumer);
+    }
+}
@@ -0,0 +1,35 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import reactor.core.publisher.Flux;
+
+/**
+ * Базовый тип для реактивных потребителей в kafka.
+ * <p>
+ * Сообщения запрашиваются у брокера по мере спроса возвращенного потока: если обработка не успевает,
+ * потребитель приостанавливает получение сообщений, продолжая участвовать в группе.
+ * Смещения сообщений, испущенных возвращенным потоком, фиксируются пакетами по {@code commit-batch-size}
+ * и {@code commit-interval}. При ошибке потока подписка повторяется с экспоненциальной задержкой.
+ * Для использования необходима зависимость {@code io.projectreactor.kafka:reactor-kafka}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ *
+ * @see KafkaConsumer
+ * @see KafkaReceiverRegistry
+ */
+public abstract class AbstractReactiveKafkaConsumer<K,V> {
+
+    /**
+     * Строит конвейер обработки сообщений.
+     * Возвращенный поток должен испускать обработанные сообщения в порядке получения внутри партиции,
+     * например с помощью {@code concatMap}: смещение испущенного сообщения подтверждает и все предшествующие.
+     *
+     * @param records поток сообщений топика конфигурации
+     * @return поток обработанных сообщений, смещения которых фиксируются
+     */
+    public abstract Flux<? extends ConsumerRecord<K,V>> consume(Flux<ConsumerRecord<K,V>> records);
+}
@@ -0,0 +1,170 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Периодическая проверка {@link BackpressureSignal}, приостанавливающая и возобновляющая контейнеры конфигурации потребителя.
+ * Приостановленный контейнер продолжает вызывать poll без получения сообщений, поэтому потребитель
+ * не исключается из группы по {@code max.poll.interval.ms}.
+ * <p>
+ * Возобновляются только контейнеры, приостановленные контроллером: приостановка через endpoint или
+ * при остановке контейнера сохраняется. Останавливаемый контейнер не возобновляется до его перезапуска.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see BackpressureSignal
+ */
+@Slf4j
+final class BackpressureController implements Runnable {
+
+    /**
+     * Название конфигурации потребителя.
+     */
+    private final String configName;
+
+    /**
+     * Сигнал загруженности.
+     */
+    private final BackpressureSignal signal;
+
+    /**
+     * Уровень сигнала, при котором контейнеры приостанавливаются.
+     */
+    private final double pauseThreshold;
+
+    /**
+     * Уровень сигнала, при котором контейнеры возобновляются.
+     */
+    private final double resumeThreshold;
+
+    /**
+     * Контейнеры конфигурации.
+     */
+    private final List<MessageListenerContainer> containers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Контейнеры, приостановленные контроллером.
+     */
+    private final Set<MessageListenerContainer> pausedContainers = new HashSet<>();
+
+    /**
+     * Останавливаемые контейнеры, которые не возобновляются до перезапуска.
+     */
+    private final Set<MessageListenerContainer> stoppingContainers = new HashSet<>();
+
+    /**
+     * Признак приостановки контейнеров.
+     */
+    private volatile boolean paused;
+
+    BackpressureController(String configName, BackpressureSignal signal, Double pauseThreshold, Double resumeThreshold) {
+        if (pauseThreshold == null || resumeThreshold == null) {
+            throw new IllegalArgumentException("Consumer's backpressure pause and resume thresholds are required with a signal");
+        }
+
+        if (!(pauseThreshold > 0)) {
+            throw new IllegalArgumentException("Consumer's backpressure pause threshold must be positive");
+        }
+
+        if (!(resumeThreshold > 0 && resumeThreshold < pauseThreshold)) {
+            throw new IllegalArgumentException("Consumer's backpressure resume threshold must be positive and less than pause threshold");
+        }
+
+        this.configName = configName;
+        this.signal = signal;
+        this.pauseThreshold = pauseThreshold;
+        this.resumeThreshold = resumeThreshold;
+    }
+
+    /**
+     * Добавляет контейнер конфигурации. Если контейнеры приостановлены, контейнер приостанавливается сразу.
+     *
+     * @param container контейнер потребителя
+     */
+    synchronized void register(MessageListenerContainer container) {
+        containers.add(container);
+        if (paused) {
+            pause(container);
+        }
+    }
+
+    /**
+     * Отмечает начало остановки контейнера: до вызова {@link #restarted} контроллер его не возобновляет.
+     *
+     * @param container контейнер потребителя
+     */
+    synchronized void stopping(MessageListenerContainer container) {
+        stoppingContainers.add(container);
+    }
+
+    /**
+     * Отмечает перезапуск контейнера. Если контейнер был приостановлен контроллером, а сигнал
+     * за время остановки опустился, контейнер возобновляется.
+     *
+     * @param container контейнер потребителя
+     */
+    synchronized void restarted(MessageListenerContainer container) {
+        stoppingContainers.remove(container);
+        if (!paused && pausedContainers.remove(container)) {
+            container.resume();
+        }
+    }
+
+    /**
+     * Возвращает true, если контейнеры конфигурации приостановлены.
+     *
+     * @return признак приостановки
+     */
+    boolean isPaused() {
+        return paused;
+    }
+
+    @Override
+    public void run() {
+        double level;
+        try {
+            level = signal.level();
+        } catch (RuntimeException e) {
+            log.warn("Failed to read backpressure signal of consumer config {}", configName, e);
+            return;
+        }
+
+        synchronized (this) {
+            if (!paused && level >= pauseThreshold) {
+                paused = true;
+                containers.forEach(this::pause);
+                log.info("Pausing consumers of config {}, backpressure level {} reached {}", configName, level, pauseThreshold);
+            } else if (paused && level <= resumeThreshold) {
+                paused = false;
+                pausedContainers.removeIf(container -> {
+                    if (stoppingContainers.contains(container)) {
+                        return false;
+                    }
+
+                    container.resume();
+                    return true;
+                });
+                log.info("Resuming consumers of config {}, backpressure level {} dropped to {}", configName, level, resumeThreshold);
+            }
+        }
+    }
+
+    /**
+     * Приостанавливает контейнер, если он не приостановлен ранее другим способом.
+     *
+     * @param container контейнер потребителя
+     */
+    private void pause(MessageListenerContainer container) {
+        if (!container.isPauseRequested() && !stoppingContainers.contains(container)) {
+            container.pause();
+            pausedContainers.add(container);
+        }
+    }
+}
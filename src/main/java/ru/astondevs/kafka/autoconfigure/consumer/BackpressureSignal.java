@@ -0,0 +1,61 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import io.micrometer.core.instrument.Gauge;
+
+import java.util.Collection;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Сигнал загруженности ресурсов, которым потребители передают сообщения.
+ * Контейнеры конфигурации приостанавливаются, когда уровень сигнала достигает {@code pause-threshold},
+ * и возобновляются, когда он опускается до {@code resume-threshold}.
+ * <p>
+ * Компонент этого типа указывается в свойстве {@code backpressure.signal} конфигурации потребителя.
+ * Метод {@link #level()} вызывается периодически из отдельного потока и не должен блокироваться.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties.ConsumerProperties.Backpressure
+ */
+@FunctionalInterface
+public interface BackpressureSignal {
+
+    /**
+     * Возвращает текущий уровень загруженности в единицах, в которых заданы пороги конфигурации.
+     *
+     * @return уровень загруженности
+     */
+    double level();
+
+    /**
+     * Возвращает сигнал, уровень которого равен размеру очереди или другой коллекции.
+     *
+     * @param queue очередь задач
+     * @return сигнал размера очереди
+     */
+    static BackpressureSignal queueSize(Collection<?> queue) {
+        return queue::size;
+    }
+
+    /**
+     * Возвращает сигнал, уровень которого равен количеству занятых разрешений семафора.
+     *
+     * @param semaphore семафор
+     * @param permits общее количество разрешений семафора
+     * @return сигнал занятых разрешений
+     */
+    static BackpressureSignal usedPermits(Semaphore semaphore, int permits) {
+        return () -> permits - semaphore.availablePermits();
+    }
+
+    /**
+     * Возвращает сигнал, уровень которого равен значению метрики.
+     *
+     * @param gauge метрика, например количество активных соединений пула
+     * @return сигнал значения метрики
+     */
+    static BackpressureSignal gauge(Gauge gauge) {
+        return gauge::value;
+    }
+}
@@ -0,0 +1,196 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
+import ru.astondevs.kafka.autoconfigure.KafkaMetrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Периодическая проверка отставания группы потребителя, изменяющая количество потоков контейнеров конфигурации.
+ * Отставание вычисляется по зафиксированным и последним смещениям всех партиций топика через {@link Admin},
+ * построенный по конфигурации потребителя. Решения публикуются событием {@link ConsumerConcurrencyChangedEvent}
+ * и метрикой {@link KafkaMetrics#CONSUMER_SCALING}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see KafkaConfigurationProperties.ConsumerProperties.Autoscaling
+ */
+@Slf4j
+final class ConcurrencyAutoscaler implements Runnable, AutoCloseable {
+
+    /**
+     * Название конфигурации потребителя.
+     */
+    private final String configName;
+
+    /**
+     * Свойства конфигурации потребителя.
+     */
+    private final KafkaConfigurationProperties.ConsumerProperties properties;
+
+    /**
+     * Карта идентификатора и контейнера конфигурации.
+     */
+    private final Map<String, ConcurrentMessageListenerContainer<?,?>> containers;
+
+    /**
+     * Жизненный цикл контейнеров, выполняющий перезапуск с новым количеством потоков.
+     */
+    private final KafkaConsumerLifecycle consumerLifecycle;
+
+    /**
+     * Публикатор событий. Может быть null.
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Реестр метрик. Может быть null.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Клиент администрирования кластера.
+     */
+    private final Admin admin;
+
+    /**
+     * Последнее полученное отставание группы или NaN, если оно еще не получено.
+     */
+    private volatile double lag = Double.NaN;
+
+    /**
+     * Время последнего изменения количества потоков в единицах {@link System#nanoTime()}.
+     */
+    private long lastScaleTime;
+
+    /**
+     * Признак выполненного изменения количества потоков.
+     */
+    private boolean scaled;
+
+    ConcurrencyAutoscaler(String configName, KafkaConfigurationProperties.ConsumerProperties properties,
+                          Map<String, ConcurrentMessageListenerContainer<?,?>> containers, KafkaConsumerLifecycle consumerLifecycle,
+                          ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        KafkaConfigurationProperties.ConsumerProperties.Autoscaling autoscaling = properties.getAutoscaling();
+        if (autoscaling.getMinConcurrency() < 1) {
+            throw new IllegalArgumentException("Consumer's autoscaling min concurrency must be positive");
+        }
+
+        if (autoscaling.getMaxConcurrency() != null && autoscaling.getMaxConcurrency() < autoscaling.getMinConcurrency()) {
+            throw new IllegalArgumentException("Consumer's autoscaling max concurrency must not be less than min concurrency");
+        }
+
+        if (autoscaling.getLagPerThread() < 1) {
+            throw new IllegalArgumentException("Consumer's autoscaling lag per thread must be positive");
+        }
+
+        this.configName = configName;
+        this.properties = properties;
+        this.containers = Map.copyOf(containers);
+        this.consumerLifecycle = consumerLifecycle;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.admin = ConsumerAdminSupport.createAdmin(properties);
+    }
+
+    /**
+     * Возвращает последнее полученное отставание группы.
+     *
+     * @return отставание группы или NaN, если оно еще не получено
+     */
+    double getLag() {
+        return lag;
+    }
+
+    @Override
+    public void run() {
+        try {
+            List<TopicPartition> partitions = ConsumerAdminSupport.partitions(admin, properties.getTopic());
+            long groupLag = ConsumerAdminSupport.lag(admin, properties.getGroupId(), partitions).values().stream()
+                    .mapToLong(Long::longValue)
+                    .sum();
+            lag = groupLag;
+
+            KafkaConfigurationProperties.ConsumerProperties.Autoscaling autoscaling = properties.getAutoscaling();
+            if (scaled && System.nanoTime() - lastScaleTime < autoscaling.getCooldown().toNanos()) {
+                return;
+            }
+
+            int maxConcurrency = autoscaling.getMaxConcurrency() != null
+                    ? autoscaling.getMaxConcurrency()
+                    : Math.max(partitions.size(), autoscaling.getMinConcurrency());
+            long requiredConcurrency = (groupLag + autoscaling.getLagPerThread() - 1) / autoscaling.getLagPerThread();
+            int targetConcurrency = (int) Math.max(autoscaling.getMinConcurrency(), Math.min(maxConcurrency, requiredConcurrency));
+
+            boolean changed = false;
+            for (Map.Entry<String, ConcurrentMessageListenerContainer<?,?>> entry : containers.entrySet()) {
+                changed |= scale(entry.getKey(), entry.getValue().getConcurrency(), targetConcurrency, groupLag);
+            }
+
+            if (changed) {
+                lastScaleTime = System.nanoTime();
+                scaled = true;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to autoscale consumer config {}", configName, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        admin.close();
+    }
+
+    /**
+     * Изменяет количество потоков контейнера: увеличивает сразу до целевого, уменьшает на один поток.
+     * Ошибка изменения не прерывает проверку остальных контейнеров: контейнер, не остановившийся вовремя,
+     * перезапускается {@link KafkaConsumerLifecycle} с прежним количеством потоков, а повторная попытка
+     * выполняется после {@code cooldown}.
+     *
+     * @param containerId идентификатор контейнера
+     * @param concurrency текущее количество потоков
+     * @param targetConcurrency целевое количество потоков
+     * @param groupLag отставание группы
+     * @return true, если выполнена попытка изменить количество потоков
+     */
+    private boolean scale(String containerId, int concurrency, int targetConcurrency, long groupLag) {
+        if (targetConcurrency == concurrency) {
+            return false;
+        }
+
+        int newConcurrency = targetConcurrency > concurrency ? targetConcurrency : concurrency - 1;
+        try {
+            consumerLifecycle.setConcurrency(containerId, newConcurrency);
+        } catch (RuntimeException e) {
+            log.warn("Failed to autoscale consumer container {} from {} to {} threads, retrying after cooldown",
+                    containerId, concurrency, newConcurrency, e);
+            return true;
+        }
+        log.info("Autoscaled consumer container {} from {} to {} threads, group lag {}", containerId, concurrency, newConcurrency, groupLag);
+
+        if (meterRegistry != null) {
+            Counter.builder(KafkaMetrics.CONSUMER_SCALING)
+                    .description("Concurrency changes made by the consumer autoscaler")
+                    .tag(KafkaMetrics.TAG_CONFIG, configName)
+                    .tag(KafkaMetrics.TAG_BEAN, containerId)
+                    .tag(KafkaMetrics.TAG_DIRECTION, newConcurrency > concurrency ? "up" : "down")
+                    .register(meterRegistry)
+                    .increment();
+        }
+
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new ConsumerConcurrencyChangedEvent(consumerLifecycle, containerId, configName, concurrency, newConcurrency, groupLag));
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,145 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsSpec;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.util.StringUtils;
+import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Вспомогательные операции с {@link Admin}, построенным по конфигурации потребителя.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see KafkaConfigurationProperties.ConsumerProperties
+ */
+final class ConsumerAdminSupport {
+
+    /**
+     * Время ожидания ответа кластера на административные запросы.
+     */
+    static final Duration ADMIN_TIMEOUT = Duration.ofSeconds(10);
+
+    private ConsumerAdminSupport() {
+    }
+
+    /**
+     * Создает новый {@link Admin} для кластера указанной конфигурации потребителя.
+     * Из дополнительных свойств потребителя применяются только известные {@link AdminClientConfig} свойства,
+     * например настройки безопасности соединения.
+     *
+     * @param properties свойства конфигурации потребителя
+     * @return новый {@link Admin}, который должен быть закрыт вызывающей стороной
+     */
+    static Admin createAdmin(KafkaConfigurationProperties.ConsumerProperties properties) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, StringUtils.collectionToCommaDelimitedString(properties.getBootstrapServers()));
+        config.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, (int) ADMIN_TIMEOUT.toMillis());
+        config.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, (int) ADMIN_TIMEOUT.toMillis());
+        if (properties.getProperties() != null) {
+            properties.getProperties().forEach((name, value) -> {
+                if (AdminClientConfig.configNames().contains(name)) {
+                    config.put(name, value);
+                }
+            });
+        }
+
+        return Admin.create(config);
+    }
+
+    /**
+     * Возвращает количество партиций топика указанной конфигурации потребителя.
+     *
+     * @param properties свойства конфигурации потребителя
+     * @return количество партиций топика
+     * @throws IllegalStateException если описание топика не удалось получить
+     */
+    static int partitionCount(KafkaConfigurationProperties.ConsumerProperties properties) {
+        try (Admin admin = createAdmin(properties)) {
+            return partitions(admin, properties.getTopic()).size();
+        }
+    }
+
+    /**
+     * Возвращает партиции топика.
+     *
+     * @param admin клиент администрирования кластера
+     * @param topic топик
+     * @return партиции топика
+     * @throws IllegalStateException если описание топика не удалось получить
+     */
+    static List<TopicPartition> partitions(Admin admin, String topic) {
+        try {
+            TopicDescription description = admin.describeTopics(List.of(topic))
+                    .allTopicNames()
+                    .get(ADMIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                    .get(topic);
+            return description.partitions().stream()
+                    .map(partition -> new TopicPartition(topic, partition.partition()))
+                    .toList();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while describing topic " + topic, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to describe topic " + topic, e);
+        }
+    }
+
+    /**
+     * Возвращает отставание группы потребителя по указанным партициям: разницу между последним смещением партиции
+     * и зафиксированным смещением группы. Партиции без зафиксированного смещения не учитываются.
+     *
+     * @param admin клиент администрирования кластера
+     * @param groupId идентификатор группы потребителя
+     * @param partitions партиции
+     * @return карта партиции и отставания группы
+     * @throws IllegalStateException если смещения не удалось получить
+     */
+    static Map<TopicPartition, Long> lag(Admin admin, String groupId, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return Map.of();
+        }
+
+        try {
+            Map<TopicPartition, OffsetAndMetadata> committedOffsets = admin
+                    .listConsumerGroupOffsets(Map.of(groupId, new ListConsumerGroupOffsetsSpec().topicPartitions(partitions)))
+                    .partitionsToOffsetAndMetadata(groupId)
+                    .get(ADMIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+
+            Map<TopicPartition, OffsetSpec> offsetSpecs = new HashMap<>();
+            partitions.forEach(partition -> offsetSpecs.put(partition, OffsetSpec.latest()));
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets = admin.listOffsets(offsetSpecs)
+                    .all()
+                    .get(ADMIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+
+            Map<TopicPartition, Long> lag = new HashMap<>();
+            endOffsets.forEach((partition, endOffset) -> {
+                OffsetAndMetadata committedOffset = committedOffsets.get(partition);
+                if (committedOffset != null) {
+                    lag.put(partition, Math.max(endOffset.offset() - committedOffset.offset(), 0));
+                }
+            });
+            return lag;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching offsets of group " + groupId, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to fetch offsets of group " + groupId, e);
+        }
+    }
+}
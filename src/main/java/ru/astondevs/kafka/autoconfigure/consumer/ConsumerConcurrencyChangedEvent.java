@@ -0,0 +1,55 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.io.Serial;
+
+/**
+ * Событие изменения количества потоков контейнера потребителя автоматическим масштабированием.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties.ConsumerProperties.Autoscaling
+ */
+@Getter
+public class ConsumerConcurrencyChangedEvent extends ApplicationEvent {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Идентификатор контейнера.
+     */
+    private final String containerId;
+
+    /**
+     * Название конфигурации потребителя.
+     */
+    private final String configName;
+
+    /**
+     * Количество потоков до изменения.
+     */
+    private final int previousConcurrency;
+
+    /**
+     * Количество потоков после изменения.
+     */
+    private final int concurrency;
+
+    /**
+     * Отставание группы, по которому принято решение.
+     */
+    private final long lag;
+
+    public ConsumerConcurrencyChangedEvent(Object source, String containerId, String configName, int previousConcurrency, int concurrency, long lag) {
+        super(source);
+        this.containerId = containerId;
+        this.configName = configName;
+        this.previousConcurrency = previousConcurrency;
+        this.concurrency = concurrency;
+        this.lag = lag;
+    }
+}
@@ -7,7 +7,11 @@ import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.util.StringUtils;
 import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.function.Consumer;
 
@@ -44,6 +48,46 @@ final class ConsumerFactoryBuilder {
             builder.property(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, properties.getValueDeserializer());
         }
 
+        if (properties.getMaxPollRecords() != null) {
+            builder.property(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, properties.getMaxPollRecords());
+        }
+
+        if (properties.getFetchMinBytes() != null) {
+            builder.property(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, (int) properties.getFetchMinBytes().toBytes());
+        }
+
+        if (properties.getFetchMaxWait() != null) {
+            builder.property(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, (int) properties.getFetchMaxWait().toMillis());
+        }
+
+        if (properties.getFetchMaxBytes() != null) {
+            builder.property(ConsumerConfig.FETCH_MAX_BYTES_CONFIG, (int) properties.getFetchMaxBytes().toBytes());
+        }
+
+        if (properties.getMaxPartitionFetchBytes() != null) {
+            builder.property(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, (int) properties.getMaxPartitionFetchBytes().toBytes());
+        }
+
+        if (properties.getMaxPollInterval() != null) {
+            builder.property(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, (int) properties.getMaxPollInterval().toMillis());
+        }
+
+        if (properties.getAutoOffsetReset() != null) {
+            builder.property(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, properties.getAutoOffsetReset().name().toLowerCase(Locale.ROOT));
+        }
+
+        if (properties.getIsolationLevel() != null) {
+            builder.property(ConsumerConfig.ISOLATION_LEVEL_CONFIG, properties.getIsolationLevel().name().toLowerCase(Locale.ROOT));
+        }
+
+        if (properties.getPartitionAssignmentStrategy() != null) {
+            builder.property(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, List.of(properties.getPartitionAssignmentStrategy().getAssignorClass()));
+        }
+
+        if (properties.getProperties() != null) {
+            builder.config(config -> config.putAll(properties.getProperties()));
+        }
+
         return builder;
     }
 
@@ -104,6 +148,29 @@ final class ConsumerFactoryBuilder {
         return this;
     }
 
+    /**
+     * Добавляет перехватчик kafka потребителя к перехватчикам, уже указанным в конфигурации.
+     *
+     * @param interceptorClass класс перехватчика
+     * @return этот построитель
+     * @see ConsumerConfig#INTERCEPTOR_CLASSES_CONFIG
+     */
+    public ConsumerFactoryBuilder interceptor(Class<?> interceptorClass) {
+        Object current = config.get(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG);
+        List<Object> interceptors = new ArrayList<>();
+        if (current instanceof Collection<?> values) {
+            interceptors.addAll(values);
+        } else if (current instanceof String value) {
+            interceptors.addAll(StringUtils.commaDelimitedListToSet(StringUtils.trimAllWhitespace(value)));
+        } else if (current != null) {
+            interceptors.add(current);
+        }
+
+        interceptors.add(interceptorClass);
+        config.put(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG, interceptors);
+        return this;
+    }
+
     /**
      * Устанавливает десерелизатор ключа.
      *
@@ -0,0 +1,51 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+/**
+ * Функция извлечения ключа дедупликации из сообщения потребителя.
+ * <p>
+ * Компонент этого типа указывается в свойстве {@code dedup.extractor} конфигурации потребителя.
+ * Ключом может быть массив байт, строка, число, {@link java.util.UUID} или другой объект,
+ * строковое представление которого однозначно определяет сообщение.
+ * Метод вызывается в потоке обработки сообщения и не должен блокироваться.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties.ConsumerProperties.Dedup
+ */
+@FunctionalInterface
+public interface DedupKeyExtractor {
+
+    /**
+     * Возвращает ключ дедупликации сообщения.
+     *
+     * @param record сообщение
+     * @return ключ дедупликации или null, если сообщение не проверяется
+     */
+    Object extract(ConsumerRecord<?,?> record);
+
+    /**
+     * Возвращает функцию, ключом дедупликации которой является ключ сообщения.
+     *
+     * @return функция ключа сообщения
+     */
+    static DedupKeyExtractor recordKey() {
+        return ConsumerRecord::key;
+    }
+
+    /**
+     * Возвращает функцию, ключом дедупликации которой является значение последнего заголовка с указанным названием.
+     *
+     * @param name название заголовка
+     * @return функция значения заголовка
+     */
+    static DedupKeyExtractor header(String name) {
+        return record -> {
+            Header header = record.headers().lastHeader(name);
+            return header != null ? header.value() : null;
+        };
+    }
+}
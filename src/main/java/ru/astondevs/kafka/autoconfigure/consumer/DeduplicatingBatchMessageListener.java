@@ -0,0 +1,90 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.lang.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Слушатель контейнера, исключающий из пакета сообщения с уже обработанным ключом дедупликации
+ * и повторы ключа внутри пакета до вызова пакетного потребителя. Пакет, все сообщения которого отброшены,
+ * потребителю не передается. Ключи запоминаются только после успешной обработки пакета.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ *
+ * @see ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties.ConsumerProperties.Dedup
+ */
+@RequiredArgsConstructor
+class DeduplicatingBatchMessageListener<K,V> implements BatchMessageListener<K,V> {
+
+    /**
+     * Слушатель, которому передается обработка пакетов сообщений.
+     */
+    private final BatchMessageListener<K,V> delegate;
+
+    /**
+     * Ключи обработанных сообщений.
+     */
+    private final DeduplicationCache cache;
+
+    /**
+     * Счетчик отброшенных сообщений. Может быть null.
+     */
+    private final Counter hitCounter;
+
+    /**
+     * Счетчик сообщений, переданных потребителю. Может быть null.
+     */
+    private final Counter missCounter;
+
+    @Override
+    public void onMessage(@NonNull List<ConsumerRecord<K,V>> data) {
+        List<ConsumerRecord<K,V>> records = new ArrayList<>(data.size());
+        Map<TopicPartition, Set<Long>> partitionHashMap = new HashMap<>();
+        int hits = 0;
+        for (ConsumerRecord<K,V> record : data) {
+            long hash = cache.keyHash(record);
+            if (hash == 0) {
+                records.add(record);
+                continue;
+            }
+
+            TopicPartition topicPartition = new TopicPartition(record.topic(), record.partition());
+            if (cache.contains(topicPartition, hash)
+                    || !partitionHashMap.computeIfAbsent(topicPartition, tp -> new HashSet<>()).add(hash)) {
+                hits++;
+                continue;
+            }
+
+            records.add(record);
+        }
+
+        if (hitCounter != null && hits > 0) {
+            hitCounter.increment(hits);
+        }
+
+        if (records.isEmpty()) {
+            return;
+        }
+
+        if (missCounter != null) {
+            missCounter.increment(partitionHashMap.values().stream().mapToInt(Set::size).sum());
+        }
+
+        delegate.onMessage(records.size() == data.size() ? data : records);
+        partitionHashMap.forEach((topicPartition, hashes) -> hashes.forEach(hash -> cache.add(topicPartition, hash)));
+    }
+}
@@ -0,0 +1,69 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.lang.NonNull;
+
+/**
+ * Слушатель контейнера, отбрасывающий сообщения с уже обработанным ключом дедупликации до вызова потребителя.
+ * Ключ запоминается только после успешной обработки, поэтому сообщение, обработка которого завершилась
+ * исключением, обрабатывается повторно.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ *
+ * @see ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties.ConsumerProperties.Dedup
+ */
+@RequiredArgsConstructor
+class DeduplicatingMessageListener<K,V> implements MessageListener<K,V> {
+
+    /**
+     * Слушатель, которому передается обработка сообщений.
+     */
+    private final MessageListener<K,V> delegate;
+
+    /**
+     * Ключи обработанных сообщений.
+     */
+    private final DeduplicationCache cache;
+
+    /**
+     * Счетчик отброшенных сообщений. Может быть null.
+     */
+    private final Counter hitCounter;
+
+    /**
+     * Счетчик сообщений, переданных потребителю. Может быть null.
+     */
+    private final Counter missCounter;
+
+    @Override
+    public void onMessage(@NonNull ConsumerRecord<K,V> data) {
+        long hash = cache.keyHash(data);
+        if (hash == 0) {
+            delegate.onMessage(data);
+            return;
+        }
+
+        TopicPartition topicPartition = new TopicPartition(data.topic(), data.partition());
+        if (cache.contains(topicPartition, hash)) {
+            if (hitCounter != null) {
+                hitCounter.increment();
+            }
+            return;
+        }
+
+        if (missCounter != null) {
+            missCounter.increment();
+        }
+
+        delegate.onMessage(data);
+        cache.add(topicPartition, hash);
+    }
+}
@@ -0,0 +1,302 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ограниченное по размеру и времени хранения множество ключей дедупликации обработанных сообщений каждой партиции.
+ * <p>
+ * Вместо ключей хранятся их 64-битные хеши: кольцевой буфер хешей и времени запоминания в порядке добавления
+ * и таблица с открытой адресацией для проверки наличия хеша. Совпадение хешей разных ключей приводит
+ * к ошибочному отбрасыванию сообщения с вероятностью порядка {@code capacity² / 2⁶⁵}.
+ * Буферы партиции растут по мере добавления ключей до {@code capacity}. Ключи партиций удаляются
+ * при их отзыве или потере во время ребалансировки.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties.ConsumerProperties.Dedup
+ */
+final class DeduplicationCache implements ConsumerAwareRebalanceListener {
+
+    /**
+     * Начальный размер буферов партиции.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Функция извлечения ключа дедупликации.
+     */
+    private final DedupKeyExtractor extractor;
+
+    /**
+     * Максимальное количество ключей партиции.
+     */
+    private final int capacity;
+
+    /**
+     * Время хранения ключа в единицах {@link System#nanoTime()}.
+     */
+    private final long windowNanos;
+
+    /**
+     * Карта партиции и ее ключей.
+     */
+    private final Map<TopicPartition, PartitionWindow> partitionWindowMap = new ConcurrentHashMap<>();
+
+    DeduplicationCache(DedupKeyExtractor extractor, int capacity, Duration window) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Consumer's dedup capacity must be positive");
+        }
+
+        if (window == null || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Consumer's dedup window must be positive");
+        }
+
+        this.extractor = extractor;
+        this.capacity = capacity;
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Возвращает хеш ключа дедупликации сообщения.
+     *
+     * @param record сообщение
+     * @return ненулевой хеш ключа или 0, если у сообщения нет ключа дедупликации
+     */
+    long keyHash(ConsumerRecord<?,?> record) {
+        Object key = extractor.extract(record);
+        if (key == null) {
+            return 0;
+        }
+
+        long hash;
+        if (key instanceof byte[] bytes) {
+            hash = 0xcbf29ce484222325L;
+            for (byte b : bytes) {
+                hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+            }
+        } else if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            hash = ((Number) key).longValue();
+        } else if (key instanceof UUID uuid) {
+            hash = uuid.getMostSignificantBits() ^ mix(uuid.getLeastSignificantBits());
+        } else {
+            CharSequence chars = key instanceof CharSequence charSequence ? charSequence : key.toString();
+            hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < chars.length(); i++) {
+                hash = (hash ^ chars.charAt(i)) * 0x100000001b3L;
+            }
+        }
+
+        hash = mix(hash);
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * Проверяет, запомнен ли хеш ключа партиции в течение окна дедупликации.
+     *
+     * @param topicPartition партиция сообщения
+     * @param hash хеш ключа
+     * @return true, если сообщение с таким ключом уже обработано
+     */
+    boolean contains(TopicPartition topicPartition, long hash) {
+        PartitionWindow partitionWindow = partitionWindowMap.get(topicPartition);
+        return partitionWindow != null && partitionWindow.contains(hash, System.nanoTime());
+    }
+
+    /**
+     * Запоминает хеш ключа обработанного сообщения партиции.
+     *
+     * @param topicPartition партиция сообщения
+     * @param hash хеш ключа
+     */
+    void add(TopicPartition topicPartition, long hash) {
+        partitionWindowMap.computeIfAbsent(topicPartition, tp -> new PartitionWindow()).add(hash, System.nanoTime());
+    }
+
+    /**
+     * Удаляет ключи партиций.
+     *
+     * @param partitions партиции
+     */
+    void clear(Collection<TopicPartition> partitions) {
+        partitions.forEach(partitionWindowMap::remove);
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(@NonNull Consumer<?,?> consumer, @NonNull Collection<TopicPartition> partitions) {
+        clear(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(@NonNull Consumer<?,?> consumer, @NonNull Collection<TopicPartition> partitions) {
+        clear(partitions);
+    }
+
+    /**
+     * Перемешивает биты хеша (финализатор MurmurHash3).
+     *
+     * @param hash хеш
+     * @return перемешанный хеш
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Хеши ключей одной партиции.
+     */
+    final class PartitionWindow {
+
+        /**
+         * Хеши в порядке добавления.
+         */
+        private long[] ring = new long[INITIAL_CAPACITY];
+
+        /**
+         * Время добавления хешей кольцевого буфера.
+         */
+        private long[] times = new long[INITIAL_CAPACITY];
+
+        /**
+         * Индекс самого старого хеша кольцевого буфера.
+         */
+        private int head;
+
+        /**
+         * Количество хешей.
+         */
+        private int size;
+
+        /**
+         * Таблица хешей с открытой адресацией, 0 обозначает пустую ячейку.
+         */
+        private long[] table = new long[INITIAL_CAPACITY * 2];
+
+        synchronized boolean contains(long hash, long now) {
+            expire(now);
+            return table[indexOf(hash)] != 0;
+        }
+
+        synchronized void add(long hash, long now) {
+            expire(now);
+            int index = indexOf(hash);
+            if (table[index] != 0) {
+                return;
+            }
+
+            if (size == capacity) {
+                evictOldest();
+                index = indexOf(hash);
+            } else if (size == ring.length) {
+                grow();
+                index = indexOf(hash);
+            }
+
+            table[index] = hash;
+            int tail = (head + size) % ring.length;
+            ring[tail] = hash;
+            times[tail] = now;
+            size++;
+        }
+
+        /**
+         * Удаляет хеши, время хранения которых истекло.
+         *
+         * @param now текущее время
+         */
+        private void expire(long now) {
+            while (size > 0 && now - times[head] >= windowNanos) {
+                evictOldest();
+            }
+        }
+
+        /**
+         * Удаляет самый старый хеш.
+         */
+        private void evictOldest() {
+            remove(ring[head]);
+            head = (head + 1) % ring.length;
+            size--;
+        }
+
+        /**
+         * Увеличивает буферы в два раза, но не больше {@code capacity}.
+         */
+        private void grow() {
+            int newLength = (int) Math.min((long) ring.length * 2, capacity);
+            long[] newRing = new long[newLength];
+            long[] newTimes = new long[newLength];
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) % ring.length;
+                newRing[i] = ring[index];
+                newTimes[i] = times[index];
+            }
+            ring = newRing;
+            times = newTimes;
+            head = 0;
+
+            long[] oldTable = table;
+            table = new long[Integer.highestOneBit(newLength - 1) << 2];
+            for (long hash : oldTable) {
+                if (hash != 0) {
+                    table[indexOf(hash)] = hash;
+                }
+            }
+        }
+
+        /**
+         * Возвращает ячейку таблицы, содержащую хеш, или пустую ячейку, в которую он добавляется.
+         *
+         * @param hash хеш
+         * @return индекс ячейки
+         */
+        private int indexOf(long hash) {
+            int mask = table.length - 1;
+            int index = (int) hash & mask;
+            while (table[index] != 0 && table[index] != hash) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        /**
+         * Удаляет хеш из таблицы, сдвигая следующие за ним хеши той же цепочки.
+         *
+         * @param hash хеш
+         */
+        private void remove(long hash) {
+            int mask = table.length - 1;
+            int index = indexOf(hash);
+            if (table[index] == 0) {
+                return;
+            }
+
+            table[index] = 0;
+            int next = (index + 1) & mask;
+            while (table[next] != 0) {
+                int home = (int) table[next] & mask;
+                if (((next - home) & mask) >= ((next - index) & mask)) {
+                    table[index] = table[next];
+                    table[next] = 0;
+                    index = next;
+                }
+                next = (next + 1) & mask;
+            }
+        }
+    }
+}
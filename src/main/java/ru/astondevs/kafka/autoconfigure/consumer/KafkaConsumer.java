@@ -11,7 +11,9 @@ import java.lang.annotation.Target;
 
 /**
  * Аннотация, которая помечает bean, как потребителя сообщений из kafka.
- * Тип bean'а помеченного данной аннотацией должен расширять {@link AbstractKafkaConsumer}.
+ * Тип bean'а помеченного данной аннотацией должен расширять {@link AbstractKafkaConsumer}
+ * или {@link AbstractKafkaBatchConsumer}, если в конфигурации включена пакетная доставка.
+ * Если подключен reactor-kafka, тип может расширять {@link AbstractReactiveKafkaConsumer}.
  *
  * @author Ivan Andrianov
  * @author Maksim Yaskov
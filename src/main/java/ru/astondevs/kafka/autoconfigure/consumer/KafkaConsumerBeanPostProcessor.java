@@ -1,21 +1,51 @@
 package ru.astondevs.kafka.autoconfigure.consumer;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanNotOfRequiredTypeException;
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.kafka.config.AbstractKafkaListenerContainerFactory;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
 import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerPartitionPausingBackOffManager;
+import org.springframework.kafka.listener.ContainerPausingBackOffHandler;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaConsumerBackoffManager;
+import org.springframework.kafka.listener.ListenerContainerPauseService;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.listener.adapter.KafkaBackoffAwareMessageListenerAdapter;
 import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
+import ru.astondevs.kafka.autoconfigure.KafkaMetrics;
+import ru.astondevs.kafka.autoconfigure.aot.KafkaAnnotatedBeans;
+import ru.astondevs.kafka.autoconfigure.producer.ProducerFactoryRegistry;
 
+import java.time.Clock;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Пост процессор компонента, который регистрирует компонент для вызова контейнером потребителей сообщений kafka.
@@ -25,7 +55,9 @@ import java.util.Map;
  *
  * @see KafkaConsumer
  * @see AbstractKafkaConsumer
+ * @see AbstractKafkaBatchConsumer
  */
+@Slf4j
 @RequiredArgsConstructor
 public class KafkaConsumerBeanPostProcessor implements BeanPostProcessor, DisposableBean {
 
@@ -34,15 +66,62 @@ public class KafkaConsumerBeanPostProcessor implements BeanPostProcessor, Dispos
      */
     private final Map<String, AbstractKafkaListenerContainerFactory<?,?,?>> configContainerFactoryMap = new HashMap<>();
 
+    /**
+     * Карта названия конфигурации и фабрики потребителей.
+     */
+    private final Map<String, ConsumerFactory<Object, Object>> configConsumerFactoryMap = new HashMap<>();
+
     /**
      * Карта beanName и названия конфигурации.
      */
     private final Map<String, String> beanNameConfigMap = new HashMap<>();
 
     /**
-     * Карта beanName и AbstractMessageListenerContainer.
+     * Названия компонентов реактивных потребителей.
+     */
+    private final Set<String> reactiveBeanNames = new HashSet<>();
+
+    /**
+     * Карта идентификатора контейнера (beanName или идентификатора контейнера топика повторов) и AbstractMessageListenerContainer.
+     * Контейнеры запускаются {@link KafkaConsumerLifecycle}.
+     */
+    private final Map<String, AbstractMessageListenerContainer<?,?>> beanNameContainerMap = new LinkedHashMap<>();
+
+    /**
+     * Карта идентификатора контейнера и названия конфигурации.
+     */
+    private final Map<String, String> containerConfigMap = new HashMap<>();
+
+    /**
+     * Карта идентификатора контейнера и слушателя, обрабатывающего сообщения вне потоков контейнера.
+     */
+    private final Map<String, ParallelMessageListener<?,?>> containerIdParallelListenerMap = new HashMap<>();
+
+    /**
+     * Карта названия конфигурации и топиков повторной обработки.
+     */
+    private final Map<String, RetryTopicSupport> configRetryTopicSupportMap = new HashMap<>();
+
+    /**
+     * Реестр контейнеров топиков повторов.
+     */
+    private final SimpleListenerContainerRegistry retryContainerRegistry = new SimpleListenerContainerRegistry();
+
+    /**
+     * Карта названия конфигурации и контроллера приостановки по сигналу загруженности.
+     */
+    private final Map<String, BackpressureController> configBackpressureControllerMap = new HashMap<>();
+
+    /**
+     * Планировщик фоновых задач потребителей: возобновления партиций топиков повторов и проверки сигналов загруженности.
+     * Создается при первом обращении.
+     */
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    /**
+     * Менеджер задержки обработки сообщений топиков повторов.
      */
-    private final Map<String, AbstractMessageListenerContainer<?,?>> beanNameContainerMap = new HashMap<>();
+    private KafkaConsumerBackoffManager retryBackoffManager;
 
     /**
      * Фабрика компонентов.
@@ -54,35 +133,159 @@ public class KafkaConsumerBeanPostProcessor implements BeanPostProcessor, Dispos
      */
     private final KafkaConfigurationProperties properties;
 
+    /**
+     * Реестр фабрик продюсеров, предоставляющий менеджеры транзакций.
+     */
+    private final ProducerFactoryRegistry producerFactoryRegistry;
+
+    /**
+     * Поставщик реестра метрик.
+     */
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    /**
+     * Поставщик реестра реактивных потребителей. Пуст, если reactor-kafka отсутствует.
+     */
+    private final ObjectProvider<KafkaReceiverRegistry> kafkaReceiverRegistryProvider;
+
     @Override
     public void destroy() {
         beanNameContainerMap.forEach((beanName, container) -> container.stop());
         beanNameContainerMap.clear();
+        containerConfigMap.clear();
+        containerIdParallelListenerMap.values().forEach(ParallelMessageListener::close);
+        containerIdParallelListenerMap.clear();
+        retryContainerRegistry.clear();
+        configBackpressureControllerMap.clear();
+        if (taskScheduler != null) {
+            taskScheduler.shutdown();
+        }
+    }
+
+    /**
+     * Возвращает количество запущенных потоков потребителя для каждого компонента.
+     *
+     * @return карта beanName и количества запущенных потоков его контейнера
+     */
+    public Map<String, Integer> getRunningConsumerCounts() {
+        Map<String, Integer> runningConsumerCounts = new LinkedHashMap<>();
+        beanNameContainerMap.forEach((beanName, container) -> runningConsumerCounts.put(beanName, getRunningConsumerCount(container)));
+        return runningConsumerCounts;
+    }
+
+    /**
+     * Возвращает контейнеры потребителей, созданные пост процессором.
+     *
+     * @return карта идентификатора и контейнера
+     */
+    Map<String, AbstractMessageListenerContainer<?,?>> getContainers() {
+        return Collections.unmodifiableMap(beanNameContainerMap);
+    }
+
+    /**
+     * Возвращает название конфигурации контейнера.
+     *
+     * @param containerId идентификатор контейнера
+     * @return название конфигурации потребителя
+     */
+    String getConfigName(String containerId) {
+        return containerConfigMap.get(containerId);
+    }
+
+    /**
+     * Возвращает контроллер приостановки по сигналу загруженности конфигурации контейнера.
+     *
+     * @param containerId идентификатор контейнера
+     * @return контроллер или null, если сигнал загруженности в конфигурации не задан
+     */
+    BackpressureController getBackpressureController(String containerId) {
+        String configName = containerConfigMap.get(containerId);
+        return configName == null ? null : configBackpressureControllerMap.get(configName);
+    }
+
+    /**
+     * Подписывает реактивных потребителей на сообщения их топиков.
+     *
+     * @return количество созданных подписок
+     */
+    int subscribeReactiveConsumers() {
+        return reactiveBeanNames.isEmpty() ? 0 : kafkaReceiverRegistryProvider.getObject().subscribe();
+    }
+
+    /**
+     * Отменяет подписки реактивных потребителей с фиксацией смещений подтвержденных сообщений.
+     */
+    void disposeReactiveConsumers() {
+        if (!reactiveBeanNames.isEmpty()) {
+            kafkaReceiverRegistryProvider.getObject().dispose();
+        }
+    }
+
+    /**
+     * Возвращает слушателя контейнера, обрабатывающего сообщения вне потоков контейнера.
+     *
+     * @param containerId идентификатор контейнера
+     * @return слушатель или null, если контейнер обрабатывает сообщения в своих потоках
+     */
+    ParallelMessageListener<?,?> getParallelListener(String containerId) {
+        return containerIdParallelListenerMap.get(containerId);
     }
 
     @Override
     public Object postProcessBeforeInitialization(@NonNull Object bean, @NonNull String beanName) throws BeansException {
-        KafkaConsumer kafkaConsumer = beanFactory.findAnnotationOnBean(beanName, KafkaConsumer.class);
-        if (kafkaConsumer == null) {
+        String configName = findConfigName(beanName);
+        if (configName == null) {
             return bean;
         }
 
-        if (!(bean instanceof AbstractKafkaConsumer<?,?>)) {
-            throw new BeanNotOfRequiredTypeException(beanName, AbstractKafkaConsumer.class, bean.getClass());
-        }
-
-        String configName = kafkaConsumer.config();
         KafkaConfigurationProperties.ConsumerProperties properties = this.properties.getConsumers().get(configName);
         if (properties == null) {
             throw new IllegalStateException("Consumer's properties is null");
         }
 
+        if (properties.isBatchListener() && properties.getExecutionMode() != KafkaConfigurationProperties.ConsumerProperties.ExecutionMode.CONTAINER) {
+            throw new IllegalStateException("Batch listener supports only container execution mode");
+        }
+
+        if (properties.getTransactionalProducer() != null && properties.getExecutionMode() != KafkaConfigurationProperties.ConsumerProperties.ExecutionMode.CONTAINER) {
+            throw new IllegalStateException("Transactional consumer supports only container execution mode");
+        }
+
+        if (properties.getRetry().getProducer() != null && properties.isBatchListener()) {
+            throw new IllegalStateException("Retry topics support only record listeners");
+        }
+
+        KafkaConfigurationProperties.ConsumerProperties.Dedup dedup = properties.getDedup();
+        int dedupKeySources = (dedup.getHeader() != null ? 1 : 0) + (dedup.getExtractor() != null ? 1 : 0) + (dedup.isRecordKey() ? 1 : 0);
+        if (dedupKeySources > 1) {
+            throw new IllegalStateException("Consumer's dedup header, extractor and record key are mutually exclusive");
+        }
+
+        if (dedup.isEnabled() && dedupKeySources == 0) {
+            throw new IllegalStateException("Consumer's dedup requires a header, an extractor or record key mode");
+        }
+
+        Class<?> requiredType = properties.isBatchListener() ? AbstractKafkaBatchConsumer.class : AbstractKafkaConsumer.class;
+        if (!requiredType.isInstance(bean)) {
+            KafkaReceiverRegistry kafkaReceiverRegistry = kafkaReceiverRegistryProvider.getIfAvailable();
+            if (kafkaReceiverRegistry == null || !kafkaReceiverRegistry.isReactiveConsumer(bean)) {
+                throw new BeanNotOfRequiredTypeException(beanName, requiredType, bean.getClass());
+            }
+
+            if (properties.isBatchListener() || properties.getExecutionMode() != KafkaConfigurationProperties.ConsumerProperties.ExecutionMode.CONTAINER
+                    || !"1".equals(properties.getConcurrency().trim()) || properties.getBackpressure().getSignal() != null
+                    || properties.getAutoscaling().isEnabled() || properties.getRetry().getProducer() != null
+                    || properties.getTransactionalProducer() != null || properties.getDedup().isEnabled() || properties.isLatencyTracking()) {
+                throw new IllegalStateException("Reactive consumer does not support batch listener, execution mode, concurrency, backpressure, "
+                        + "autoscaling, retry topics, transactions, dedup and latency tracking");
+            }
+            reactiveBeanNames.add(beanName);
+        }
+
         beanNameConfigMap.put(beanName, configName);
 
-        AbstractKafkaListenerContainerFactory<?, ?, ?> containerFactory = configContainerFactoryMap.get(configName);
-        if (containerFactory == null) {
-            containerFactory = createContainerFactory(beanFactory, properties);
-            configContainerFactoryMap.put(configName, containerFactory);
+        if (!reactiveBeanNames.contains(beanName) && !configContainerFactoryMap.containsKey(configName)) {
+            configContainerFactoryMap.put(configName, createContainerFactory(configName, properties));
         }
 
         return bean;
@@ -96,28 +299,329 @@ public class KafkaConsumerBeanPostProcessor implements BeanPostProcessor, Dispos
         }
 
         KafkaConfigurationProperties.ConsumerProperties properties = this.properties.getConsumers().get(configName);
+        if (reactiveBeanNames.contains(beanName)) {
+            kafkaReceiverRegistryProvider.getObject().register(bean, beanName, getConsumerFactory(configName, properties),
+                    properties, this.properties.getLifecycle().getShutdownTimeout());
+            return bean;
+        }
+
         AbstractKafkaListenerContainerFactory<?, ?, ?> containerFactory = configContainerFactoryMap.get(configName);
 
         AbstractMessageListenerContainer<?,?> container = containerFactory.createContainer(properties.getTopic());
         container.getContainerProperties().setGroupId(properties.getGroupId());
-        container.getContainerProperties().setMessageListener(bean);
-        container.start();
+        container.getContainerProperties().setClientId(beanName);
+        container.getContainerProperties().setMessageListener(createMessageListener(bean, beanName, configName, container, properties));
 
         beanNameContainerMap.put(beanName, container);
+        containerConfigMap.put(beanName, configName);
+
+        BackpressureController backpressureController = configBackpressureControllerMap.get(configName);
+        if (backpressureController != null) {
+            backpressureController.register(container);
+        }
+
+        RetryTopicSupport retryTopicSupport = configRetryTopicSupportMap.get(configName);
+        if (retryTopicSupport != null) {
+            startRetryContainers(bean, beanName, configName, containerFactory, properties, retryTopicSupport);
+        }
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            Gauge.builder(KafkaMetrics.CONSUMER_THREADS, container, KafkaConsumerBeanPostProcessor::getRunningConsumerCount)
+                    .description("Number of running consumer threads of the container")
+                    .tag(KafkaMetrics.TAG_CONFIG, configName)
+                    .tag(KafkaMetrics.TAG_BEAN, beanName)
+                    .register(meterRegistry);
+        }
+
         return bean;
     }
 
+    /**
+     * Возвращает название конфигурации {@link KafkaConsumer} компонента из индекса AOT обработки,
+     * а для компонентов вне индекса - из аннотации.
+     *
+     * @param beanName название компонента
+     * @return название конфигурации или null, если компонент не является потребителем
+     */
+    private String findConfigName(String beanName) {
+        KafkaAnnotatedBeans annotatedBeans = KafkaAnnotatedBeans.of(beanFactory);
+        if (annotatedBeans != null && beanFactory.containsBeanDefinition(beanName)) {
+            return annotatedBeans.getConsumers().get(beanName);
+        }
+
+        KafkaConsumer kafkaConsumer = beanFactory.findAnnotationOnBean(beanName, KafkaConsumer.class);
+        return kafkaConsumer != null ? kafkaConsumer.config() : null;
+    }
+
+    /**
+     * Создает контейнеры топиков повторов компонента.
+     * Сообщение топика повторов передается компоненту не раньше времени из его заголовка,
+     * до этого времени партиция приостанавливается.
+     *
+     * @param bean компонент потребителя
+     * @param beanName название компонента
+     * @param configName название конфигурации потребителя
+     * @param containerFactory фабрика контейнеров конфигурации
+     * @param properties конфигурация потребителя
+     * @param retryTopicSupport топики повторной обработки конфигурации
+     */
+    private void startRetryContainers(Object bean, String beanName, String configName, AbstractKafkaListenerContainerFactory<?,?,?> containerFactory,
+                                      KafkaConfigurationProperties.ConsumerProperties properties, RetryTopicSupport retryTopicSupport) {
+        List<String> retryTopics = retryTopicSupport.getRetryTopics();
+        for (int i = 0; i < retryTopics.size(); i++) {
+            String listenerId = beanName + "-retry-" + i;
+            AbstractMessageListenerContainer<?,?> container = containerFactory.createContainer(retryTopics.get(i));
+            container.getContainerProperties().setGroupId(properties.getGroupId());
+            container.getContainerProperties().setClientId(listenerId);
+
+            @SuppressWarnings("unchecked")
+            MessageListener<Object, Object> listener = (MessageListener<Object, Object>) createMessageListener(bean, beanName, configName, container, properties);
+            container.getContainerProperties().setMessageListener(
+                    new KafkaBackoffAwareMessageListenerAdapter<>(listener, getRetryBackoffManager(), listenerId, Clock.systemUTC()));
+
+            retryContainerRegistry.register(listenerId, container);
+            beanNameContainerMap.put(listenerId, container);
+            containerConfigMap.put(listenerId, configName);
+
+            BackpressureController backpressureController = configBackpressureControllerMap.get(configName);
+            if (backpressureController != null) {
+                backpressureController.register(container);
+            }
+        }
+    }
+
+    /**
+     * Возвращает менеджер задержки обработки сообщений топиков повторов, создавая его при первом обращении.
+     *
+     * @return менеджер задержки обработки
+     */
+    private KafkaConsumerBackoffManager getRetryBackoffManager() {
+        if (retryBackoffManager == null) {
+            ListenerContainerPauseService pauseService = new ListenerContainerPauseService(retryContainerRegistry, getTaskScheduler());
+            retryBackoffManager = new ContainerPartitionPausingBackOffManager(retryContainerRegistry, new ContainerPausingBackOffHandler(pauseService));
+        }
+
+        return retryBackoffManager;
+    }
+
+    /**
+     * Возвращает планировщик фоновых задач потребителей, создавая его при первом обращении.
+     *
+     * @return планировщик фоновых задач
+     */
+    ThreadPoolTaskScheduler getTaskScheduler() {
+        if (taskScheduler == null) {
+            taskScheduler = new ThreadPoolTaskScheduler();
+            taskScheduler.setThreadNamePrefix("kafka-consumer-scheduler-");
+            taskScheduler.initialize();
+        }
+
+        return taskScheduler;
+    }
+
+    /**
+     * Создает контроллер приостановки контейнеров конфигурации по сигналу загруженности
+     * и запускает периодическую проверку сигнала.
+     * При наличии {@link MeterRegistry} признак приостановки публикуется метрикой.
+     *
+     * @param configName название конфигурации потребителя
+     * @param backpressure свойства приостановки конфигурации
+     * @return контроллер приостановки
+     */
+    private BackpressureController createBackpressureController(String configName, KafkaConfigurationProperties.ConsumerProperties.Backpressure backpressure) {
+        BackpressureSignal signal = beanFactory.getBean(backpressure.getSignal(), BackpressureSignal.class);
+        BackpressureController controller = new BackpressureController(configName, signal, backpressure.getPauseThreshold(), backpressure.getResumeThreshold());
+        getTaskScheduler().scheduleAtFixedRate(controller, backpressure.getCheckInterval());
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            Gauge.builder(KafkaMetrics.CONSUMER_PAUSED, controller, c -> c.isPaused() ? 1 : 0)
+                    .description("Whether consumers of the config are paused by the backpressure signal")
+                    .tag(KafkaMetrics.TAG_CONFIG, configName)
+                    .register(meterRegistry);
+        }
+
+        return controller;
+    }
+
+    /**
+     * Создает слушателя контейнера для компонента в соответствии с режимом выполнения конфигурации.
+     * Если включена дедупликация, повторно доставленные сообщения отбрасываются до вызова компонента.
+     * При наличии {@link MeterRegistry} время вызова компонента измеряется таймером,
+     * а при включенном {@code latency-tracking} измеряется задержка доставки сообщений.
+     *
+     * @param bean компонент потребителя
+     * @param beanName название компонента
+     * @param configName название конфигурации потребителя
+     * @param container контейнер потребителя
+     * @param properties конфигурация потребителя
+     * @return слушатель контейнера
+     */
+    private Object createMessageListener(Object bean, String beanName, String configName, MessageListenerContainer container,
+                                         KafkaConfigurationProperties.ConsumerProperties properties) {
+        Object listener = bean;
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (properties.isLatencyTracking() && meterRegistry != null) {
+            LatencyTracker tracker = new LatencyTracker(meterRegistry, configName, beanName, properties.getLatencyMaxSources());
+            listener = properties.isBatchListener()
+                    ? new LatencyTrackingBatchMessageListener<>((BatchMessageListener<?,?>) listener, tracker)
+                    : new LatencyTrackingMessageListener<>((MessageListener<?,?>) listener, tracker);
+        }
+
+        if (properties.getDedup().isEnabled()) {
+            listener = createDeduplicatingListener(listener, beanName, configName, container, properties, meterRegistry);
+        }
+
+        if (meterRegistry != null) {
+            Timer timer = Timer.builder(KafkaMetrics.CONSUMER_PROCESS)
+                    .description("Time spent in the consumer bean per record or batch")
+                    .tag(KafkaMetrics.TAG_CONFIG, configName)
+                    .tag(KafkaMetrics.TAG_BEAN, beanName)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            listener = properties.isBatchListener()
+                    ? new TimedBatchMessageListener<>((BatchMessageListener<?,?>) listener, timer)
+                    : new TimedMessageListener<>((MessageListener<?,?>) listener, timer);
+        }
+
+        if (properties.getExecutionMode() == KafkaConfigurationProperties.ConsumerProperties.ExecutionMode.VIRTUAL_THREADS) {
+            CommonErrorHandler errorHandler = container instanceof AbstractMessageListenerContainer<?,?> listenerContainer
+                    ? listenerContainer.getCommonErrorHandler()
+                    : null;
+            ParallelMessageListener<?,?> parallelListener = new ParallelMessageListener<>(
+                    (MessageListener<?,?>) listener, container, errorHandler, beanName + "-", properties.getMaxInFlight(),
+                    properties.isLatencyTracking() && meterRegistry != null);
+            containerIdParallelListenerMap.put(container.getContainerProperties().getClientId(), parallelListener);
+            listener = parallelListener;
+        }
+
+        return listener;
+    }
+
+    /**
+     * Создает слушателя контейнера, отбрасывающего повторно доставленные сообщения.
+     * Ключи партиций, отозванных у контейнера при ребалансировке, удаляются слушателем ребалансировки контейнера.
+     * При наличии {@link MeterRegistry} результаты проверки ключей публикуются метрикой.
+     *
+     * @param listener слушатель, которому передаются остальные сообщения
+     * @param beanName название компонента
+     * @param configName название конфигурации потребителя
+     * @param container контейнер потребителя
+     * @param properties конфигурация потребителя
+     * @param meterRegistry реестр метрик. Может быть null
+     * @return слушатель контейнера
+     */
+    private Object createDeduplicatingListener(Object listener, String beanName, String configName, MessageListenerContainer container,
+                                               KafkaConfigurationProperties.ConsumerProperties properties, MeterRegistry meterRegistry) {
+        KafkaConfigurationProperties.ConsumerProperties.Dedup dedup = properties.getDedup();
+        DedupKeyExtractor extractor;
+        if (dedup.getExtractor() != null) {
+            extractor = beanFactory.getBean(dedup.getExtractor(), DedupKeyExtractor.class);
+        } else if (dedup.getHeader() != null) {
+            extractor = DedupKeyExtractor.header(dedup.getHeader());
+        } else {
+            extractor = DedupKeyExtractor.recordKey();
+        }
+
+        DeduplicationCache cache = new DeduplicationCache(extractor, dedup.getCapacity(), dedup.getWindow());
+        container.getContainerProperties().setConsumerRebalanceListener(cache);
+
+        Counter hitCounter = null;
+        Counter missCounter = null;
+        if (meterRegistry != null) {
+            hitCounter = createDedupCounter(meterRegistry, configName, beanName, "hit");
+            missCounter = createDedupCounter(meterRegistry, configName, beanName, "miss");
+        }
+
+        return properties.isBatchListener()
+                ? new DeduplicatingBatchMessageListener<>((BatchMessageListener<?,?>) listener, cache, hitCounter, missCounter)
+                : new DeduplicatingMessageListener<>((MessageListener<?,?>) listener, cache, hitCounter, missCounter);
+    }
+
+    /**
+     * Создает счетчик результата проверки ключей дедупликации компонента.
+     *
+     * @param meterRegistry реестр метрик
+     * @param configName название конфигурации потребителя
+     * @param beanName название компонента
+     * @param result результат проверки
+     * @return счетчик
+     */
+    private static Counter createDedupCounter(MeterRegistry meterRegistry, String configName, String beanName, String result) {
+        return Counter.builder(KafkaMetrics.CONSUMER_DEDUP)
+                .description("Consumer records checked against the dedup cache")
+                .tag(KafkaMetrics.TAG_CONFIG, configName)
+                .tag(KafkaMetrics.TAG_BEAN, beanName)
+                .tag(KafkaMetrics.TAG_RESULT, result)
+                .register(meterRegistry);
+    }
+
     /**
      * Создает {@link AbstractKafkaListenerContainerFactory} используя конфигурацию потребителя.
      *
-     * @param beanFactory фабрика компонентов
+     * Если задан продюсер повторов, ошибки обработки публикуют сообщение в топики повторов.
+     * Если задан сигнал загруженности, контейнеры конфигурации приостанавливаются по его уровню.
+     * При остановке контейнер завершает обработку текущего сообщения и фиксирует смещения обработанных сообщений,
+     * не обрабатывая остаток полученного poll.
+     *
+     * @param configName название конфигурации потребителя
      * @param properties конфигурация потребителя
      * @return {@link AbstractKafkaListenerContainerFactory} соответствующую конфигурации
      */
     private AbstractKafkaListenerContainerFactory<?, ?, ?> createContainerFactory(
-            ConfigurableListableBeanFactory beanFactory, KafkaConfigurationProperties.ConsumerProperties properties) {
-        AbstractKafkaListenerContainerFactory factory = new ConcurrentKafkaListenerContainerFactory<>();
+            String configName, KafkaConfigurationProperties.ConsumerProperties properties) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConcurrency(resolveConcurrency(properties));
+        factory.getContainerProperties().setStopImmediate(true);
+        factory.getContainerProperties().setShutdownTimeout(this.properties.getLifecycle().getShutdownTimeout().toMillis());
+        if (properties.isBatchListener()) {
+            factory.setBatchListener(true);
+            factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        }
+
+        if (properties.getExecutionMode() == KafkaConfigurationProperties.ConsumerProperties.ExecutionMode.VIRTUAL_THREADS) {
+            factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        }
+
+        if (properties.getTransactionalProducer() != null) {
+            factory.getContainerProperties().setTransactionManager(producerFactoryRegistry.getTransactionManager(properties.getTransactionalProducer()));
+        }
+
+        String retryProducer = properties.getRetry().getProducer();
+        if (retryProducer != null) {
+            RetryTopicSupport retryTopicSupport = new RetryTopicSupport(properties.getTopic(), properties.getRetry());
+            factory.setCommonErrorHandler(retryTopicSupport.createErrorHandler(producerFactoryRegistry.getKafkaTemplate(retryProducer)));
+            configRetryTopicSupportMap.put(configName, retryTopicSupport);
+        }
+
+        if (properties.getBackpressure().getSignal() != null) {
+            configBackpressureControllerMap.put(configName, createBackpressureController(configName, properties.getBackpressure()));
+        }
+
+        factory.setConsumerFactory(getConsumerFactory(configName, properties));
+        return factory;
+    }
+
+    /**
+     * Возвращает фабрику потребителей конфигурации, создавая ее при первом обращении.
+     * При наличии {@link MeterRegistry} метрики kafka клиента публикуются с тегом конфигурации.
+     *
+     * @param configName название конфигурации потребителя
+     * @param properties конфигурация потребителя
+     * @return фабрика потребителей
+     */
+    private ConsumerFactory<Object, Object> getConsumerFactory(String configName, KafkaConfigurationProperties.ConsumerProperties properties) {
+        ConsumerFactory<Object, Object> existing = configConsumerFactoryMap.get(configName);
+        if (existing != null) {
+            return existing;
+        }
+
         ConsumerFactoryBuilder consumerFactoryBuilder = ConsumerFactoryBuilder.of(properties);
+        if (properties.isLatencyTracking()) {
+            consumerFactoryBuilder.interceptor(LatencyPollInterceptor.class);
+        }
 
         boolean configureKeyDeserializer = true;
         String keyDeserializerBeanName = properties.getKeyDeserializerBeanName();
@@ -139,7 +643,63 @@ public class KafkaConsumerBeanPostProcessor implements BeanPostProcessor, Dispos
 
         consumerFactoryBuilder.configureDeserializers(configureKeyDeserializer || configureValueDeserializer);
 
-        factory.setConsumerFactory(consumerFactoryBuilder.build());
-        return factory;
+        @SuppressWarnings("unchecked")
+        ConsumerFactory<Object, Object> consumerFactory = (ConsumerFactory<Object, Object>) consumerFactoryBuilder.build();
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry, List.of(Tag.of(KafkaMetrics.TAG_CONFIG, configName))));
+        }
+
+        configConsumerFactoryMap.put(configName, consumerFactory);
+        return consumerFactory;
+    }
+
+    /**
+     * Определяет количество потоков потребителя для конфигурации.
+     * В режиме {@value KafkaConfigurationProperties.ConsumerProperties#AUTO_CONCURRENCY} количество потоков
+     * равно числу партиций топика, но не превышает {@code max-concurrency} или количество доступных процессоров.
+     *
+     * @param properties конфигурация потребителя
+     * @return количество потоков потребителя
+     */
+    private int resolveConcurrency(KafkaConfigurationProperties.ConsumerProperties properties) {
+        String concurrency = properties.getConcurrency();
+        if (!KafkaConfigurationProperties.ConsumerProperties.AUTO_CONCURRENCY.equalsIgnoreCase(concurrency)) {
+            int fixedConcurrency = Integer.parseInt(concurrency.trim());
+            if (fixedConcurrency < 1) {
+                throw new IllegalArgumentException("Consumer's concurrency must be positive");
+            }
+            return fixedConcurrency;
+        }
+
+        int maxConcurrency = properties.getMaxConcurrency() != null
+                ? properties.getMaxConcurrency()
+                : Runtime.getRuntime().availableProcessors();
+
+        int partitionCount;
+        try {
+            partitionCount = ConsumerAdminSupport.partitionCount(properties);
+        } catch (IllegalStateException e) {
+            log.warn("Unable to resolve partition count of topic {}, falling back to a single consumer thread", properties.getTopic(), e);
+            partitionCount = 1;
+        }
+
+        return Math.max(1, Math.min(partitionCount, maxConcurrency));
+    }
+
+    /**
+     * Возвращает количество запущенных потоков потребителя контейнера.
+     *
+     * @param container контейнер потребителя
+     * @return количество запущенных потоков
+     */
+    private static int getRunningConsumerCount(MessageListenerContainer container) {
+        if (container instanceof ConcurrentMessageListenerContainer<?,?> concurrentContainer) {
+            return (int) concurrentContainer.getContainers().stream()
+                    .filter(MessageListenerContainer::isRunning)
+                    .count();
+        }
+
+        return container.isRunning() ? 1 : 0;
     }
 }
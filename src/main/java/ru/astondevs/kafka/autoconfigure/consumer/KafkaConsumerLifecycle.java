@@ -0,0 +1,478 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
+import ru.astondevs.kafka.autoconfigure.KafkaMetrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Запускает контейнеры потребителей, созданные {@link KafkaConsumerBeanPostProcessor}, параллельно
+ * после обновления контекста или после готовности приложения, вместо последовательного запуска
+ * при инициализации компонентов. Время запуска каждого контейнера записывается в журнал и метрику.
+ * Реактивные потребители подписываются после запуска контейнеров.
+ * <p>
+ * При остановке контекста контейнеры останавливаются параллельно: каждый контейнер завершает текущую обработку
+ * и фиксирует смещения обработанных сообщений в пределах {@code shutdown-timeout}. Подписки реактивных
+ * потребителей отменяются, а их потребители закрываются также в пределах {@code shutdown-timeout}.
+ * <p>
+ * Для конфигураций с {@code autoscaling.enabled} после запуска планируются контроллеры, изменяющие
+ * количество потоков контейнеров по отставанию группы.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see KafkaConfigurationProperties.Lifecycle#getConsumerStartup()
+ * @see KafkaConfigurationProperties.Lifecycle#getShutdownTimeout()
+ * @see ConcurrencyAutoscaler
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class KafkaConsumerLifecycle implements SmartLifecycle, ApplicationListener<ApplicationReadyEvent>, ApplicationEventPublisherAware {
+
+    /**
+     * Интервал проверки приостановки контейнера при остановке.
+     */
+    private static final long PAUSE_CHECK_INTERVAL_MILLIS = 10;
+
+    /**
+     * Пост процессор, создавший контейнеры потребителей.
+     */
+    private final KafkaConsumerBeanPostProcessor consumerBeanPostProcessor;
+
+    /**
+     * Свойства конфигураций.
+     */
+    private final KafkaConfigurationProperties properties;
+
+    /**
+     * Поставщик реестра метрик.
+     */
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    /**
+     * Контроллеры автоматического масштабирования конфигураций потребителей.
+     */
+    private final List<ConcurrencyAutoscaler> autoscalers = new ArrayList<>();
+
+    /**
+     * Запланированные проверки контроллеров автоматического масштабирования.
+     */
+    private final List<ScheduledFuture<?>> autoscalerFutures = new ArrayList<>();
+
+    /**
+     * Планировщик проверок контроллеров автоматического масштабирования с потоком на каждый контроллер.
+     * Проверка обращается к кластеру и перезапускает контейнеры, поэтому не выполняется планировщиком потребителей,
+     * проверяющим сигналы загруженности и возобновляющим партиции топиков повторов.
+     */
+    private ThreadPoolTaskScheduler autoscalerScheduler;
+
+    /**
+     * Метрики контроллеров автоматического масштабирования, удаляемые при их остановке.
+     */
+    private final List<Meter> autoscalerMeters = new ArrayList<>();
+
+    /**
+     * Публикатор событий.
+     */
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Признак запуска.
+     */
+    private volatile boolean running;
+
+    @Override
+    public void setApplicationEventPublisher(@NonNull ApplicationEventPublisher applicationEventPublisher) {
+        this.eventPublisher = applicationEventPublisher;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (properties.getLifecycle().getConsumerStartup() == KafkaConfigurationProperties.Lifecycle.ConsumerStartup.REFRESH) {
+            startConsumers();
+        }
+        startAutoscalers();
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+        if (running && properties.getLifecycle().getConsumerStartup() == KafkaConfigurationProperties.Lifecycle.ConsumerStartup.READY) {
+            startConsumers();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        stopAutoscalers();
+        consumerBeanPostProcessor.disposeReactiveConsumers();
+        stopContainers();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE;
+    }
+
+    /**
+     * Приостанавливает получение сообщений контейнером.
+     *
+     * @param containerId идентификатор контейнера
+     * @throws IllegalArgumentException если контейнер не найден
+     */
+    void pause(String containerId) {
+        getContainer(containerId).pause();
+    }
+
+    /**
+     * Возобновляет получение сообщений контейнером.
+     *
+     * @param containerId идентификатор контейнера
+     * @throws IllegalArgumentException если контейнер не найден
+     */
+    void resume(String containerId) {
+        getContainer(containerId).resume();
+    }
+
+    /**
+     * Изменяет количество потоков контейнера. Запущенный контейнер останавливается так же, как при остановке
+     * контекста, с фиксацией смещений обработанных сообщений, и запускается с новым количеством потоков.
+     * Приостановка контейнера сохраняется.
+     * <p>
+     * Если контейнер не остановился за {@code shutdown-timeout}, количество потоков не изменяется,
+     * а контейнер запускается заново с прежним количеством потоков, как только завершит остановку.
+     *
+     * @param containerId идентификатор контейнера
+     * @param concurrency количество потоков
+     * @throws IllegalArgumentException если контейнер не найден или количество потоков не положительно
+     * @throws IllegalStateException если контейнер не остановился за {@code shutdown-timeout}
+     */
+    synchronized void setConcurrency(String containerId, int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Consumer's concurrency must be positive");
+        }
+
+        if (!(getContainer(containerId) instanceof ConcurrentMessageListenerContainer<?,?> container)) {
+            throw new IllegalArgumentException("Consumer container " + containerId + " does not support concurrency");
+        }
+
+        int previousConcurrency = container.getConcurrency();
+        if (previousConcurrency == concurrency) {
+            return;
+        }
+
+        boolean running = container.isRunning();
+        boolean paused = container.isPauseRequested();
+        if (running) {
+            long deadline = System.nanoTime() + properties.getLifecycle().getShutdownTimeout().toNanos();
+            if (!stopContainer(containerId, container, deadline, () -> restartContainer(containerId, container, paused))) {
+                throw new IllegalStateException("Consumer container " + containerId
+                        + " did not stop within shutdown timeout, it will be restarted with previous concurrency once stopped");
+            }
+        }
+
+        container.setConcurrency(concurrency);
+        if (running) {
+            try {
+                startContainer(containerId, container);
+            } catch (RuntimeException e) {
+                container.setConcurrency(previousConcurrency);
+                restartContainer(containerId, container, paused);
+                throw e;
+            }
+
+            if (!paused) {
+                container.resume();
+            }
+            restarted(containerId, container);
+        }
+
+        log.info("Changed concurrency of consumer container {} to {}", containerId, concurrency);
+    }
+
+    /**
+     * Создает и планирует контроллеры автоматического масштабирования конфигураций, в которых оно включено.
+     * Масштабируются контейнеры, получающие сообщения топика конфигурации (без контейнеров топиков повторов).
+     */
+    private void startAutoscalers() {
+        Map<String, Map<String, ConcurrentMessageListenerContainer<?,?>>> configContainersMap = new LinkedHashMap<>();
+        consumerBeanPostProcessor.getContainers().forEach((containerId, container) -> {
+            String configName = consumerBeanPostProcessor.getConfigName(containerId);
+            KafkaConfigurationProperties.ConsumerProperties consumerProperties = properties.getConsumers().get(configName);
+            if (consumerProperties.getAutoscaling().isEnabled()
+                    && container instanceof ConcurrentMessageListenerContainer<?,?> concurrentContainer
+                    && Arrays.asList(container.getContainerProperties().getTopics()).contains(consumerProperties.getTopic())) {
+                configContainersMap.computeIfAbsent(configName, name -> new LinkedHashMap<>()).put(containerId, concurrentContainer);
+            }
+        });
+
+        if (configContainersMap.isEmpty()) {
+            return;
+        }
+
+        autoscalerScheduler = new ThreadPoolTaskScheduler();
+        autoscalerScheduler.setThreadNamePrefix("kafka-consumer-autoscaler-");
+        autoscalerScheduler.setPoolSize(configContainersMap.size());
+        autoscalerScheduler.initialize();
+        configContainersMap.forEach((configName, containers) -> {
+            KafkaConfigurationProperties.ConsumerProperties consumerProperties = properties.getConsumers().get(configName);
+            MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+            ConcurrencyAutoscaler autoscaler = new ConcurrencyAutoscaler(configName, consumerProperties, containers, this, eventPublisher, meterRegistry);
+            autoscalers.add(autoscaler);
+            autoscalerFutures.add(autoscalerScheduler.scheduleAtFixedRate(autoscaler, consumerProperties.getAutoscaling().getCheckInterval()));
+
+            if (meterRegistry != null) {
+                autoscalerMeters.add(Gauge.builder(KafkaMetrics.CONSUMER_LAG, autoscaler, ConcurrencyAutoscaler::getLag)
+                        .description("Lag of the consumer group sampled by the autoscaler")
+                        .tag(KafkaMetrics.TAG_CONFIG, configName)
+                        .register(meterRegistry));
+            }
+        });
+    }
+
+    /**
+     * Отменяет проверки контроллеров автоматического масштабирования, удаляет их метрики
+     * и закрывает их клиентов администрирования.
+     */
+    private void stopAutoscalers() {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            autoscalerMeters.forEach(meterRegistry::remove);
+        }
+        autoscalerMeters.clear();
+        autoscalerFutures.forEach(future -> future.cancel(false));
+        autoscalerFutures.clear();
+        if (autoscalerScheduler != null) {
+            autoscalerScheduler.shutdown();
+            autoscalerScheduler = null;
+        }
+        autoscalers.forEach(ConcurrencyAutoscaler::close);
+        autoscalers.clear();
+    }
+
+    /**
+     * Возвращает контейнер по идентификатору.
+     *
+     * @param containerId идентификатор контейнера
+     * @return контейнер
+     * @throws IllegalArgumentException если контейнер не найден
+     */
+    private AbstractMessageListenerContainer<?,?> getContainer(String containerId) {
+        AbstractMessageListenerContainer<?,?> container = consumerBeanPostProcessor.getContainers().get(containerId);
+        if (container == null) {
+            throw new IllegalArgumentException("Consumer container " + containerId + " is not found");
+        }
+
+        return container;
+    }
+
+    /**
+     * Запускает контейнеры и подписывает реактивных потребителей.
+     */
+    private void startConsumers() {
+        startContainers();
+        int subscribed = consumerBeanPostProcessor.subscribeReactiveConsumers();
+        if (subscribed > 0) {
+            log.info("Subscribed {} reactive consumers", subscribed);
+        }
+    }
+
+    /**
+     * Запускает все контейнеры параллельно и ожидает завершения их запуска.
+     *
+     * @throws IllegalStateException если запуск хотя бы одного контейнера завершился ошибкой
+     */
+    private void startContainers() {
+        Map<String, AbstractMessageListenerContainer<?,?>> containers = consumerBeanPostProcessor.getContainers();
+        if (containers.isEmpty()) {
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-consumer-start-");
+        List<CompletableFuture<Void>> futures = new ArrayList<>(containers.size());
+        containers.forEach((containerId, container) -> futures.add(CompletableFuture.runAsync(() -> startContainer(containerId, container), executor)));
+
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Failed to start consumer containers", e.getCause());
+        }
+
+        log.info("Started {} consumer containers in {} ms", containers.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    /**
+     * Запускает контейнер и записывает время его запуска.
+     *
+     * @param containerId идентификатор контейнера
+     * @param container контейнер
+     */
+    private void startContainer(String containerId, AbstractMessageListenerContainer<?,?> container) {
+        long startTime = System.nanoTime();
+        container.start();
+        long duration = System.nanoTime() - startTime;
+        log.debug("Started consumer container {} in {} ms", containerId, TimeUnit.NANOSECONDS.toMillis(duration));
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            Timer.builder(KafkaMetrics.CONSUMER_STARTUP)
+                    .description("Time to start the consumer container")
+                    .tag(KafkaMetrics.TAG_CONFIG, consumerBeanPostProcessor.getConfigName(containerId))
+                    .tag(KafkaMetrics.TAG_BEAN, containerId)
+                    .register(meterRegistry)
+                    .record(duration, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Запускает остановленный контейнер с текущим количеством потоков, восстанавливая приостановку.
+     * Не выполняется после остановки жизненного цикла. Ошибка запуска записывается в журнал.
+     *
+     * @param containerId идентификатор контейнера
+     * @param container контейнер
+     * @param paused признак приостановки контейнера до остановки
+     */
+    private synchronized void restartContainer(String containerId, AbstractMessageListenerContainer<?,?> container, boolean paused) {
+        if (!running || container.isRunning()) {
+            return;
+        }
+
+        try {
+            startContainer(containerId, container);
+            if (!paused) {
+                container.resume();
+            }
+            restarted(containerId, container);
+            log.info("Restarted consumer container {}", containerId);
+        } catch (RuntimeException e) {
+            log.error("Failed to restart consumer container {}", containerId, e);
+        }
+    }
+
+    /**
+     * Останавливает все запущенные контейнеры параллельно и ожидает их остановки, но не дольше {@code shutdown-timeout}.
+     */
+    private void stopContainers() {
+        Map<String, AbstractMessageListenerContainer<?,?>> containers = consumerBeanPostProcessor.getContainers();
+        if (containers.isEmpty()) {
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        long deadline = startTime + properties.getLifecycle().getShutdownTimeout().toNanos();
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-consumer-stop-");
+        List<CompletableFuture<Void>> futures = new ArrayList<>(containers.size());
+        containers.forEach((containerId, container) -> futures.add(CompletableFuture.runAsync(() -> stopContainer(containerId, container, deadline, null), executor)));
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        log.info("Stopped {} consumer containers in {} ms", containers.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    /**
+     * Сообщает контроллеру приостановки конфигурации о перезапуске контейнера после остановки.
+     *
+     * @param containerId идентификатор контейнера
+     * @param container контейнер
+     */
+    private void restarted(String containerId, AbstractMessageListenerContainer<?,?> container) {
+        BackpressureController backpressureController = consumerBeanPostProcessor.getBackpressureController(containerId);
+        if (backpressureController != null) {
+            backpressureController.restarted(container);
+        }
+    }
+
+    /**
+     * Останавливает контейнер до истечения срока остановки.
+     * Контроллер приостановки конфигурации не возобновляет контейнер до его перезапуска.
+     * Контейнер, обрабатывающий сообщения вне своих потоков, сначала приостанавливается, чтобы переданные
+     * в обработку сообщения были обработаны и их смещения зафиксированы до остановки потребителя.
+     *
+     * @param containerId идентификатор контейнера
+     * @param container контейнер
+     * @param deadline срок остановки в единицах {@link System#nanoTime()}
+     * @param lateStopCallback действие, выполняемое планировщиком потребителей после остановки контейнера,
+     *                         не остановившегося до истечения срока, или null
+     * @return true, если контейнер остановлен до истечения срока
+     */
+    private boolean stopContainer(String containerId, AbstractMessageListenerContainer<?,?> container, long deadline,
+                                  Runnable lateStopCallback) {
+        if (!container.isRunning()) {
+            return true;
+        }
+
+        BackpressureController backpressureController = consumerBeanPostProcessor.getBackpressureController(containerId);
+        if (backpressureController != null) {
+            backpressureController.stopping(container);
+        }
+
+        CompletableFuture<Void> stopped = new CompletableFuture<>();
+        try {
+            ParallelMessageListener<?,?> parallelListener = consumerBeanPostProcessor.getParallelListener(containerId);
+            if (parallelListener != null) {
+                container.pause();
+                while (!container.isContainerPaused() && System.nanoTime() < deadline) {
+                    TimeUnit.MILLISECONDS.sleep(PAUSE_CHECK_INTERVAL_MILLIS);
+                }
+
+                int abandoned = parallelListener.awaitCompletion(Duration.ofNanos(Math.max(deadline - System.nanoTime(), 0)));
+                if (abandoned > 0) {
+                    log.warn("Consumer {} did not process {} in-flight records within shutdown timeout, they will be redelivered", containerId, abandoned);
+                }
+            }
+
+            container.stop(() -> stopped.complete(null));
+            stopped.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            log.warn("Consumer container {} did not stop within shutdown timeout, records of its last poll will be redelivered", containerId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while stopping consumer container {}", containerId);
+        } catch (ExecutionException e) {
+            log.warn("Failed to stop consumer container {}", containerId, e.getCause());
+        }
+
+        if (lateStopCallback != null) {
+            if (container.isRunning()) {
+                container.stop(() -> stopped.complete(null));
+            }
+            stopped.thenRunAsync(lateStopCallback, consumerBeanPostProcessor.getTaskScheduler());
+        }
+        return false;
+    }
+}
@@ -0,0 +1,263 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.lang.Nullable;
+import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint {@code kafkaconsumers}, показывающий состояние контейнеров {@link KafkaConsumer} компонентов
+ * и позволяющий приостанавливать, возобновлять их и изменять количество потоков во время работы приложения.
+ * <p>
+ * Для каждого контейнера возвращаются конфигурация, топики, группа, количество потоков, состояние
+ * и назначенные экземпляру партиции с отставанием группы. Запрос на запись принимает {@code paused}
+ * и (или) {@code concurrency}. Приостановка применяется сразу, а изменение количества потоков перезапускает
+ * контейнер с фиксацией смещений обработанных сообщений в фоновом потоке, поэтому запрос не ожидает
+ * остановки контейнера ({@code shutdown-timeout}) и возвращает статус 202 с текущим состоянием.
+ * Приостановленный вручную контейнер не возобновляется контроллером {@code backpressure}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see KafkaConsumerLifecycle
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Endpoint(id = "kafkaconsumers")
+public class KafkaConsumersEndpoint {
+
+    /**
+     * Статус ответа на запрос, выполнение которого продолжается после ответа.
+     */
+    private static final int STATUS_ACCEPTED = 202;
+
+    /**
+     * Пост процессор, создавший контейнеры потребителей.
+     */
+    private final KafkaConsumerBeanPostProcessor consumerBeanPostProcessor;
+
+    /**
+     * Жизненный цикл контейнеров потребителей.
+     */
+    private final KafkaConsumerLifecycle consumerLifecycle;
+
+    /**
+     * Свойства конфигураций.
+     */
+    private final KafkaConfigurationProperties properties;
+
+    /**
+     * Исполнитель изменений количества потоков.
+     */
+    private final SimpleAsyncTaskExecutor concurrencyExecutor = new SimpleAsyncTaskExecutor("kafka-consumer-concurrency-");
+
+    /**
+     * Возвращает описание всех контейнеров потребителей.
+     *
+     * @return карта идентификатора контейнера и его описания
+     */
+    @ReadOperation
+    public Map<String, ConsumerDescriptor> consumers() {
+        Map<String, ConsumerDescriptor> consumers = new LinkedHashMap<>();
+        Map<String, Admin> configAdminMap = new HashMap<>();
+        try {
+            consumerBeanPostProcessor.getContainers().forEach((containerId, container) ->
+                    consumers.put(containerId, describe(containerId, container, configAdminMap)));
+        } finally {
+            configAdminMap.values().forEach(Admin::close);
+        }
+
+        return consumers;
+    }
+
+    /**
+     * Возвращает описание контейнера потребителя.
+     *
+     * @param name идентификатор контейнера
+     * @return описание контейнера или null, если контейнер не найден
+     */
+    @ReadOperation
+    public ConsumerDescriptor consumer(@Selector String name) {
+        AbstractMessageListenerContainer<?,?> container = consumerBeanPostProcessor.getContainers().get(name);
+        if (container == null) {
+            return null;
+        }
+
+        Map<String, Admin> configAdminMap = new HashMap<>();
+        try {
+            return describe(name, container, configAdminMap);
+        } finally {
+            configAdminMap.values().forEach(Admin::close);
+        }
+    }
+
+    /**
+     * Приостанавливает или возобновляет контейнер и (или) запускает изменение количества его потоков.
+     * Количество потоков изменяется асинхронно, результат записывается в журнал.
+     *
+     * @param name идентификатор контейнера
+     * @param paused true - приостановить, false - возобновить
+     * @param concurrency новое количество потоков
+     * @return описание контейнера со статусом 200, 202 при изменении количества потоков,
+     * 400 при неположительном количестве потоков или 404, если контейнер не найден
+     */
+    @WriteOperation
+    public WebEndpointResponse<ConsumerDescriptor> update(@Selector String name, @Nullable Boolean paused, @Nullable Integer concurrency) {
+        if (!consumerBeanPostProcessor.getContainers().containsKey(name)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+
+        if (concurrency != null && concurrency < 1) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+
+        if (Boolean.TRUE.equals(paused)) {
+            consumerLifecycle.pause(name);
+            log.info("Paused consumer container {}", name);
+        } else if (Boolean.FALSE.equals(paused)) {
+            consumerLifecycle.resume(name);
+            log.info("Resumed consumer container {}", name);
+        }
+
+        if (concurrency == null) {
+            return new WebEndpointResponse<>(consumer(name));
+        }
+
+        concurrencyExecutor.execute(() -> {
+            try {
+                consumerLifecycle.setConcurrency(name, concurrency);
+            } catch (RuntimeException e) {
+                log.warn("Failed to change concurrency of consumer container {} to {}", name, concurrency, e);
+            }
+        });
+        return new WebEndpointResponse<>(consumer(name), STATUS_ACCEPTED);
+    }
+
+    /**
+     * Создает описание контейнера. Отставание запрашивается у кластера клиентом администрирования конфигурации,
+     * создаваемым при первом обращении. Если отставание получить не удалось, оно не заполняется.
+     *
+     * @param containerId идентификатор контейнера
+     * @param container контейнер
+     * @param configAdminMap карта названия конфигурации и клиента администрирования
+     * @return описание контейнера
+     */
+    private ConsumerDescriptor describe(String containerId, AbstractMessageListenerContainer<?,?> container, Map<String, Admin> configAdminMap) {
+        String configName = consumerBeanPostProcessor.getConfigName(containerId);
+        Collection<TopicPartition> assignedPartitions = container.getAssignedPartitions();
+        List<TopicPartition> partitions = assignedPartitions == null ? new ArrayList<>() : new ArrayList<>(assignedPartitions);
+        partitions.sort(Comparator.comparing(TopicPartition::topic).thenComparingInt(TopicPartition::partition));
+
+        Map<TopicPartition, Long> lag = Map.of();
+        KafkaConfigurationProperties.ConsumerProperties consumerProperties = properties.getConsumers() == null ? null : properties.getConsumers().get(configName);
+        if (!partitions.isEmpty() && consumerProperties != null) {
+            try {
+                Admin admin = configAdminMap.computeIfAbsent(configName, name -> ConsumerAdminSupport.createAdmin(consumerProperties));
+                lag = ConsumerAdminSupport.lag(admin, container.getGroupId(), partitions);
+            } catch (RuntimeException e) {
+                log.warn("Failed to fetch lag of consumer container {}", containerId, e);
+            }
+        }
+
+        List<PartitionDescriptor> partitionDescriptors = new ArrayList<>(partitions.size());
+        for (TopicPartition partition : partitions) {
+            partitionDescriptors.add(new PartitionDescriptor(partition.topic(), partition.partition(), lag.get(partition)));
+        }
+
+        return new ConsumerDescriptor(
+                configName,
+                List.of(container.getContainerProperties().getTopics() == null ? new String[0] : container.getContainerProperties().getTopics()),
+                container.getGroupId(),
+                container instanceof ConcurrentMessageListenerContainer<?,?> concurrentContainer ? concurrentContainer.getConcurrency() : 1,
+                state(container),
+                lag.isEmpty() ? null : lag.values().stream().mapToLong(Long::longValue).sum(),
+                partitionDescriptors);
+    }
+
+    /**
+     * Возвращает состояние контейнера.
+     *
+     * @param container контейнер
+     * @return состояние контейнера
+     */
+    private static ConsumerState state(AbstractMessageListenerContainer<?,?> container) {
+        if (!container.isRunning()) {
+            return ConsumerState.STOPPED;
+        }
+
+        if (container.isContainerPaused()) {
+            return ConsumerState.PAUSED;
+        }
+
+        return container.isPauseRequested() ? ConsumerState.PAUSING : ConsumerState.RUNNING;
+    }
+
+    /**
+     * Описание контейнера потребителя.
+     *
+     * @param config название конфигурации потребителя
+     * @param topics топики контейнера
+     * @param groupId идентификатор группы
+     * @param concurrency количество потоков
+     * @param state состояние контейнера
+     * @param lag суммарное отставание назначенных партиций или null, если оно неизвестно
+     * @param partitions назначенные экземпляру партиции
+     */
+    public record ConsumerDescriptor(String config, List<String> topics, String groupId, int concurrency,
+                                     ConsumerState state, Long lag, List<PartitionDescriptor> partitions) {
+    }
+
+    /**
+     * Описание назначенной партиции.
+     *
+     * @param topic топик
+     * @param partition номер партиции
+     * @param lag отставание группы или null, если оно неизвестно
+     */
+    public record PartitionDescriptor(String topic, int partition, Long lag) {
+    }
+
+    /**
+     * Состояние контейнера потребителя.
+     */
+    public enum ConsumerState {
+
+        /**
+         * Контейнер получает сообщения.
+         */
+        RUNNING,
+
+        /**
+         * Приостановка запрошена, но еще не применена потребителями.
+         */
+        PAUSING,
+
+        /**
+         * Контейнер приостановлен.
+         */
+        PAUSED,
+
+        /**
+         * Контейнер остановлен.
+         */
+        STOPPED
+    }
+}
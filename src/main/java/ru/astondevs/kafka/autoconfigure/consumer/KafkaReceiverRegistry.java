@@ -0,0 +1,166 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.ConsumerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Реестр подписок реактивных потребителей на {@link KafkaReceiver} их конфигураций.
+ * Подписки создаются и отменяются {@link KafkaConsumerLifecycle} вместе с запуском и остановкой контейнеров.
+ * При отмене подписки смещения подтвержденных сообщений фиксируются, а потребитель закрывается
+ * не дольше {@code shutdown-timeout}. Оставшиеся подписки отменяются при уничтожении контекста.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see AbstractReactiveKafkaConsumer
+ */
+@Slf4j
+public class KafkaReceiverRegistry implements DisposableBean {
+
+    /**
+     * Начальная задержка повторной подписки после ошибки потока.
+     */
+    private static final Duration RESUBSCRIBE_MIN_BACKOFF = Duration.ofSeconds(1);
+
+    /**
+     * Максимальная задержка повторной подписки после ошибки потока.
+     */
+    private static final Duration RESUBSCRIBE_MAX_BACKOFF = Duration.ofSeconds(30);
+
+    /**
+     * Карта beanName и потока сообщений реактивного потребителя.
+     */
+    private final Map<String, Flux<?>> beanNameFluxMap = new LinkedHashMap<>();
+
+    /**
+     * Карта beanName и подписки реактивного потребителя.
+     */
+    private final Map<String, Disposable> beanNameSubscriptionMap = new HashMap<>();
+
+    @Override
+    public synchronized void destroy() {
+        dispose();
+        beanNameFluxMap.clear();
+    }
+
+    /**
+     * Возвращает true, если компонент является реактивным потребителем.
+     *
+     * @param bean компонент
+     * @return true, если компонент является {@link AbstractReactiveKafkaConsumer}
+     */
+    public boolean isReactiveConsumer(Object bean) {
+        return bean instanceof AbstractReactiveKafkaConsumer<?,?>;
+    }
+
+    /**
+     * Регистрирует реактивного потребителя. Подписка на сообщения топика конфигурации создается в {@link #subscribe()}.
+     *
+     * @param bean компонент реактивного потребителя
+     * @param beanName название компонента, используемое как {@code client.id}
+     * @param consumerFactory фабрика потребителей конфигурации
+     * @param properties конфигурация потребителя
+     * @param closeTimeout максимальное время закрытия потребителя при отмене подписки
+     */
+    public synchronized void register(Object bean, String beanName, ConsumerFactory<?,?> consumerFactory,
+                                      KafkaConfigurationProperties.ConsumerProperties properties, Duration closeTimeout) {
+        @SuppressWarnings("unchecked")
+        AbstractReactiveKafkaConsumer<Object, Object> consumer = (AbstractReactiveKafkaConsumer<Object, Object>) bean;
+        KafkaReceiver<Object, Object> receiver = KafkaReceiver.create(createReceiverOptions(beanName, consumerFactory, properties, closeTimeout));
+
+        Flux<?> flux = Flux.defer(() -> consumer.consume(receiver.receive().map(record -> (ConsumerRecord<Object, Object>) record)))
+                .doOnNext(record -> {
+                    if (record instanceof ReceiverRecord<?,?> receiverRecord) {
+                        receiverRecord.receiverOffset().acknowledge();
+                    }
+                })
+                .doOnError(e -> log.error("Reactive consumer {} failed, resubscribing", beanName, e))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, RESUBSCRIBE_MIN_BACKOFF).maxBackoff(RESUBSCRIBE_MAX_BACKOFF).transientErrors(true));
+        beanNameFluxMap.put(beanName, flux);
+    }
+
+    /**
+     * Подписывает зарегистрированных реактивных потребителей, которые еще не подписаны.
+     *
+     * @return количество созданных подписок
+     */
+    public synchronized int subscribe() {
+        int subscribed = 0;
+        for (Map.Entry<String, Flux<?>> entry : beanNameFluxMap.entrySet()) {
+            if (!beanNameSubscriptionMap.containsKey(entry.getKey())) {
+                beanNameSubscriptionMap.put(entry.getKey(), entry.getValue().subscribe());
+                subscribed++;
+            }
+        }
+
+        return subscribed;
+    }
+
+    /**
+     * Отменяет подписки реактивных потребителей. Потребители остаются зарегистрированными
+     * и подписываются заново при следующем вызове {@link #subscribe()}.
+     */
+    public synchronized void dispose() {
+        beanNameSubscriptionMap.values().forEach(Disposable::dispose);
+        beanNameSubscriptionMap.clear();
+    }
+
+    /**
+     * Создает {@link ReceiverOptions} со свойствами и десерелизаторами указанной фабрики потребителей.
+     *
+     * @param beanName название компонента
+     * @param consumerFactory фабрика потребителей конфигурации
+     * @param properties конфигурация потребителя
+     * @param closeTimeout максимальное время закрытия потребителя
+     * @return свойства получателя
+     */
+    @SuppressWarnings("unchecked")
+    private static ReceiverOptions<Object, Object> createReceiverOptions(String beanName, ConsumerFactory<?,?> consumerFactory,
+                                                                        KafkaConfigurationProperties.ConsumerProperties properties,
+                                                                        Duration closeTimeout) {
+        Map<String, Object> config = new HashMap<>(consumerFactory.getConfigurationProperties());
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, properties.getGroupId());
+        config.put(ConsumerConfig.CLIENT_ID_CONFIG, beanName);
+
+        ReceiverOptions<Object, Object> receiverOptions = ReceiverOptions.create(config)
+                .subscription(List.of(properties.getTopic()))
+                .closeTimeout(closeTimeout);
+
+        Deserializer<?> keyDeserializer = consumerFactory.getKeyDeserializer();
+        if (keyDeserializer != null) {
+            receiverOptions = receiverOptions.withKeyDeserializer((Deserializer<Object>) keyDeserializer);
+        }
+
+        Deserializer<?> valueDeserializer = consumerFactory.getValueDeserializer();
+        if (valueDeserializer != null) {
+            receiverOptions = receiverOptions.withValueDeserializer((Deserializer<Object>) valueDeserializer);
+        }
+
+        if (properties.getCommitBatchSize() != null) {
+            receiverOptions = receiverOptions.commitBatchSize(properties.getCommitBatchSize());
+        }
+
+        if (properties.getCommitInterval() != null) {
+            receiverOptions = receiverOptions.commitInterval(properties.getCommitInterval());
+        }
+
+        return receiverOptions;
+    }
+}
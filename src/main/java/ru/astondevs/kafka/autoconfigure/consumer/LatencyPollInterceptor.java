@@ -0,0 +1,72 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import ru.astondevs.kafka.autoconfigure.LatencyHeader;
+
+import java.util.Map;
+
+/**
+ * Перехватчик kafka потребителя, запоминающий время получения сообщений poll в потоке потребителя.
+ * Время используется слушателем контейнера, обрабатывающим сообщения в том же потоке,
+ * для разделения задержки доставки на ожидание в брокере и ожидание в полученном poll.
+ * Время каждого poll запоминается отдельным массивом, поэтому в режиме {@code virtual-threads} оно передается
+ * вместе с сообщением в поток обработки ({@link #setPollTime(long[])}).
+ * Добавляется в конфигурацию потребителя с {@code latency-tracking}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+public class LatencyPollInterceptor implements ConsumerInterceptor<Object, Object> {
+
+    /**
+     * Время poll потока, в котором poll не выполнялся.
+     */
+    private static final long[] NO_POLL_TIME = new long[2];
+
+    /**
+     * Время последнего poll потока: микросекунды от эпохи и {@link System#nanoTime()}.
+     */
+    private static final ThreadLocal<long[]> POLL_TIME = new ThreadLocal<>();
+
+    @Override
+    public ConsumerRecords<Object, Object> onConsume(ConsumerRecords<Object, Object> records) {
+        if (!records.isEmpty()) {
+            POLL_TIME.set(new long[] {LatencyHeader.currentTimeMicros(), System.nanoTime()});
+        }
+        return records;
+    }
+
+    @Override
+    public void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Возвращает время последнего poll текущего потока. Массив не изменяется после возврата.
+     *
+     * @return микросекунды от эпохи и {@link System#nanoTime()} или нули, если poll не выполнялся
+     */
+    static long[] pollTime() {
+        long[] pollTime = POLL_TIME.get();
+        return pollTime != null ? pollTime : NO_POLL_TIME;
+    }
+
+    /**
+     * Устанавливает время poll текущего потока, полученное в потоке потребителя.
+     *
+     * @param pollTime время poll, возвращенное {@link #pollTime()}
+     */
+    static void setPollTime(long[] pollTime) {
+        POLL_TIME.set(pollTime);
+    }
+}
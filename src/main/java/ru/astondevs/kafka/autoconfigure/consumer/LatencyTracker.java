@@ -0,0 +1,142 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import ru.astondevs.kafka.autoconfigure.KafkaMetrics;
+import ru.astondevs.kafka.autoconfigure.LatencyHeader;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймеры задержки доставки сообщений с заголовком {@link LatencyHeader} компонента потребителя по этапам:
+ * <ul>
+ *     <li>{@code broker} - от отправки продюсером до получения сообщения poll;</li>
+ *     <li>{@code queue} - от получения poll до вызова компонента;</li>
+ *     <li>{@code processing} - вызов компонента.</li>
+ * </ul>
+ * Таймеры создаются при первом сообщении каждого топика и конфигурации продюсера. Название конфигурации
+ * продюсера берется из заголовка сообщения, поэтому количество его значений для каждого топика ограничено,
+ * а сообщения остальных конфигураций записываются с тегом {@value #OTHER_SOURCE}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see KafkaMetrics#CONSUMER_LATENCY
+ */
+final class LatencyTracker {
+
+    /**
+     * Значение тега {@code source} сообщений конфигураций продюсеров сверх ограничения.
+     */
+    static final String OTHER_SOURCE = "other";
+
+    /**
+     * Реестр метрик.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Название конфигурации потребителя.
+     */
+    private final String configName;
+
+    /**
+     * Название компонента.
+     */
+    private final String beanName;
+
+    /**
+     * Максимальное количество конфигураций продюсеров с отдельными таймерами для каждого топика.
+     */
+    private final int maxSources;
+
+    /**
+     * Карта топика, конфигурации продюсера и таймеров этапов.
+     */
+    private final Map<String, Map<String, Timer[]>> topicSourceTimersMap = new ConcurrentHashMap<>();
+
+    LatencyTracker(MeterRegistry meterRegistry, String configName, String beanName, int maxSources) {
+        if (maxSources < 1) {
+            throw new IllegalArgumentException("Consumer's latency max sources must be positive");
+        }
+
+        this.meterRegistry = meterRegistry;
+        this.configName = configName;
+        this.beanName = beanName;
+        this.maxSources = maxSources;
+    }
+
+    /**
+     * Возвращает значение заголовка задержки сообщения.
+     *
+     * @param record сообщение
+     * @return значение заголовка или null, если заголовка нет
+     */
+    static byte[] headerValue(ConsumerRecord<?,?> record) {
+        Header header = record.headers().lastHeader(LatencyHeader.NAME);
+        return header != null && LatencyHeader.isValid(header.value()) ? header.value() : null;
+    }
+
+    /**
+     * Записывает ожидание сообщения в брокере и в полученном poll.
+     *
+     * @param topic топик сообщения
+     * @param headerValue значение заголовка задержки
+     * @param pollTime время poll, в котором получено сообщение
+     * @param startNanos время вызова компонента в единицах {@link System#nanoTime()}
+     * @return таймеры этапов
+     */
+    Timer[] recordDelivery(String topic, byte[] headerValue, long[] pollTime, long startNanos) {
+        Timer[] timers = timers(topic, LatencyHeader.source(headerValue));
+        if (pollTime[1] != 0) {
+            timers[0].record(Math.max(0, pollTime[0] - LatencyHeader.sentMicros(headerValue)), TimeUnit.MICROSECONDS);
+            timers[1].record(Math.max(0, startNanos - pollTime[1]), TimeUnit.NANOSECONDS);
+        }
+        return timers;
+    }
+
+    /**
+     * Записывает время обработки.
+     *
+     * @param timers таймеры этапов
+     * @param processingNanos время обработки в наносекундах
+     */
+    static void recordProcessing(Timer[] timers, long processingNanos) {
+        timers[2].record(processingNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer[] timers(String topic, String source) {
+        Map<String, Timer[]> sourceTimersMap = topicSourceTimersMap.computeIfAbsent(topic, t -> new ConcurrentHashMap<>());
+        Timer[] timers = sourceTimersMap.get(source);
+        if (timers != null) {
+            return timers;
+        }
+
+        synchronized (sourceTimersMap) {
+            String tag = sourceTimersMap.containsKey(source) || sourceTimersMap.size() < maxSources ? source : OTHER_SOURCE;
+            return sourceTimersMap.computeIfAbsent(tag, s -> new Timer[] {
+                    timer(topic, tag, "broker"),
+                    timer(topic, tag, "queue"),
+                    timer(topic, tag, "processing")
+            });
+        }
+    }
+
+    private Timer timer(String topic, String source, String phase) {
+        return Timer.builder(KafkaMetrics.CONSUMER_LATENCY)
+                .description("End-to-end latency of records from the producer send to the end of consumer processing")
+                .tag(KafkaMetrics.TAG_CONFIG, configName)
+                .tag(KafkaMetrics.TAG_BEAN, beanName)
+                .tag(KafkaMetrics.TAG_TOPIC, topic)
+                .tag(KafkaMetrics.TAG_SOURCE, source)
+                .tag(KafkaMetrics.TAG_PHASE, phase)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,64 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+
+/**
+ * Слушатель контейнера, записывающий задержку доставки сообщений пакета с заголовком {@code LatencyHeader}.
+ * Ожидание в брокере и в полученном poll записывается для каждого сообщения, а время обработки пакета -
+ * для каждого сообщения с заголовком.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ *
+ * @see ru.astondevs.kafka.autoconfigure.KafkaMetrics#CONSUMER_LATENCY
+ */
+@RequiredArgsConstructor
+class LatencyTrackingBatchMessageListener<K,V> implements BatchMessageListener<K,V> {
+
+    /**
+     * Слушатель, которому передается обработка пакетов сообщений.
+     */
+    private final BatchMessageListener<K,V> delegate;
+
+    /**
+     * Таймеры задержки доставки.
+     */
+    private final LatencyTracker tracker;
+
+    @Override
+    public void onMessage(@NonNull List<ConsumerRecord<K,V>> data) {
+        long startNanos = System.nanoTime();
+        long[] pollTime = LatencyPollInterceptor.pollTime();
+        Timer[][] recordTimers = null;
+        for (int i = 0; i < data.size(); i++) {
+            ConsumerRecord<K,V> record = data.get(i);
+            byte[] headerValue = LatencyTracker.headerValue(record);
+            if (headerValue != null) {
+                if (recordTimers == null) {
+                    recordTimers = new Timer[data.size()][];
+                }
+                recordTimers[i] = tracker.recordDelivery(record.topic(), headerValue, pollTime, startNanos);
+            }
+        }
+
+        delegate.onMessage(data);
+
+        if (recordTimers != null) {
+            long processingNanos = System.nanoTime() - startNanos;
+            for (Timer[] timers : recordTimers) {
+                if (timers != null) {
+                    LatencyTracker.recordProcessing(timers, processingNanos);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.lang.NonNull;
+
+/**
+ * Слушатель контейнера, записывающий задержку доставки сообщений с заголовком {@code LatencyHeader}
+ * по этапам: ожидание в брокере, ожидание в полученном poll и обработка потребителем.
+ * Сообщения без заголовка передаются потребителю без измерений.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ *
+ * @see ru.astondevs.kafka.autoconfigure.KafkaMetrics#CONSUMER_LATENCY
+ */
+@RequiredArgsConstructor
+class LatencyTrackingMessageListener<K,V> implements MessageListener<K,V> {
+
+    /**
+     * Слушатель, которому передается обработка сообщений.
+     */
+    private final MessageListener<K,V> delegate;
+
+    /**
+     * Таймеры задержки доставки.
+     */
+    private final LatencyTracker tracker;
+
+    @Override
+    public void onMessage(@NonNull ConsumerRecord<K,V> data) {
+        byte[] headerValue = LatencyTracker.headerValue(data);
+        if (headerValue == null) {
+            delegate.onMessage(data);
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        Timer[] timers = tracker.recordDelivery(data.topic(), headerValue, LatencyPollInterceptor.pollTime(), startNanos);
+        delegate.onMessage(data);
+        LatencyTracker.recordProcessing(timers, System.nanoTime() - startNanos);
+    }
+}
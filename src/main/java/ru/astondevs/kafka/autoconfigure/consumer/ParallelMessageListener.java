@@ -0,0 +1,366 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Слушатель контейнера, передающий обработку каждого сообщения из потока контейнера в отдельный
+ * (по возможности виртуальный) поток.
+ * <p>
+ * Сообщения с одинаковым ключом обрабатываются строго по порядку. Смещение сообщения подтверждается
+ * только после завершения обработки всех сообщений партиции с меньшими смещениями. Если количество
+ * неподтвержденных сообщений партиции достигает {@code max-in-flight}, партиция приостанавливается
+ * и возобновляется, когда их количество опускается до половины этой границы.
+ * Граница мягкая: сообщения уже полученного poll доставляются и после приостановки партиции.
+ * <p>
+ * Ошибка обработки сообщения передается {@link CommonErrorHandler} контейнера через
+ * {@link CommonErrorHandler#handleOne}, поэтому повторы и публикация в топик повторов или DLT выполняются
+ * так же, как в потоке контейнера. Пока обработчик требует повторить обработку, сообщение не подтверждается.
+ * Обработчик вызывается без потребителя, так как потребитель не допускает обращения из других потоков.
+ * Если обработчик ошибок не задан, используется {@link DefaultErrorHandler}, как и в потоке контейнера.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ *
+ * @see ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties.ConsumerProperties.ExecutionMode#VIRTUAL_THREADS
+ */
+@Slf4j
+class ParallelMessageListener<K,V> implements AcknowledgingConsumerAwareMessageListener<K,V>, ConsumerSeekAware, AutoCloseable {
+
+    /**
+     * Интервал повторной проверки количества необработанных сообщений при ожидании их обработки.
+     */
+    private static final long AWAIT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /**
+     * Слушатель, которому передается обработка сообщений.
+     */
+    private final MessageListener<K,V> delegate;
+
+    /**
+     * Контейнер потребителя, партиции которого приостанавливаются.
+     */
+    private final MessageListenerContainer container;
+
+    /**
+     * Обработчик ошибок контейнера или {@link DefaultErrorHandler}, если он не задан.
+     */
+    private final CommonErrorHandler errorHandler;
+
+    /**
+     * Исполнитель обработки сообщений.
+     */
+    private final SimpleAsyncTaskExecutor executor;
+
+    /**
+     * Максимальное количество неподтвержденных сообщений одной партиции.
+     */
+    private final int maxInFlight;
+
+    /**
+     * Карта ключа и последней запланированной обработки сообщения с этим ключом.
+     */
+    private final Map<Object, CompletableFuture<Void>> keyTailMap = new ConcurrentHashMap<>();
+
+    /**
+     * Карта партиции и состояния ее неподтвержденных сообщений.
+     */
+    private final Map<TopicPartition, PartitionTracker> partitionTrackerMap = new ConcurrentHashMap<>();
+
+    /**
+     * Количество переданных в обработку и еще не обработанных сообщений.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Признак передачи времени poll потока контейнера в поток обработки для измерения задержки доставки.
+     */
+    private final boolean propagatePollTime;
+
+    ParallelMessageListener(MessageListener<K,V> delegate, MessageListenerContainer container, @Nullable CommonErrorHandler errorHandler,
+                            String threadNamePrefix, int maxInFlight) {
+        this(delegate, container, errorHandler, threadNamePrefix, maxInFlight, false);
+    }
+
+    ParallelMessageListener(MessageListener<K,V> delegate, MessageListenerContainer container, @Nullable CommonErrorHandler errorHandler,
+                            String threadNamePrefix, int maxInFlight, boolean propagatePollTime) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Consumer's max in flight must be positive");
+        }
+
+        this.delegate = delegate;
+        this.container = container;
+        this.errorHandler = errorHandler != null ? errorHandler : new DefaultErrorHandler();
+        this.maxInFlight = maxInFlight;
+        this.propagatePollTime = propagatePollTime;
+        this.executor = createExecutor(threadNamePrefix);
+    }
+
+    @Override
+    public void onMessage(@NonNull ConsumerRecord<K,V> data, @Nullable Acknowledgment acknowledgment, @Nullable Consumer<?,?> consumer) {
+        TopicPartition topicPartition = new TopicPartition(data.topic(), data.partition());
+        PartitionTracker tracker = partitionTrackerMap.computeIfAbsent(topicPartition, PartitionTracker::new);
+        if (tracker.dispatched(data.offset(), acknowledgment)) {
+            container.pausePartition(topicPartition);
+        }
+
+        inFlight.incrementAndGet();
+        long[] pollTime = propagatePollTime ? LatencyPollInterceptor.pollTime() : null;
+        Runnable task = () -> process(data, tracker, pollTime);
+        Object key = orderingKey(data.key());
+        if (key == null) {
+            CompletableFuture.runAsync(task, executor);
+            return;
+        }
+
+        CompletableFuture<Void> tail = keyTailMap.compute(key, (k, previous) -> previous == null
+                ? CompletableFuture.runAsync(task, executor)
+                : previous.thenRunAsync(task, executor));
+        tail.whenComplete((result, throwable) -> keyTailMap.remove(key, tail));
+    }
+
+    @Override
+    public void onPartitionsRevoked(@NonNull Collection<TopicPartition> partitions) {
+        for (TopicPartition topicPartition : partitions) {
+            PartitionTracker tracker = partitionTrackerMap.remove(topicPartition);
+            if (tracker != null && tracker.revoke()) {
+                container.resumePartition(topicPartition);
+            }
+        }
+    }
+
+    /**
+     * Ожидает завершения обработки всех переданных в обработку сообщений, но не дольше указанного времени.
+     *
+     * @param timeout максимальное время ожидания
+     * @return количество сообщений, обработка которых не завершилась
+     * @throws InterruptedException если поток прерван во время ожидания
+     */
+    int awaitCompletion(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (inFlight) {
+            long remaining;
+            while (inFlight.get() > 0 && (remaining = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(inFlight, Math.min(remaining, AWAIT_INTERVAL_NANOS));
+            }
+        }
+
+        return inFlight.get();
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * Обрабатывает сообщение и подтверждает смещения, обработка до которых завершена.
+     *
+     * @param data сообщение
+     * @param tracker состояние партиции сообщения
+     * @param pollTime время poll, в котором получено сообщение, или null, если оно не передается
+     */
+    private void process(ConsumerRecord<K,V> data, PartitionTracker tracker, long[] pollTime) {
+        if (pollTime != null) {
+            LatencyPollInterceptor.setPollTime(pollTime);
+        }
+
+        boolean processed = invoke(data);
+        try {
+            if (processed && tracker.completed(data.offset())) {
+                container.resumePartition(tracker.topicPartition);
+            }
+        } finally {
+            if (inFlight.decrementAndGet() == 0) {
+                synchronized (inFlight) {
+                    inFlight.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Передает сообщение слушателю, а ошибку обработки - обработчику ошибок контейнера.
+     * Обработка повторяется, пока обработчик ошибок не сообщит о восстановлении сообщения
+     * или пока контейнер не будет остановлен.
+     *
+     * @param data сообщение
+     * @return true, если сообщение обработано или восстановлено и его смещение можно подтвердить
+     */
+    private boolean invoke(ConsumerRecord<K,V> data) {
+        while (true) {
+            try {
+                delegate.onMessage(data);
+                return true;
+            } catch (Exception e) {
+                try {
+                    if (errorHandler.handleOne(e, data, null, container)) {
+                        return true;
+                    }
+                } catch (Exception handlerException) {
+                    log.error("Error handler failed for record {}-{}@{}", data.topic(), data.partition(), data.offset(), handlerException);
+                    return true;
+                }
+
+                if (!container.isRunning()) {
+                    log.warn("Container is stopped before record {}-{}@{} is recovered, its offset is not committed",
+                            data.topic(), data.partition(), data.offset());
+                    errorHandler.clearThreadState();
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает ключ, по которому упорядочивается обработка сообщений.
+     * Массивы байт сравниваются по содержимому.
+     *
+     * @param key ключ сообщения
+     * @return ключ упорядочивания или null, если сообщение не требует упорядочивания
+     */
+    private static Object orderingKey(Object key) {
+        return key instanceof byte[] bytes ? ByteBuffer.wrap(bytes) : key;
+    }
+
+    /**
+     * Создает исполнителя на виртуальных потоках, а если они не поддерживаются, то на платформенных.
+     *
+     * @param threadNamePrefix префикс названия потоков
+     * @return исполнитель обработки сообщений
+     */
+    private static SimpleAsyncTaskExecutor createExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        try {
+            executor.setVirtualThreads(true);
+        } catch (UnsupportedOperationException e) {
+            log.warn("Virtual threads are not supported by the current JVM, records of {} are processed on platform threads", threadNamePrefix);
+        }
+
+        return executor;
+    }
+
+    /**
+     * Состояние неподтвержденных сообщений партиции.
+     */
+    final class PartitionTracker {
+
+        /**
+         * Партиция.
+         */
+        private final TopicPartition topicPartition;
+
+        /**
+         * Карта смещения и подтверждения неподтвержденных сообщений.
+         */
+        private final TreeMap<Long, Acknowledgment> pending = new TreeMap<>();
+
+        /**
+         * Смещения обработанных, но еще не подтвержденных сообщений.
+         */
+        private final Set<Long> completed = new HashSet<>();
+
+        /**
+         * Признак приостановки партиции.
+         */
+        private boolean paused;
+
+        /**
+         * Признак отзыва партиции у потребителя.
+         */
+        private boolean revoked;
+
+        PartitionTracker(TopicPartition topicPartition) {
+            this.topicPartition = topicPartition;
+        }
+
+        /**
+         * Регистрирует переданное в обработку сообщение.
+         *
+         * @param offset смещение сообщения
+         * @param acknowledgment подтверждение сообщения
+         * @return true, если партицию нужно приостановить
+         */
+        synchronized boolean dispatched(long offset, Acknowledgment acknowledgment) {
+            pending.put(offset, acknowledgment);
+            if (!paused && pending.size() >= maxInFlight) {
+                paused = true;
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Отмечает сообщение обработанным и подтверждает наибольшее смещение,
+         * до которого обработаны все сообщения партиции.
+         *
+         * @param offset смещение сообщения
+         * @return true, если партицию нужно возобновить
+         */
+        boolean completed(long offset) {
+            Acknowledgment acknowledgment = null;
+            boolean resume = false;
+            synchronized (this) {
+                if (revoked) {
+                    return false;
+                }
+
+                completed.add(offset);
+                while (!pending.isEmpty() && completed.remove(pending.firstKey())) {
+                    acknowledgment = pending.pollFirstEntry().getValue();
+                }
+
+                if (paused && pending.size() <= maxInFlight / 2) {
+                    paused = false;
+                    resume = true;
+                }
+            }
+
+            if (acknowledgment != null) {
+                acknowledgment.acknowledge();
+            }
+
+            return resume;
+        }
+
+        /**
+         * Отмечает партицию отозванной, после чего подтверждения ее сообщений больше не выполняются.
+         *
+         * @return true, если партиция была приостановлена
+         */
+        synchronized boolean revoke() {
+            revoked = true;
+            pending.clear();
+            completed.clear();
+            return paused;
+        }
+    }
+}
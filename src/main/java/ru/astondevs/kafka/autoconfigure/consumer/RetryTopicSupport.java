@@ -0,0 +1,149 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.SeekUtils;
+import org.springframework.kafka.retrytopic.RetryTopicHeaders;
+import org.springframework.util.backoff.FixedBackOff;
+import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Топики и обработчик ошибок неблокирующей повторной обработки сообщений конфигурации потребителя.
+ * <p>
+ * Сообщение основного топика, обработка которого завершилась исключением, публикуется в первый топик повторов,
+ * сообщение топика повторов - в следующий, а сообщение последнего топика повторов - в топик недоставленных сообщений.
+ * В заголовке {@value RetryTopicHeaders#DEFAULT_HEADER_BACKOFF_TIMESTAMP} передается время, раньше которого
+ * сообщение не обрабатывается; до этого времени партиция топика повторов приостанавливается.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see KafkaConfigurationProperties.ConsumerProperties.Retry
+ */
+final class RetryTopicSupport {
+
+    /**
+     * Основной топик потребителя.
+     */
+    private final String topic;
+
+    /**
+     * Топики повторов в порядке попыток.
+     */
+    private final List<String> retryTopics;
+
+    /**
+     * Задержки попыток в порядке топиков повторов.
+     */
+    private final List<Duration> delays;
+
+    /**
+     * Топик недоставленных сообщений.
+     */
+    private final String dltTopic;
+
+    RetryTopicSupport(String topic, KafkaConfigurationProperties.ConsumerProperties.Retry retry) {
+        if (retry.getAttempts() < 0) {
+            throw new IllegalArgumentException("Consumer's retry attempts must not be negative");
+        }
+
+        this.topic = topic;
+        this.retryTopics = new ArrayList<>(retry.getAttempts());
+        this.delays = new ArrayList<>(retry.getAttempts());
+        this.dltTopic = retry.getDltTopic() != null ? retry.getDltTopic() : topic + "-dlt";
+
+        double delay = retry.getDelay().toMillis();
+        for (int i = 0; i < retry.getAttempts(); i++) {
+            long attemptDelay = (long) delay;
+            if (retry.getMaxDelay() != null) {
+                attemptDelay = Math.min(attemptDelay, retry.getMaxDelay().toMillis());
+            }
+            retryTopics.add(topic + retry.getTopicSuffix() + "-" + i);
+            delays.add(Duration.ofMillis(attemptDelay));
+            delay *= retry.getMultiplier();
+        }
+    }
+
+    /**
+     * Возвращает топики повторов в порядке попыток.
+     *
+     * @return топики повторов
+     */
+    List<String> getRetryTopics() {
+        return retryTopics;
+    }
+
+    /**
+     * Создает обработчик ошибок контейнеров основного топика и топиков повторов.
+     * Обработчик не повторяет обработку на месте, а сразу публикует сообщение в следующий топик.
+     *
+     * @param kafkaOperations операции продюсера, которым публикуются сообщения
+     * @return обработчик ошибок
+     */
+    DefaultErrorHandler createErrorHandler(KafkaOperations<?,?> kafkaOperations) {
+        DeadLetterPublishingRecoverer publishingRecoverer = new DeadLetterPublishingRecoverer(kafkaOperations, this::resolveDestination);
+        publishingRecoverer.setHeadersFunction(this::backoffHeaders);
+
+        ConsumerRecordRecoverer recoverer = (record, exception) -> {
+            if (SeekUtils.isBackoffException(exception)) {
+                throw (RuntimeException) exception;
+            }
+            publishingRecoverer.accept(record, exception);
+        };
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, new FixedBackOff(0L, 0L));
+        errorHandler.setCommitRecovered(true);
+        return errorHandler;
+    }
+
+    /**
+     * Определяет топик, в который публикуется сообщение после неудачной обработки.
+     *
+     * @param record сообщение
+     * @param exception причина ошибки
+     * @return партиция назначения, номер партиции выбирается продюсером
+     */
+    private TopicPartition resolveDestination(ConsumerRecord<?,?> record, Exception exception) {
+        int next = nextAttempt(record.topic());
+        return new TopicPartition(next < retryTopics.size() ? retryTopics.get(next) : dltTopic, -1);
+    }
+
+    /**
+     * Возвращает заголовок со временем, раньше которого сообщение не обрабатывается в следующем топике повторов.
+     *
+     * @param record сообщение
+     * @param exception причина ошибки
+     * @return заголовки публикуемого сообщения
+     */
+    private Headers backoffHeaders(ConsumerRecord<?,?> record, Exception exception) {
+        RecordHeaders headers = new RecordHeaders();
+        int next = nextAttempt(record.topic());
+        if (next < retryTopics.size()) {
+            long dueTimestamp = System.currentTimeMillis() + delays.get(next).toMillis();
+            headers.add(RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP, BigInteger.valueOf(dueTimestamp).toByteArray());
+        }
+
+        return headers;
+    }
+
+    /**
+     * Возвращает номер попытки, выполняемой после неудачной обработки сообщения указанного топика.
+     *
+     * @param recordTopic топик сообщения
+     * @return номер следующей попытки, равный количеству попыток, если следующим является топик недоставленных сообщений
+     */
+    private int nextAttempt(String recordTopic) {
+        return topic.equals(recordTopic) ? 0 : retryTopics.indexOf(recordTopic) + 1;
+    }
+}
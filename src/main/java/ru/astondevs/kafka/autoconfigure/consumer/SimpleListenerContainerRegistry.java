@@ -0,0 +1,72 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import org.springframework.kafka.listener.ListenerContainerRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.lang.NonNull;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ListenerContainerRegistry} контейнеров, созданных пост процессором потребителей.
+ * Используется для приостановки партиций топиков повторов до наступления времени обработки сообщения.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see RetryTopicSupport
+ */
+final class SimpleListenerContainerRegistry implements ListenerContainerRegistry {
+
+    /**
+     * Карта идентификатора и контейнера.
+     */
+    private final Map<String, MessageListenerContainer> containers = new ConcurrentHashMap<>();
+
+    /**
+     * Регистрирует контейнер под указанным идентификатором.
+     *
+     * @param id идентификатор контейнера
+     * @param container контейнер
+     */
+    void register(String id, MessageListenerContainer container) {
+        containers.put(id, container);
+    }
+
+    @Override
+    public MessageListenerContainer getListenerContainer(@NonNull String id) {
+        return containers.get(id);
+    }
+
+    @Override
+    public MessageListenerContainer getUnregisteredListenerContainer(@NonNull String id) {
+        return null;
+    }
+
+    @Override
+    @NonNull
+    public Set<String> getListenerContainerIds() {
+        return Set.copyOf(containers.keySet());
+    }
+
+    @Override
+    @NonNull
+    public Collection<MessageListenerContainer> getListenerContainers() {
+        return Set.copyOf(containers.values());
+    }
+
+    @Override
+    @NonNull
+    public Collection<MessageListenerContainer> getAllListenerContainers() {
+        return getListenerContainers();
+    }
+
+    /**
+     * Удаляет все контейнеры из реестра.
+     */
+    void clear() {
+        containers.clear();
+    }
+}
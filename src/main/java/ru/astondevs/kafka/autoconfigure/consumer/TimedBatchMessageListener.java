@@ -0,0 +1,39 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+
+/**
+ * Слушатель контейнера, измеряющий время вызова пакетного потребителя для каждого пакета сообщений.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ *
+ * @see ru.astondevs.kafka.autoconfigure.KafkaMetrics#CONSUMER_PROCESS
+ */
+@RequiredArgsConstructor
+class TimedBatchMessageListener<K,V> implements BatchMessageListener<K,V> {
+
+    /**
+     * Слушатель, которому передается обработка пакетов сообщений.
+     */
+    private final BatchMessageListener<K,V> delegate;
+
+    /**
+     * Таймер времени вызова потребителя.
+     */
+    private final Timer timer;
+
+    @Override
+    public void onMessage(@NonNull List<ConsumerRecord<K,V>> data) {
+        timer.record(() -> delegate.onMessage(data));
+    }
+}
@@ -0,0 +1,37 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.lang.NonNull;
+
+/**
+ * Слушатель контейнера, измеряющий время вызова потребителя для каждого сообщения.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ *
+ * @see ru.astondevs.kafka.autoconfigure.KafkaMetrics#CONSUMER_PROCESS
+ */
+@RequiredArgsConstructor
+class TimedMessageListener<K,V> implements MessageListener<K,V> {
+
+    /**
+     * Слушатель, которому передается обработка сообщений.
+     */
+    private final MessageListener<K,V> delegate;
+
+    /**
+     * Таймер времени вызова потребителя.
+     */
+    private final Timer timer;
+
+    @Override
+    public void onMessage(@NonNull ConsumerRecord<K,V> data) {
+        timer.record(() -> delegate.onMessage(data));
+    }
+}
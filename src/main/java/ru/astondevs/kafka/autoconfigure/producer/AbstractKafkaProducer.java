@@ -1,9 +1,20 @@
 package ru.astondevs.kafka.autoconfigure.producer;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Базовый тип для всех продюсеров в kafka.
@@ -24,6 +35,39 @@ public abstract class AbstractKafkaProducer<K,V> {
      */
     private KafkaTemplate<K,V> kafkaTemplate;
 
+    /**
+     * Таймер времени от вызова отправки до подтверждения брокером.
+     * Не установлен, если в контексте нет реестра метрик.
+     */
+    private Timer sendTimer;
+
+    /**
+     * Таймер времени пакетной отправки от вызова {@code sendAll} до подтверждения всех сообщений.
+     * Не установлен, если в контексте нет реестра метрик.
+     */
+    private Timer bulkSendTimer;
+
+    /**
+     * Максимальное количество неподтвержденных сообщений пакетной отправки.
+     */
+    private int bulkMaxInFlight = 10_000;
+
+    /**
+     * Обработчик ошибок отправок без {@link CompletableFuture}.
+     * До связывания с конфигурацией ошибки только записываются в журнал.
+     */
+    private SendErrorReporter errorReporter = new SendErrorReporter(getClass().getSimpleName(), null, null);
+
+    /**
+     * Буфер объединения отправок {@code sendAndForget(key, value)}. Не установлен, если объединение выключено.
+     */
+    private CoalescingBuffer<K,V> coalescingBuffer;
+
+    /**
+     * Отправка {@code sendAndForget} с журналом переполнения. Не установлена, если журнал выключен.
+     */
+    private SpillingSender<K,V> spillingSender;
+
     /**
      * Отправляет указанное значение в Kafka.
      *
@@ -31,7 +75,8 @@ public abstract class AbstractKafkaProducer<K,V> {
      * @return {@link CompletableFuture} для {@link SendResult}
      */
     public CompletableFuture<SendResult<K,V>> send(V value) {
-        return kafkaTemplate.sendDefault(value);
+        long startTime = System.nanoTime();
+        return recordSendTime(kafkaTemplate.sendDefault(value), startTime);
     }
 
     /**
@@ -42,7 +87,9 @@ public abstract class AbstractKafkaProducer<K,V> {
      * @return {@link CompletableFuture} для {@link SendResult}
      */
     public CompletableFuture<SendResult<K,V>> send(K key, V value) {
-        return kafkaTemplate.sendDefault(key, value);
+        flushCoalesced(key);
+        long startTime = System.nanoTime();
+        return recordSendTime(kafkaTemplate.sendDefault(key, value), startTime);
     }
 
     /**
@@ -54,7 +101,9 @@ public abstract class AbstractKafkaProducer<K,V> {
      * @return {@link CompletableFuture} для {@link SendResult}
      */
     public CompletableFuture<SendResult<K,V>> send(Integer partition, K key, V value) {
-        return kafkaTemplate.sendDefault(partition, key, value);
+        flushCoalesced(key);
+        long startTime = System.nanoTime();
+        return recordSendTime(kafkaTemplate.sendDefault(partition, key, value), startTime);
     }
 
     /**
@@ -67,7 +116,285 @@ public abstract class AbstractKafkaProducer<K,V> {
      * @return {@link CompletableFuture} для {@link SendResult}
      */
     public CompletableFuture<SendResult<K,V>> send(Integer partition, Long timestamp, K key, V value) {
-        return kafkaTemplate.sendDefault(partition, timestamp, key, value);
+        flushCoalesced(key);
+        long startTime = System.nanoTime();
+        return recordSendTime(kafkaTemplate.sendDefault(partition, timestamp, key, value), startTime);
+    }
+
+    /**
+     * Отправляет значение в топик по умолчанию напрямую в kafka продюсера без ожидания результата.
+     * Не создает {@link CompletableFuture} и {@link SendResult}; ошибки отправки учитываются в счетчике
+     * {@code kafka.starter.producer.errors} и передаются {@link ProducerErrorHandler}.
+     *
+     * @param value значение
+     */
+    public void sendAndForget(V value) {
+        doSendAndForget(null, value);
+    }
+
+    /**
+     * Отправляет ключ и значение в топик по умолчанию напрямую в kafka продюсера без ожидания результата.
+     * Если в конфигурации задан {@code coalescing.window}, значение с ключом помещается в буфер объединения
+     * и отправляется по окончании окна, только если до этого не было заменено более новым значением того же ключа.
+     * Если задан {@code spill.directory}, при заполненном буфере kafka продюсера сообщение записывается в журнал на диске.
+     *
+     * @param key ключ
+     * @param value значение
+     * @see #sendAndForget(Object)
+     */
+    public void sendAndForget(K key, V value) {
+        CoalescingBuffer<K,V> buffer = coalescingBuffer;
+        if (buffer != null && key != null) {
+            buffer.offer(key, value);
+            return;
+        }
+
+        doSendAndForget(key, value);
+    }
+
+    /**
+     * Отправляет неотправленное значение ключа из буфера объединения перед прямой отправкой ключа,
+     * чтобы более старое значение не было отправлено после более нового.
+     *
+     * @param key ключ или null
+     */
+    private void flushCoalesced(K key) {
+        CoalescingBuffer<K,V> buffer = coalescingBuffer;
+        if (buffer != null) {
+            buffer.flushKey(key);
+        }
+    }
+
+    /**
+     * Отправляет сообщение без ожидания результата напрямую или через журнал переполнения, если он включен.
+     *
+     * @param key ключ или null
+     * @param value значение
+     */
+    private void doSendAndForget(K key, V value) {
+        SpillingSender<K,V> sender = spillingSender;
+        if (sender != null) {
+            sender.send(key, value);
+            return;
+        }
+
+        doSend(new ProducerRecord<>(kafkaTemplate.getDefaultTopic(), key, value), errorReporter);
+    }
+
+    /**
+     * Отправляет значение в топик по умолчанию напрямую в kafka продюсера.
+     * По завершении отправки вызывается переданный {@link Callback}, который может переиспользоваться между вызовами.
+     * {@link Callback} передается продюсеру без обертки, поэтому отправка не создает дополнительных объектов.
+     * Чтобы ошибки отправки также учитывались в счетчике и передавались {@link ProducerErrorHandler},
+     * передайте {@link Callback}, один раз полученный из {@link #reportingCallback(Callback)}.
+     *
+     * @param value значение
+     * @param callback {@link Callback}, вызываемый в потоке kafka продюсера
+     */
+    public void send(V value, Callback callback) {
+        doSend(new ProducerRecord<>(kafkaTemplate.getDefaultTopic(), value), callback);
+    }
+
+    /**
+     * Отправляет ключ и значение в топик по умолчанию напрямую в kafka продюсера.
+     *
+     * @param key ключ
+     * @param value значение
+     * @param callback {@link Callback}, вызываемый в потоке kafka продюсера
+     * @see #send(Object, Callback)
+     */
+    public void send(K key, V value, Callback callback) {
+        flushCoalesced(key);
+        doSend(new ProducerRecord<>(kafkaTemplate.getDefaultTopic(), key, value), callback);
+    }
+
+    /**
+     * Возвращает {@link Callback}, который учитывает ошибку отправки в счетчике, передает ее
+     * {@link ProducerErrorHandler} и затем вызывает указанный {@link Callback}.
+     * Результат предназначен для переиспользования между вызовами {@link #send(Object, Callback)}.
+     *
+     * @param callback {@link Callback} вызывающей стороны
+     * @return {@link Callback} с учетом ошибок
+     */
+    public Callback reportingCallback(Callback callback) {
+        return errorReporter.wrap(callback);
+    }
+
+    /**
+     * Отправляет сообщение общим kafka продюсером конфигурации.
+     * Синхронные ошибки отправки передаются в {@link Callback}, а не вызывающей стороне.
+     *
+     * @param record сообщение
+     * @param callback {@link Callback} завершения отправки
+     */
+    private void doSend(ProducerRecord<K,V> record, Callback callback) {
+        try {
+            if (kafkaTemplate.isTransactional()) {
+                kafkaTemplate.execute(producer -> producer.send(record, callback));
+            } else {
+                kafkaTemplate.getProducerFactory().createProducer().send(record, callback);
+            }
+        } catch (RuntimeException e) {
+            callback.onCompletion(null, e);
+        }
+    }
+
+    /**
+     * Отправляет все значения в топик по умолчанию без ключа.
+     *
+     * @param values значения
+     * @return {@link CompletableFuture} для {@link BulkSendResult}
+     */
+    public CompletableFuture<BulkSendResult> sendAll(Collection<? extends V> values) {
+        return sendAll(values, false);
+    }
+
+    /**
+     * Отправляет все значения в топик по умолчанию без ключа.
+     *
+     * @param values значения
+     * @param flush нужно ли дождаться отправки буфера продюсера после передачи всех сообщений
+     * @return {@link CompletableFuture} для {@link BulkSendResult}
+     */
+    public CompletableFuture<BulkSendResult> sendAll(Collection<? extends V> values, boolean flush) {
+        String topic = kafkaTemplate.getDefaultTopic();
+        return sendAll(values.stream().map(value -> new ProducerRecord<K,V>(topic, value)), flush);
+    }
+
+    /**
+     * Отправляет все пары ключ и значение в топик по умолчанию.
+     *
+     * @param values карта ключа и значения
+     * @return {@link CompletableFuture} для {@link BulkSendResult}
+     */
+    public CompletableFuture<BulkSendResult> sendAll(Map<? extends K, ? extends V> values) {
+        return sendAll(values, false);
+    }
+
+    /**
+     * Отправляет все пары ключ и значение в топик по умолчанию.
+     *
+     * @param values карта ключа и значения
+     * @param flush нужно ли дождаться отправки буфера продюсера после передачи всех сообщений
+     * @return {@link CompletableFuture} для {@link BulkSendResult}
+     */
+    public CompletableFuture<BulkSendResult> sendAll(Map<? extends K, ? extends V> values, boolean flush) {
+        String topic = kafkaTemplate.getDefaultTopic();
+        return sendAll(values.entrySet().stream().map(entry -> new ProducerRecord<K,V>(topic, entry.getKey(), entry.getValue())), flush);
+    }
+
+    /**
+     * Отправляет все сообщения потока.
+     *
+     * @param records сообщения
+     * @return {@link CompletableFuture} для {@link BulkSendResult}
+     */
+    public CompletableFuture<BulkSendResult> sendAll(Stream<ProducerRecord<K,V>> records) {
+        return sendAll(records, false);
+    }
+
+    /**
+     * Отправляет все сообщения потока напрямую в kafka продюсера, не создавая {@link CompletableFuture} на каждое сообщение.
+     * Вызов блокируется, пока количество неподтвержденных сообщений достигает {@code bulk-max-in-flight}.
+     * Ошибки отправки не прерывают отправку остальных сообщений и возвращаются в {@link BulkSendResult}
+     * с порядковым номером сообщения в потоке.
+     *
+     * @param records сообщения
+     * @param flush нужно ли дождаться отправки буфера продюсера после передачи всех сообщений
+     * @return {@link CompletableFuture} для {@link BulkSendResult}, завершаемый после подтверждения всех сообщений
+     */
+    public CompletableFuture<BulkSendResult> sendAll(Stream<ProducerRecord<K,V>> records, boolean flush) {
+        BulkSendOperation<K,V> operation = new BulkSendOperation<>(bulkMaxInFlight);
+        long startTime = System.nanoTime();
+        CompletableFuture<BulkSendResult> result;
+        try (records) {
+            Iterator<ProducerRecord<K,V>> iterator = coalescingBuffer != null
+                    ? records.peek(record -> flushCoalesced(record.key())).iterator()
+                    : records.iterator();
+            result = kafkaTemplate.execute(producer -> operation.execute(producer, iterator, flush));
+        }
+
+        Timer timer = bulkSendTimer;
+        if (timer != null) {
+            result.whenComplete((bulkResult, throwable) -> timer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS));
+        }
+
+        return result;
+    }
+
+    /**
+     * Выполняет действие в транзакции kafka продюсера.
+     * Все отправки этого продюсера внутри действия фиксируются вместе при его успешном завершении
+     * и отменяются, если действие выбрасывает исключение. Если транзакция уже начата, например транзакционным
+     * потребителем, действие выполняется в ней.
+     * Доступно только для конфигураций с {@code transaction-id-prefix}.
+     *
+     * @param action действие, получающее этот продюсер
+     * @param <T> тип результата действия
+     * @return результат действия
+     */
+    public <T> T executeInTransaction(Function<? super AbstractKafkaProducer<K,V>, T> action) {
+        if (kafkaTemplate.inTransaction()) {
+            return action.apply(this);
+        }
+
+        return kafkaTemplate.executeInTransaction(operations -> action.apply(this));
+    }
+
+    /**
+     * Отправляет все значения в топик по умолчанию в одной транзакции.
+     *
+     * @param values значения
+     * @return результат отправки
+     * @see #sendAllInTransaction(Map)
+     */
+    public BulkSendResult sendAllInTransaction(Collection<? extends V> values) {
+        return executeInTransaction(producer -> requireSuccessful(producer.sendAll(values, true).join()));
+    }
+
+    /**
+     * Отправляет все пары ключ и значение в топик по умолчанию в одной транзакции.
+     * Если отправка хотя бы одного сообщения завершилась ошибкой, транзакция отменяется
+     * и выбрасывается {@link KafkaException} с причиной первой ошибки.
+     *
+     * @param values карта ключа и значения
+     * @return результат отправки
+     */
+    public BulkSendResult sendAllInTransaction(Map<? extends K, ? extends V> values) {
+        return executeInTransaction(producer -> requireSuccessful(producer.sendAll(values, true).join()));
+    }
+
+    /**
+     * Проверяет, что пакетная отправка завершилась без ошибок.
+     *
+     * @param result результат пакетной отправки
+     * @return переданный результат
+     * @throws KafkaException если отправка хотя бы одного сообщения завершилась ошибкой
+     */
+    private static BulkSendResult requireSuccessful(BulkSendResult result) {
+        if (!result.isSuccessful()) {
+            BulkSendResult.Failure failure = result.failures().get(0);
+            throw new KafkaException("Failed to send " + result.failures().size() + " of " + result.count()
+                    + " records in transaction, first failed record index " + failure.index(), failure.exception());
+        }
+
+        return result;
+    }
+
+    /**
+     * Записывает время отправки в таймер по завершении отправки.
+     *
+     * @param future результат отправки
+     * @param startTime время вызова отправки в наносекундах
+     * @return переданный результат отправки
+     */
+    private CompletableFuture<SendResult<K,V>> recordSendTime(CompletableFuture<SendResult<K,V>> future, long startTime) {
+        Timer timer = sendTimer;
+        if (timer != null) {
+            future.whenComplete((result, throwable) -> timer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS));
+        }
+
+        return future;
     }
 
     /**
@@ -85,4 +412,51 @@ public abstract class AbstractKafkaProducer<K,V> {
     public final void setKafkaTemplate(KafkaTemplate<K,V> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
     }
+
+    /**
+     * Устанавливает таймер времени отправки для этого продюсера.
+     */
+    public final void setSendTimer(Timer sendTimer) {
+        this.sendTimer = sendTimer;
+    }
+
+    /**
+     * Устанавливает таймер времени пакетной отправки для этого продюсера.
+     */
+    public final void setBulkSendTimer(Timer bulkSendTimer) {
+        this.bulkSendTimer = bulkSendTimer;
+    }
+
+    /**
+     * Устанавливает максимальное количество неподтвержденных сообщений пакетной отправки.
+     */
+    public final void setBulkMaxInFlight(int bulkMaxInFlight) {
+        this.bulkMaxInFlight = bulkMaxInFlight;
+    }
+
+    /**
+     * Устанавливает обработчик ошибок отправок без {@link CompletableFuture} для этого продюсера.
+     */
+    final void setErrorReporter(SendErrorReporter errorReporter) {
+        this.errorReporter = errorReporter;
+    }
+
+    /**
+     * Включает объединение отправок {@code sendAndForget(key, value)} для этого продюсера.
+     *
+     * @param maxKeys количество ключей, при котором буфер отправляется до окончания окна
+     * @param collapsedCounter счетчик замененных значений, может быть null
+     * @return буфер объединения, который должен отправляться по расписанию
+     */
+    final CoalescingBuffer<K,V> enableCoalescing(int maxKeys, Counter collapsedCounter) {
+        coalescingBuffer = new CoalescingBuffer<>(this::doSendAndForget, maxKeys, collapsedCounter);
+        return coalescingBuffer;
+    }
+
+    /**
+     * Устанавливает отправку {@code sendAndForget} с журналом переполнения конфигурации этого продюсера.
+     */
+    final void setSpillingSender(SpillingSender<K,V> spillingSender) {
+        this.spillingSender = spillingSender;
+    }
 }
@@ -0,0 +1,106 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+
+/**
+ * Базовый тип для реактивных продюсеров в kafka.
+ * Отправка не блокирует вызывающий поток, результат возвращается через {@link Mono} и {@link Flux}.
+ * Для использования необходима зависимость {@code io.projectreactor.kafka:reactor-kafka}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ *
+ * @see KafkaProducer
+ * @see KafkaSenderRegistry
+ */
+public abstract class AbstractReactiveKafkaProducer<K,V> {
+
+    /**
+     * Общий {@link KafkaSender} конфигурации продюсера.
+     */
+    private KafkaSender<K,V> kafkaSender;
+
+    /**
+     * Топик конфигурации продюсера.
+     */
+    private String topic;
+
+    /**
+     * Отправляет указанное значение в топик конфигурации.
+     *
+     * @param value значение
+     * @return {@link Mono} для {@link SenderResult}
+     */
+    public Mono<SenderResult<Void>> send(V value) {
+        return send(null, value);
+    }
+
+    /**
+     * Отправляет ключ и значение в топик конфигурации.
+     *
+     * @param key ключ
+     * @param value значение
+     * @return {@link Mono} для {@link SenderResult}
+     */
+    public Mono<SenderResult<Void>> send(K key, V value) {
+        return kafkaSender.send(Mono.just(SenderRecord.<K,V,Void>create(new ProducerRecord<>(topic, key, value), null))).next();
+    }
+
+    /**
+     * Отправляет все значения потока в топик конфигурации без ключа.
+     * Количество неподтвержденных сообщений ограничено {@code maxInFlight} отправителя, запрос следующих значений
+     * выполняется по мере подтверждения отправленных.
+     *
+     * @param values значения
+     * @return {@link Flux} результатов в порядке подтверждения, коррелирующим значением является само значение
+     */
+    public Flux<SenderResult<V>> sendAll(Publisher<? extends V> values) {
+        return kafkaSender.send(Flux.from(values).map(value -> SenderRecord.<K,V,V>create(new ProducerRecord<>(topic, value), value)));
+    }
+
+    /**
+     * Отправляет все сообщения потока.
+     *
+     * @param records сообщения с коррелирующими значениями
+     * @param <T> тип коррелирующего значения
+     * @return {@link Flux} результатов в порядке подтверждения
+     */
+    public <T> Flux<SenderResult<T>> sendRecords(Publisher<? extends SenderRecord<K,V,T>> records) {
+        return kafkaSender.send(records);
+    }
+
+    /**
+     * Возвращает топик конфигурации этого продюсера.
+     *
+     * @return топик конфигурации
+     */
+    public final String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Возвращает KafkaSender этого продюсера.
+     *
+     * @return KafkaSender этого продюсера
+     */
+    public final KafkaSender<K,V> getKafkaSender() {
+        return kafkaSender;
+    }
+
+    /**
+     * Устанавливает KafkaSender и топик для этого продюсера.
+     */
+    public final void setKafkaSender(KafkaSender<K,V> kafkaSender, String topic) {
+        this.kafkaSender = kafkaSender;
+        this.topic = topic;
+    }
+}
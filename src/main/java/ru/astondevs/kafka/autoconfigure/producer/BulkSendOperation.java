@@ -0,0 +1,141 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.kafka.KafkaException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пакетная отправка сообщений напрямую в kafka продюсера с ограничением количества неподтвержденных сообщений.
+ * Вместо {@link CompletableFuture} на каждое сообщение формируется один агрегированный результат.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ *
+ * @see BulkSendResult
+ */
+final class BulkSendOperation<K,V> {
+
+    /**
+     * Ограничение количества неподтвержденных сообщений.
+     */
+    private final Semaphore inFlight;
+
+    /**
+     * Количество незавершенных отправок, увеличенное на единицу до окончания перебора сообщений.
+     */
+    private final AtomicInteger pending = new AtomicInteger(1);
+
+    /**
+     * Ошибки отправки.
+     */
+    private final List<BulkSendResult.Failure> failures = new ArrayList<>();
+
+    /**
+     * Агрегированный результат.
+     */
+    private final CompletableFuture<BulkSendResult> result = new CompletableFuture<>();
+
+    /**
+     * Количество переданных для отправки сообщений.
+     */
+    private int count;
+
+    BulkSendOperation(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Producer's bulk max in flight must be positive");
+        }
+
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Отправляет все сообщения указанным продюсером.
+     * Метод блокируется, пока количество неподтвержденных сообщений достигает границы.
+     *
+     * @param producer kafka продюсер
+     * @param records сообщения
+     * @param flush нужно ли дождаться отправки буфера продюсера после передачи всех сообщений
+     * @return агрегированный результат, завершаемый после подтверждения всех сообщений
+     */
+    CompletableFuture<BulkSendResult> execute(Producer<K,V> producer, Iterator<ProducerRecord<K,V>> records, boolean flush) {
+        while (records.hasNext()) {
+            ProducerRecord<K,V> record = records.next();
+            int index = count++;
+            acquire();
+            pending.incrementAndGet();
+            try {
+                producer.send(record, new IndexedCallback(index));
+            } catch (RuntimeException e) {
+                completed(index, e);
+            }
+        }
+
+        if (flush) {
+            producer.flush();
+        }
+
+        release();
+        return result;
+    }
+
+    private void acquire() {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while waiting for bulk send capacity", e);
+        }
+    }
+
+    private void completed(int index, Exception exception) {
+        if (exception != null) {
+            synchronized (failures) {
+                failures.add(new BulkSendResult.Failure(index, exception));
+            }
+        }
+
+        inFlight.release();
+        release();
+    }
+
+    private void release() {
+        if (pending.decrementAndGet() == 0) {
+            List<BulkSendResult.Failure> sortedFailures;
+            synchronized (failures) {
+                sortedFailures = new ArrayList<>(failures);
+            }
+            sortedFailures.sort(Comparator.comparingInt(BulkSendResult.Failure::index));
+            result.complete(new BulkSendResult(count, List.copyOf(sortedFailures)));
+        }
+    }
+
+    /**
+     * Обработчик завершения отправки сообщения с известным порядковым номером.
+     */
+    private final class IndexedCallback implements Callback {
+
+        private final int index;
+
+        private IndexedCallback(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void onCompletion(RecordMetadata metadata, Exception exception) {
+            completed(index, exception);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import java.util.List;
+
+/**
+ * Агрегированный результат пакетной отправки.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param count количество переданных для отправки сообщений
+ * @param failures ошибки отправки, упорядоченные по порядковому номеру сообщения
+ *
+ * @see AbstractKafkaProducer#sendAll(java.util.Collection)
+ */
+public record BulkSendResult(int count, List<Failure> failures) {
+
+    /**
+     * Возвращает количество успешно отправленных сообщений.
+     *
+     * @return количество успешно отправленных сообщений
+     */
+    public int successCount() {
+        return count - failures.size();
+    }
+
+    /**
+     * Возвращает true, если все сообщения отправлены успешно.
+     *
+     * @return true, если ошибок отправки нет
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * Ошибка отправки сообщения.
+     *
+     * @param index порядковый номер сообщения в переданной коллекции или потоке
+     * @param exception причина ошибки
+     */
+    public record Failure(int index, Exception exception) {
+    }
+}
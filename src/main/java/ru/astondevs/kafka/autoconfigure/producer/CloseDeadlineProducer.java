@@ -0,0 +1,113 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Kafka продюсер, время закрытия которого не превышает оставшегося до срока остановки времени.
+ * <p>
+ * {@link org.springframework.kafka.core.DefaultKafkaProducerFactory} закрывает продюсеры с временем,
+ * заданным в целых секундах, поэтому остаток {@code shutdown-timeout} передается продюсеру через эту обертку
+ * с точностью до миллисекунд.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ */
+@RequiredArgsConstructor
+class CloseDeadlineProducer<K,V> implements Producer<K,V> {
+
+    /**
+     * Kafka продюсер, которому передаются вызовы.
+     */
+    private final Producer<K,V> delegate;
+
+    /**
+     * Поставщик оставшегося до срока остановки времени или null, если остановка не начата.
+     */
+    private final Supplier<Duration> remainingCloseTimeout;
+
+    @Override
+    public void initTransactions() {
+        delegate.initTransactions();
+    }
+
+    @Override
+    public void beginTransaction() {
+        delegate.beginTransaction();
+    }
+
+    @Override
+    @Deprecated
+    public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, String consumerGroupId) {
+        delegate.sendOffsetsToTransaction(offsets, consumerGroupId);
+    }
+
+    @Override
+    public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata) {
+        delegate.sendOffsetsToTransaction(offsets, groupMetadata);
+    }
+
+    @Override
+    public void commitTransaction() {
+        delegate.commitTransaction();
+    }
+
+    @Override
+    public void abortTransaction() {
+        delegate.abortTransaction();
+    }
+
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<K,V> record) {
+        return delegate.send(record);
+    }
+
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<K,V> record, Callback callback) {
+        return delegate.send(record, callback);
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
+    @Override
+    public List<PartitionInfo> partitionsFor(String topic) {
+        return delegate.partitionsFor(topic);
+    }
+
+    @Override
+    public Map<MetricName, ? extends Metric> metrics() {
+        return delegate.metrics();
+    }
+
+    @Override
+    public void close() {
+        close(Duration.ofMillis(Long.MAX_VALUE));
+    }
+
+    @Override
+    public void close(Duration timeout) {
+        Duration remaining = remainingCloseTimeout.get();
+        delegate.close(remaining != null && remaining.compareTo(timeout) < 0 ? remaining : timeout);
+    }
+}
@@ -0,0 +1,163 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Буфер, хранящий только последнее значение каждого ключа до окончания окна объединения.
+ * Значения, замененные более новыми значениями того же ключа до отправки, не отправляются.
+ * Буфер отправляется по расписанию {@code coalescing.window} и при достижении {@code coalescing.max-keys} ключей.
+ * Отправки буфера выполняются последовательно, поэтому порядок значений одного ключа сохраняется.
+ * Перед прямой отправкой ключа продюсером его неотправленное значение отправляется из буфера ({@link #flushKey(Object)}),
+ * поэтому более старое значение из буфера не попадает в топик после более нового.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ *
+ * @see ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties.ProducerProperties.Coalescing
+ */
+final class CoalescingBuffer<K,V> implements Runnable {
+
+    /**
+     * Заменитель null значения (tombstone), которое не может храниться в {@link ConcurrentHashMap}.
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    /**
+     * Карта ключа и последнего значения.
+     */
+    private final Map<K, Object> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Отправка ключа и значения.
+     */
+    private final BiConsumer<K,V> sink;
+
+    /**
+     * Количество ключей, при котором буфер отправляется до окончания окна.
+     */
+    private final int maxKeys;
+
+    /**
+     * Счетчик значений, замененных более новыми. Может быть null.
+     */
+    private final Counter collapsedCounter;
+
+    /**
+     * Блокировка закрытия: добавления выполняются под блокировкой чтения, закрытие - под блокировкой записи,
+     * поэтому значение не попадает в буфер после его последней отправки.
+     */
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    /**
+     * Признак закрытия буфера, после которого значения отправляются сразу.
+     */
+    private boolean closed;
+
+    /**
+     * Признак выполняющейся отправки буфера.
+     */
+    private volatile boolean flushing;
+
+    CoalescingBuffer(BiConsumer<K,V> sink, int maxKeys, Counter collapsedCounter) {
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("Producer's coalescing max keys must be positive");
+        }
+
+        this.sink = sink;
+        this.maxKeys = maxKeys;
+        this.collapsedCounter = collapsedCounter;
+    }
+
+    /**
+     * Добавляет значение ключа, заменяя неотправленное значение этого ключа.
+     *
+     * @param key ключ
+     * @param value значение
+     */
+    void offer(K key, V value) {
+        boolean full;
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                sink.accept(key, value);
+                return;
+            }
+
+            if (pending.put(key, value == null ? NULL_VALUE : value) != null && collapsedCounter != null) {
+                collapsedCounter.increment();
+            }
+            full = pending.size() >= maxKeys;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+
+        if (full) {
+            flush();
+        }
+    }
+
+    @Override
+    public void run() {
+        flush();
+    }
+
+    /**
+     * Отправляет последние значения всех ключей буфера.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized void flush() {
+        flushing = true;
+        try {
+            for (K key : pending.keySet()) {
+                Object value = pending.remove(key);
+                if (value != null) {
+                    sink.accept(key, value == NULL_VALUE ? null : (V) value);
+                }
+            }
+        } finally {
+            flushing = false;
+        }
+    }
+
+    /**
+     * Отправляет неотправленное значение ключа, если оно есть. Если выполняется отправка буфера,
+     * ожидает ее завершения, чтобы значение ключа, уже извлеченное из буфера, было передано продюсеру раньше.
+     *
+     * @param key ключ или null
+     */
+    @SuppressWarnings("unchecked")
+    void flushKey(K key) {
+        if (key == null || (!flushing && !pending.containsKey(key))) {
+            return;
+        }
+
+        synchronized (this) {
+            Object value = pending.remove(key);
+            if (value != null) {
+                sink.accept(key, value == NULL_VALUE ? null : (V) value);
+            }
+        }
+    }
+
+    /**
+     * Отправляет буфер и переключает буфер на немедленную отправку последующих значений.
+     */
+    void close() {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+            flush();
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+    }
+}
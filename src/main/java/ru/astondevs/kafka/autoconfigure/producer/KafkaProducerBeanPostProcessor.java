@@ -1,83 +1,167 @@
 package ru.astondevs.kafka.autoconfigure.producer;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
-import org.apache.kafka.clients.producer.ProducerConfig;
-import org.apache.kafka.common.serialization.Serializer;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanNotOfRequiredTypeException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.lang.NonNull;
 import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
+import ru.astondevs.kafka.autoconfigure.KafkaMetrics;
+import ru.astondevs.kafka.autoconfigure.aot.KafkaAnnotatedBeans;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * Пост процессор компонента, который связывает продюсера с соответствующим KafkaTemplate.
+ * Пост процессор компонента, который связывает продюсера с общим KafkaTemplate его конфигурации.
  *
  * @author Ivan Andrianov
  * @author Maksim Yaskov
  *
  * @see KafkaProducer
  * @see AbstractKafkaProducer
+ * @see ProducerFactoryRegistry
  */
 @RequiredArgsConstructor
 public class KafkaProducerBeanPostProcessor implements BeanPostProcessor {
 
+    /**
+     * Карта названия конфигурации и обработчика ошибок отправок без результата.
+     */
+    private final Map<String, SendErrorReporter> configErrorReporterMap = new HashMap<>();
+
     /**
      * Фабрика компонентов.
      */
     private final ConfigurableListableBeanFactory beanFactory;
 
     /**
-     * Свойства конфигураций.
+     * Реестр фабрик продюсеров.
      */
-    private final KafkaConfigurationProperties properties;
+    private final ProducerFactoryRegistry producerFactoryRegistry;
+
+    /**
+     * Поставщик реестра метрик.
+     */
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    /**
+     * Поставщик обработчика ошибок отправки.
+     */
+    private final ObjectProvider<ProducerErrorHandler> errorHandlerProvider;
+
+    /**
+     * Поставщик реестра реактивных отправителей. Пуст, если reactor-kafka отсутствует.
+     */
+    private final ObjectProvider<KafkaSenderRegistry> kafkaSenderRegistryProvider;
 
     @Override
     public Object postProcessBeforeInitialization(@NonNull Object bean, @NonNull String beanName) throws BeansException {
-        KafkaProducer kafkaProducer = beanFactory.findAnnotationOnBean(beanName, KafkaProducer.class);
-        if (kafkaProducer == null) {
+        String configName = findConfigName(beanName);
+        if (configName == null) {
             return bean;
         }
 
         if (!(bean instanceof AbstractKafkaProducer<?,?> producer)) {
+            KafkaSenderRegistry kafkaSenderRegistry = kafkaSenderRegistryProvider.getIfAvailable();
+            if (kafkaSenderRegistry != null && kafkaSenderRegistry.configureProducer(bean, configName)) {
+                return bean;
+            }
             throw new BeanNotOfRequiredTypeException(beanName, AbstractKafkaProducer.class, bean.getClass());
         }
 
-        String configName = kafkaProducer.config();
-        KafkaConfigurationProperties.ProducerProperties properties = this.properties.getProducers().get(configName);
-        if (properties == null) {
-            throw new IllegalArgumentException("Producer's properties is null");
+        KafkaTemplate kafkaTemplate = producerFactoryRegistry.getKafkaTemplate(configName);
+        producer.setKafkaTemplate(kafkaTemplate);
+        producer.setBulkMaxInFlight(producerFactoryRegistry.getProperties(configName).getBulkMaxInFlight());
+
+        SendErrorReporter errorReporter = configErrorReporterMap.computeIfAbsent(configName, this::createErrorReporter);
+        producer.setErrorReporter(errorReporter);
+        if (producerFactoryRegistry.getProperties(configName).getSpill().getDirectory() != null) {
+            setSpillingSender(producer, producerFactoryRegistry.getSpillingSender(configName, errorReporter));
         }
 
-        ProducerFactoryBuilder producerFactoryBuilder = ProducerFactoryBuilder.of(properties);
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        KafkaConfigurationProperties.ProducerProperties.Coalescing coalescing = producerFactoryRegistry.getProperties(configName).getCoalescing();
+        if (coalescing.getWindow() != null) {
+            if (kafkaTemplate.isTransactional()) {
+                throw new IllegalArgumentException("Coalescing is not supported for transactional producer");
+            }
+
+            Counter collapsedCounter = meterRegistry == null ? null : Counter.builder(KafkaMetrics.PRODUCER_COALESCED)
+                    .description("Values replaced by a newer value of the same key before the coalescing window closed")
+                    .tag(KafkaMetrics.TAG_CONFIG, configName)
+                    .tag(KafkaMetrics.TAG_BEAN, beanName)
+                    .register(meterRegistry);
+            producerFactoryRegistry.registerCoalescingBuffer(producer.enableCoalescing(coalescing.getMaxKeys(), collapsedCounter), coalescing.getWindow());
+        }
 
-        boolean configureKeySerializer = true;
-        String keySerializerBeanName = properties.getKeySerializerBeanName();
-        if (keySerializerBeanName != null) {
-            Serializer<?> keySerializer = (Serializer<?>) beanFactory.getBean(keySerializerBeanName);
-            producerFactoryBuilder.keySerializer(keySerializer);
-            producerFactoryBuilder.config(config -> config.remove(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG));
-            configureKeySerializer = false;
+        if (meterRegistry != null) {
+            producer.setSendTimer(Timer.builder(KafkaMetrics.PRODUCER_SEND)
+                    .description("Time from send call to broker acknowledgment")
+                    .tag(KafkaMetrics.TAG_CONFIG, configName)
+                    .tag(KafkaMetrics.TAG_BEAN, beanName)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            producer.setBulkSendTimer(Timer.builder(KafkaMetrics.PRODUCER_SEND_BULK)
+                    .description("Time from sendAll call to acknowledgment of all records")
+                    .tag(KafkaMetrics.TAG_CONFIG, configName)
+                    .tag(KafkaMetrics.TAG_BEAN, beanName)
+                    .register(meterRegistry));
         }
 
-        boolean configureValueSerializer = true;
-        String valueSerializerBeanName = properties.getValueSerializerBeanName();
-        if (valueSerializerBeanName != null) {
-            Serializer<?> valueSerializer = (Serializer<?>) beanFactory.getBean(valueSerializerBeanName);
-            producerFactoryBuilder.valueSerializer(valueSerializer);
-            producerFactoryBuilder.config(config -> config.remove(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG));
-            configureValueSerializer = false;
+        return bean;
+    }
+
+    /**
+     * Возвращает название конфигурации {@link KafkaProducer} компонента из индекса AOT обработки,
+     * а для компонентов вне индекса - из аннотации.
+     *
+     * @param beanName название компонента
+     * @return название конфигурации или null, если компонент не является продюсером
+     */
+    private String findConfigName(String beanName) {
+        KafkaAnnotatedBeans annotatedBeans = KafkaAnnotatedBeans.of(beanFactory);
+        if (annotatedBeans != null && beanFactory.containsBeanDefinition(beanName)) {
+            return annotatedBeans.getProducers().get(beanName);
         }
 
-        producerFactoryBuilder.configureSerializers(configureKeySerializer || configureValueSerializer);
+        KafkaProducer kafkaProducer = beanFactory.findAnnotationOnBean(beanName, KafkaProducer.class);
+        return kafkaProducer != null ? kafkaProducer.config() : null;
+    }
 
-        ProducerFactory<?,?> producerFactory = producerFactoryBuilder.build();
-        KafkaTemplate kafkaTemplate = new KafkaTemplate<>(producerFactory);
-        kafkaTemplate.setDefaultTopic(properties.getTopic());
-        producer.setKafkaTemplate(kafkaTemplate);
+    /**
+     * Устанавливает продюсеру отправку с журналом переполнения его конфигурации.
+     *
+     * @param producer продюсер
+     * @param spillingSender отправка с журналом переполнения конфигурации продюсера
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> void setSpillingSender(AbstractKafkaProducer<K, V> producer, SpillingSender<?, ?> spillingSender) {
+        producer.setSpillingSender((SpillingSender<K, V>) spillingSender);
+    }
 
-        return bean;
+    /**
+     * Создает общий обработчик ошибок отправок без результата для указанной конфигурации.
+     *
+     * @param configName название конфигурации продюсера
+     * @return обработчик ошибок конфигурации
+     */
+    private SendErrorReporter createErrorReporter(String configName) {
+        Counter errorCounter = null;
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            errorCounter = Counter.builder(KafkaMetrics.PRODUCER_ERRORS)
+                    .description("Failed sends without a returned result")
+                    .tag(KafkaMetrics.TAG_CONFIG, configName)
+                    .register(meterRegistry);
+        }
+
+        return new SendErrorReporter(configName, errorCounter, errorHandlerProvider.getIfAvailable());
     }
 }
@@ -0,0 +1,115 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.ProducerFactory;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Реестр {@link KafkaSender}, общих для всех реактивных продюсеров одной конфигурации.
+ * Свойства и серелизаторы берутся из {@link ProducerFactory} конфигурации. Закрывает отправителей при уничтожении контекста.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see AbstractReactiveKafkaProducer
+ */
+@RequiredArgsConstructor
+public class KafkaSenderRegistry implements DisposableBean {
+
+    /**
+     * Карта названия конфигурации и KafkaSender.
+     */
+    private final Map<String, KafkaSender<?,?>> configKafkaSenderMap = new HashMap<>();
+
+    /**
+     * Реестр фабрик продюсеров.
+     */
+    private final ProducerFactoryRegistry producerFactoryRegistry;
+
+    @Override
+    public void destroy() {
+        configKafkaSenderMap.values().forEach(KafkaSender::close);
+        configKafkaSenderMap.clear();
+    }
+
+    /**
+     * Связывает компонент с {@link KafkaSender} его конфигурации, если компонент является реактивным продюсером.
+     *
+     * @param bean компонент
+     * @param configName название конфигурации продюсера
+     * @return true, если компонент является {@link AbstractReactiveKafkaProducer}
+     */
+    public boolean configureProducer(Object bean, String configName) {
+        if (!(bean instanceof AbstractReactiveKafkaProducer<?,?> producer)) {
+            return false;
+        }
+
+        setKafkaSender(producer, getKafkaSender(configName), producerFactoryRegistry.getProperties(configName).getTopic());
+        return true;
+    }
+
+    /**
+     * Передает продюсеру общий {@link KafkaSender} конфигурации. Типы ключа и значения отправителя определяются
+     * серелизаторами конфигурации, поэтому приведение не проверяется.
+     *
+     * @param producer реактивный продюсер
+     * @param kafkaSender отправитель конфигурации
+     * @param topic топик конфигурации
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> void setKafkaSender(AbstractReactiveKafkaProducer<K, V> producer, KafkaSender<?, ?> kafkaSender, String topic) {
+        producer.setKafkaSender((KafkaSender<K, V>) kafkaSender, topic);
+    }
+
+    /**
+     * Возвращает {@link KafkaSender} указанной конфигурации, создавая его при первом обращении.
+     *
+     * @param configName название конфигурации продюсера
+     * @return общий {@link KafkaSender} конфигурации
+     */
+    public KafkaSender<?,?> getKafkaSender(String configName) {
+        KafkaSender<?,?> kafkaSender = configKafkaSenderMap.get(configName);
+        if (kafkaSender == null) {
+            if (producerFactoryRegistry.getProperties(configName).getTransactionIdPrefix() != null) {
+                throw new IllegalArgumentException("Reactive producer does not support transactional producer config");
+            }
+
+            kafkaSender = KafkaSender.create(createSenderOptions(producerFactoryRegistry.getProducerFactory(configName)));
+            configKafkaSenderMap.put(configName, kafkaSender);
+        }
+
+        return kafkaSender;
+    }
+
+    /**
+     * Создает {@link SenderOptions} со свойствами и серелизаторами указанной фабрики продюсеров.
+     *
+     * @param producerFactory фабрика продюсеров конфигурации
+     * @return свойства отправителя
+     */
+    @SuppressWarnings("unchecked")
+    private static SenderOptions<Object, Object> createSenderOptions(ProducerFactory<?,?> producerFactory) {
+        SenderOptions<Object, Object> senderOptions = SenderOptions.create(producerFactory.getConfigurationProperties());
+
+        Supplier<? extends Serializer<?>> keySerializerSupplier = producerFactory.getKeySerializerSupplier();
+        Serializer<?> keySerializer = keySerializerSupplier == null ? null : keySerializerSupplier.get();
+        if (keySerializer != null) {
+            senderOptions = senderOptions.withKeySerializer((Serializer<Object>) keySerializer);
+        }
+
+        Supplier<? extends Serializer<?>> valueSerializerSupplier = producerFactory.getValueSerializerSupplier();
+        Serializer<?> valueSerializer = valueSerializerSupplier == null ? null : valueSerializerSupplier.get();
+        if (valueSerializer != null) {
+            senderOptions = senderOptions.withValueSerializer((Serializer<Object>) valueSerializer);
+        }
+
+        return senderOptions;
+    }
+}
@@ -0,0 +1,54 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import ru.astondevs.kafka.autoconfigure.LatencyHeader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Перехватчик kafka продюсера, добавляющий в каждое сообщение заголовок {@link LatencyHeader} со временем отправки.
+ * Заголовок, полученный сообщением ранее (например, при пересылке в топик повторов), заменяется.
+ * Добавляется в конфигурацию продюсера с {@code latency-tracking}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+public class LatencyHeaderInterceptor implements ProducerInterceptor<Object, Object> {
+
+    /**
+     * Свойство kafka продюсера с названием конфигурации продюсера.
+     */
+    public static final String SOURCE_CONFIG = "ru.astondevs.kafka.latency.source";
+
+    /**
+     * Название конфигурации продюсера в UTF-8.
+     */
+    private byte[] source = new byte[0];
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object source = configs.get(SOURCE_CONFIG);
+        if (source != null) {
+            this.source = source.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    public ProducerRecord<Object, Object> onSend(ProducerRecord<Object, Object> record) {
+        record.headers()
+                .remove(LatencyHeader.NAME)
+                .add(LatencyHeader.NAME, LatencyHeader.encode(LatencyHeader.currentTimeMicros(), source));
+        return record;
+    }
+
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
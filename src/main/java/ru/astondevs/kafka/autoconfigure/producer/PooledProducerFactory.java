@@ -0,0 +1,97 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.util.Assert;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@link ProducerFactory}, распределяющая отправку по фиксированному пулу продюсеров.
+ * Каждый вызывающий поток при первом вызове {@link #createProducer()} закрепляется за следующей по кругу
+ * фабрикой пула и далее всегда получает ее продюсера. Поэтому сообщения одного потока с одинаковым ключом
+ * отправляются одним продюсером в одну партицию и сохраняют порядок, как и с одним общим продюсером.
+ * Порядок сообщений с одинаковым ключом из разных потоков не сохраняется ни с пулом, ни без него.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ */
+class PooledProducerFactory<K,V> implements ProducerFactory<K,V>, DisposableBean {
+
+    /**
+     * Фабрики продюсеров пула.
+     */
+    private final List<ProducerFactory<K,V>> delegates;
+
+    /**
+     * Счетчик для закрепления следующего потока за фабрикой.
+     */
+    private final AtomicInteger counter = new AtomicInteger();
+
+    /**
+     * Индекс фабрики, за которой закреплен поток.
+     */
+    private final ThreadLocal<Integer> threadDelegateIndex;
+
+    PooledProducerFactory(List<ProducerFactory<K,V>> delegates) {
+        Assert.notEmpty(delegates, "Producer pool must not be empty");
+        this.delegates = List.copyOf(delegates);
+        this.threadDelegateIndex = ThreadLocal.withInitial(() -> Math.floorMod(counter.getAndIncrement(), this.delegates.size()));
+    }
+
+    /**
+     * Возвращает фабрики продюсеров пула.
+     *
+     * @return фабрики продюсеров пула
+     */
+    List<ProducerFactory<K,V>> getDelegates() {
+        return delegates;
+    }
+
+    @Override
+    public Producer<K,V> createProducer() {
+        return delegates.get(threadDelegateIndex.get()).createProducer();
+    }
+
+    @Override
+    public void reset() {
+        delegates.forEach(ProducerFactory::reset);
+    }
+
+    @Override
+    public Map<String, Object> getConfigurationProperties() {
+        return delegates.get(0).getConfigurationProperties();
+    }
+
+    @Override
+    public Supplier<Serializer<K>> getKeySerializerSupplier() {
+        return delegates.get(0).getKeySerializerSupplier();
+    }
+
+    @Override
+    public Supplier<Serializer<V>> getValueSerializerSupplier() {
+        return delegates.get(0).getValueSerializerSupplier();
+    }
+
+    @Override
+    public void addListener(Listener<K,V> listener) {
+        delegates.forEach(delegate -> delegate.addListener(listener));
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (ProducerFactory<K,V> delegate : delegates) {
+            if (delegate instanceof DisposableBean disposable) {
+                disposable.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+/**
+ * Обработчик ошибок отправки, не возвращающих результат вызывающей стороне.
+ * Компонент этого типа в контексте получает ошибки отправок {@code sendAndForget} и отправок с {@code Callback}.
+ * Вызывается в потоке kafka продюсера, поэтому не должен выполнять блокирующие операции.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see AbstractKafkaProducer#sendAndForget(Object)
+ */
+@FunctionalInterface
+public interface ProducerErrorHandler {
+
+    /**
+     * Обрабатывает ошибку отправки.
+     *
+     * @param configName название конфигурации продюсера
+     * @param exception причина ошибки
+     */
+    void handle(String configName, Exception exception);
+}
@@ -8,7 +8,10 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.StringUtils;
 import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
@@ -46,6 +49,42 @@ final class ProducerFactoryBuilder {
             builder.property(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, properties.getValueSerializer());
         }
 
+        if (properties.getAcks() != null) {
+            builder.property(ProducerConfig.ACKS_CONFIG, properties.getAcks());
+        }
+
+        if (properties.getCompressionType() != null) {
+            builder.property(ProducerConfig.COMPRESSION_TYPE_CONFIG, properties.getCompressionType().name);
+        }
+
+        if (properties.getEnableIdempotence() != null) {
+            builder.property(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, properties.getEnableIdempotence());
+        }
+
+        if (properties.getBufferMemory() != null) {
+            builder.property(ProducerConfig.BUFFER_MEMORY_CONFIG, properties.getBufferMemory().toBytes());
+        }
+
+        if (properties.getMaxInFlightRequestsPerConnection() != null) {
+            builder.property(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, properties.getMaxInFlightRequestsPerConnection());
+        }
+
+        if (properties.getMaxRequestSize() != null) {
+            builder.property(ProducerConfig.MAX_REQUEST_SIZE_CONFIG, (int) properties.getMaxRequestSize().toBytes());
+        }
+
+        if (properties.getDeliveryTimeout() != null) {
+            builder.property(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, (int) properties.getDeliveryTimeout().toMillis());
+        }
+
+        if (properties.getTransactionIdPrefix() != null) {
+            builder.property(ProducerConfig.TRANSACTIONAL_ID_CONFIG, properties.getTransactionIdPrefix());
+        }
+
+        if (properties.getProperties() != null) {
+            builder.config(config -> config.putAll(properties.getProperties()));
+        }
+
         return builder;
     }
 
@@ -106,6 +145,29 @@ final class ProducerFactoryBuilder {
         return this;
     }
 
+    /**
+     * Добавляет перехватчик kafka продюсера к перехватчикам, уже указанным в конфигурации.
+     *
+     * @param interceptorClass класс перехватчика
+     * @return этот построитель
+     * @see ProducerConfig#INTERCEPTOR_CLASSES_CONFIG
+     */
+    public ProducerFactoryBuilder interceptor(Class<?> interceptorClass) {
+        Object current = config.get(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG);
+        List<Object> interceptors = new ArrayList<>();
+        if (current instanceof Collection<?> values) {
+            interceptors.addAll(values);
+        } else if (current instanceof String value) {
+            interceptors.addAll(StringUtils.commaDelimitedListToSet(StringUtils.trimAllWhitespace(value)));
+        } else if (current != null) {
+            interceptors.add(current);
+        }
+
+        interceptors.add(interceptorClass);
+        config.put(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, interceptors);
+        return this;
+    }
+
     /**
      * Устанавливает серелизатор ключа.
      *
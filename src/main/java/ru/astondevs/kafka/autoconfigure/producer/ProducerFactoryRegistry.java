@@ -0,0 +1,568 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
+import ru.astondevs.kafka.autoconfigure.KafkaMetrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Реестр {@link ProducerFactory} и {@link KafkaTemplate}, общих для всех продюсеров одной конфигурации.
+ * При остановке контекста параллельно отправляет буферы созданных продюсеров, а при уничтожении контекста
+ * закрывает их. Отправка и закрытие ограничены {@code shutdown-timeout}, сообщения, не отправленные к этому сроку,
+ * отбрасываются с записью в журнал. Буферы объединения отправок продюсеров отправляются по расписанию
+ * и при остановке контекста, журналы переполнения отправляются по расписанию и закрываются при остановке контекста.
+ * Если включен {@code producer-warm-up}, при запуске контекста создает продюсеров используемых конфигураций
+ * и загружает метаданные их топиков параллельно.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see KafkaProducerBeanPostProcessor
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ProducerFactoryRegistry implements SmartLifecycle, DisposableBean {
+
+    /**
+     * Фаза запуска продюсеров, предшествующая запуску контейнеров потребителей.
+     */
+    public static final int PHASE = Integer.MAX_VALUE - 200;
+
+    /**
+     * Группа метрик kafka продюсера.
+     */
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+
+    /**
+     * Метрика общего объема буфера продюсера.
+     */
+    private static final String BUFFER_TOTAL_BYTES = "buffer-total-bytes";
+
+    /**
+     * Метрика свободного объема буфера продюсера.
+     */
+    private static final String BUFFER_AVAILABLE_BYTES = "buffer-available-bytes";
+
+    /**
+     * Карта названия конфигурации и ProducerFactory.
+     */
+    private final Map<String, ProducerFactory<?,?>> configProducerFactoryMap = new HashMap<>();
+
+    /**
+     * Карта названия конфигурации и KafkaTemplate.
+     */
+    private final Map<String, KafkaTemplate<?,?>> configKafkaTemplateMap = new HashMap<>();
+
+    /**
+     * Карта названия конфигурации и KafkaTransactionManager.
+     */
+    private final Map<String, KafkaTransactionManager<?,?>> configTransactionManagerMap = new HashMap<>();
+
+    /**
+     * Карта названия конфигурации и созданных, еще не закрытых kafka продюсеров ее фабрики.
+     */
+    private final Map<String, Set<Producer<?,?>>> configActiveProducersMap = new HashMap<>();
+
+    /**
+     * Буферы объединения отправок продюсеров.
+     */
+    private final List<CoalescingBuffer<?,?>> coalescingBuffers = new ArrayList<>();
+
+    /**
+     * Карта названия конфигурации и отправки с журналом переполнения.
+     */
+    private final Map<String, SpillingSender<?,?>> configSpillingSenderMap = new HashMap<>();
+
+    /**
+     * Планировщик отправки буферов объединения и сброса журналов переполнения на диск. Создается при первом обращении.
+     */
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    /**
+     * Планировщик отправки сообщений журналов переполнения с потоком на каждый журнал. Отправка журнала
+     * ожидает подтверждения брокера и не должна задерживать другие фоновые задачи. Создается при первом обращении.
+     */
+    private ThreadPoolTaskScheduler spillScheduler;
+
+    /**
+     * Фабрика компонентов.
+     */
+    private final ConfigurableListableBeanFactory beanFactory;
+
+    /**
+     * Свойства конфигураций.
+     */
+    private final KafkaConfigurationProperties properties;
+
+    /**
+     * Поставщик реестра метрик.
+     */
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    /**
+     * Признак запуска.
+     */
+    private volatile boolean running;
+
+    /**
+     * Срок закрытия продюсеров в единицах {@link System#nanoTime()} или null, если остановка не начата.
+     */
+    private volatile Long closeDeadline;
+
+    @Override
+    public void start() {
+        closeDeadline = null;
+        running = true;
+        if (properties.getLifecycle().isProducerWarmUp()) {
+            warmUp();
+        }
+    }
+
+    @Override
+    public void stop() {
+        coalescingBuffers.forEach(CoalescingBuffer::close);
+        configSpillingSenderMap.values().forEach(SpillingSender::close);
+        flush();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        configKafkaTemplateMap.clear();
+        configTransactionManagerMap.clear();
+        configActiveProducersMap.clear();
+        coalescingBuffers.clear();
+        configSpillingSenderMap.clear();
+        if (taskScheduler != null) {
+            taskScheduler.shutdown();
+        }
+        if (spillScheduler != null) {
+            spillScheduler.shutdown();
+        }
+        for (ProducerFactory<?,?> producerFactory : configProducerFactoryMap.values()) {
+            if (producerFactory instanceof DisposableBean disposable) {
+                disposable.destroy();
+            }
+        }
+        configProducerFactoryMap.clear();
+    }
+
+    /**
+     * Возвращает {@link KafkaTemplate} указанной конфигурации, создавая его при первом обращении.
+     * В возвращаемый экземпляр установлен топик конфигурации по умолчанию.
+     *
+     * @param configName название конфигурации продюсера
+     * @return общий {@link KafkaTemplate} конфигурации
+     */
+    public KafkaTemplate<?,?> getKafkaTemplate(String configName) {
+        KafkaTemplate<?,?> kafkaTemplate = configKafkaTemplateMap.get(configName);
+        if (kafkaTemplate == null) {
+            kafkaTemplate = new KafkaTemplate<>(getProducerFactory(configName));
+            kafkaTemplate.setDefaultTopic(getProperties(configName).getTopic());
+            configKafkaTemplateMap.put(configName, kafkaTemplate);
+        }
+
+        return kafkaTemplate;
+    }
+
+    /**
+     * Возвращает {@link ProducerFactory} указанной конфигурации, создавая ее при первом обращении.
+     *
+     * @param configName название конфигурации продюсера
+     * @return общая {@link ProducerFactory} конфигурации
+     */
+    public ProducerFactory<?,?> getProducerFactory(String configName) {
+        ProducerFactory<?,?> producerFactory = configProducerFactoryMap.get(configName);
+        if (producerFactory == null) {
+            producerFactory = createProducerFactory(configName, getProperties(configName));
+            configProducerFactoryMap.put(configName, producerFactory);
+        }
+
+        return producerFactory;
+    }
+
+    /**
+     * Возвращает {@link KafkaTransactionManager} указанной транзакционной конфигурации, создавая его при первом обращении.
+     * Менеджер использует общую {@link ProducerFactory} конфигурации, поэтому отправки продюсеров конфигурации
+     * участвуют в транзакциях, начатых менеджером.
+     *
+     * @param configName название конфигурации продюсера
+     * @return общий {@link KafkaTransactionManager} конфигурации
+     * @throws IllegalArgumentException если у конфигурации не задан {@code transaction-id-prefix}
+     */
+    public KafkaTransactionManager<?,?> getTransactionManager(String configName) {
+        KafkaTransactionManager<?,?> transactionManager = configTransactionManagerMap.get(configName);
+        if (transactionManager == null) {
+            if (getProperties(configName).getTransactionIdPrefix() == null) {
+                throw new IllegalArgumentException("Producer's transaction id prefix is null");
+            }
+
+            transactionManager = new KafkaTransactionManager<>(getProducerFactory(configName));
+            configTransactionManagerMap.put(configName, transactionManager);
+        }
+
+        return transactionManager;
+    }
+
+    /**
+     * Планирует отправку буфера объединения по окончании каждого окна. При остановке контекста буфер отправляется
+     * перед отправкой буферов kafka продюсеров, а последующие значения отправляются без объединения.
+     *
+     * @param coalescingBuffer буфер объединения
+     * @param window окно объединения
+     */
+    void registerCoalescingBuffer(CoalescingBuffer<?,?> coalescingBuffer, Duration window) {
+        getTaskScheduler().scheduleAtFixedRate(coalescingBuffer, window);
+        coalescingBuffers.add(coalescingBuffer);
+    }
+
+    /**
+     * Возвращает отправку с журналом переполнения указанной конфигурации, создавая ее при первом обращении.
+     * Отправка сообщений журнала и сброс журнала на диск выполняются по расписанию. При остановке контекста
+     * журнал закрывается, а его неотправленные сообщения отправляются после следующего запуска.
+     *
+     * @param configName название конфигурации продюсера
+     * @param errorReporter обработчик ошибок отправки конфигурации
+     * @return отправка с журналом переполнения
+     * @throws IllegalArgumentException если конфигурация транзакционная
+     */
+    SpillingSender<?,?> getSpillingSender(String configName, SendErrorReporter errorReporter) {
+        SpillingSender<?,?> spillingSender = configSpillingSenderMap.get(configName);
+        if (spillingSender == null) {
+            KafkaConfigurationProperties.ProducerProperties properties = getProperties(configName);
+            if (properties.getTransactionIdPrefix() != null) {
+                throw new IllegalArgumentException("Spill journal is not supported for transactional producer");
+            }
+
+            spillingSender = new SpillingSender<>(configName, properties, getProducerFactory(configName), errorReporter, meterRegistryProvider.getIfAvailable());
+            KafkaConfigurationProperties.ProducerProperties.Spill spill = properties.getSpill();
+            configSpillingSenderMap.put(configName, spillingSender);
+            getSpillScheduler().scheduleWithFixedDelay(spillingSender, spill.getDrainInterval());
+            if (spill.getFsync() == KafkaConfigurationProperties.ProducerProperties.Spill.Fsync.INTERVAL) {
+                getTaskScheduler().scheduleAtFixedRate(spillingSender::force, spill.getFsyncInterval());
+            }
+        }
+
+        return spillingSender;
+    }
+
+    /**
+     * Возвращает планировщик фоновых задач продюсеров, создавая его при первом обращении.
+     *
+     * @return планировщик фоновых задач
+     */
+    private ThreadPoolTaskScheduler getTaskScheduler() {
+        if (taskScheduler == null) {
+            taskScheduler = new ThreadPoolTaskScheduler();
+            taskScheduler.setThreadNamePrefix("kafka-producer-scheduler-");
+            taskScheduler.initialize();
+        }
+
+        return taskScheduler;
+    }
+
+    /**
+     * Возвращает планировщик отправки журналов переполнения, создавая его при первом обращении.
+     * Размер пула равен количеству журналов.
+     *
+     * @return планировщик отправки журналов переполнения
+     */
+    private ThreadPoolTaskScheduler getSpillScheduler() {
+        if (spillScheduler == null) {
+            spillScheduler = new ThreadPoolTaskScheduler();
+            spillScheduler.setThreadNamePrefix("kafka-producer-spill-");
+            spillScheduler.initialize();
+        }
+
+        spillScheduler.setPoolSize(configSpillingSenderMap.size());
+        return spillScheduler;
+    }
+
+    /**
+     * Параллельно отправляет буферы всех созданных продюсеров и ожидает отправки не дольше {@code shutdown-timeout}.
+     * Время закрытия продюсеров ограничивается оставшимся временем, поэтому сообщения продюсеров, буферы которых
+     * не отправлены к сроку, отбрасываются при закрытии.
+     */
+    private void flush() {
+        if (configProducerFactoryMap.isEmpty()) {
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        long deadline = startTime + properties.getLifecycle().getShutdownTimeout().toNanos();
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-producer-flush-");
+        Map<Producer<?,?>, CompletableFuture<Void>> producerFutureMap = new HashMap<>();
+        configActiveProducersMap.forEach((configName, producers) -> producers.forEach(producer ->
+                producerFutureMap.put(producer, CompletableFuture.runAsync(() -> flush(configName, producer), executor))));
+
+        try {
+            CompletableFuture.allOf(producerFutureMap.values().toArray(CompletableFuture[]::new))
+                    .get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // продюсеры, не отправившие буфер к сроку, записываются в журнал ниже
+        }
+
+        configActiveProducersMap.forEach((configName, producers) -> producers.forEach(producer -> {
+            CompletableFuture<Void> future = producerFutureMap.get(producer);
+            if (future != null && !future.isDone()) {
+                log.warn("Producer config {} did not flush {} buffered bytes within shutdown timeout, they will be dropped",
+                        configName, bufferedBytes(producer));
+            }
+        }));
+
+        closeDeadline = deadline;
+        log.info("Flushed {} producers in {} ms", producerFutureMap.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    /**
+     * Отправляет буфер продюсера, записывая ошибку отправки в журнал.
+     *
+     * @param configName название конфигурации продюсера
+     * @param producer kafka продюсер
+     */
+    private static void flush(String configName, Producer<?,?> producer) {
+        try {
+            producer.flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush producer config {}", configName, e);
+        }
+    }
+
+    /**
+     * Возвращает время, оставшееся до срока закрытия продюсеров.
+     *
+     * @return оставшееся время или null, если остановка не начата
+     */
+    private Duration remainingCloseTimeout() {
+        Long deadline = closeDeadline;
+        return deadline == null ? null : Duration.ofNanos(Math.max(deadline - System.nanoTime(), 0));
+    }
+
+    /**
+     * Возвращает объем буфера продюсера, занятый неотправленными сообщениями.
+     *
+     * @param producer kafka продюсер
+     * @return количество байт неотправленных сообщений
+     */
+    private static long bufferedBytes(Producer<?,?> producer) {
+        double totalBytes = 0;
+        double availableBytes = 0;
+        for (Map.Entry<MetricName, ? extends Metric> entry : producer.metrics().entrySet()) {
+            if (PRODUCER_METRICS_GROUP.equals(entry.getKey().group()) && entry.getValue().metricValue() instanceof Double value) {
+                if (BUFFER_TOTAL_BYTES.equals(entry.getKey().name())) {
+                    totalBytes = value;
+                } else if (BUFFER_AVAILABLE_BYTES.equals(entry.getKey().name())) {
+                    availableBytes = value;
+                }
+            }
+        }
+
+        return (long) (totalBytes - availableBytes);
+    }
+
+    /**
+     * Параллельно создает продюсеров всех созданных фабрик и загружает метаданные топиков их конфигураций.
+     * Ошибки прогрева записываются в журнал и не прерывают запуск приложения.
+     */
+    private void warmUp() {
+        long startTime = System.nanoTime();
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-producer-warmup-");
+        List<CompletableFuture<Void>> futures = new ArrayList<>(configProducerFactoryMap.size());
+        configProducerFactoryMap.forEach((configName, producerFactory) ->
+                futures.add(CompletableFuture.runAsync(() -> warmUp(configName, producerFactory), executor)));
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        log.info("Warmed up {} producer configs in {} ms", futures.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    /**
+     * Создает продюсеров фабрики (каждого продюсера пула) и загружает метаданные топика конфигурации.
+     *
+     * @param configName название конфигурации продюсера
+     * @param producerFactory фабрика продюсеров конфигурации
+     */
+    private void warmUp(String configName, ProducerFactory<?,?> producerFactory) {
+        KafkaConfigurationProperties.ProducerProperties properties = getProperties(configName);
+        long startTime = System.nanoTime();
+        List<? extends ProducerFactory<?,?>> producerFactories = producerFactory instanceof PooledProducerFactory<?,?> pooled
+                ? pooled.getDelegates()
+                : List.of(producerFactory);
+        try {
+            for (ProducerFactory<?,?> factory : producerFactories) {
+                try (Producer<?,?> producer = factory.createProducer()) {
+                    if (properties.getTopic() != null) {
+                        producer.partitionsFor(properties.getTopic());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to warm up producer config {}", configName, e);
+            return;
+        }
+
+        long duration = System.nanoTime() - startTime;
+        log.debug("Warmed up producer config {} in {} ms", configName, TimeUnit.NANOSECONDS.toMillis(duration));
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            Timer.builder(KafkaMetrics.PRODUCER_WARM_UP)
+                    .description("Time to create the producer and fetch topic metadata at startup")
+                    .tag(KafkaMetrics.TAG_CONFIG, configName)
+                    .register(meterRegistry)
+                    .record(duration, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Возвращает свойства указанной конфигурации продюсера.
+     *
+     * @param configName название конфигурации продюсера
+     * @return свойства конфигурации продюсера
+     * @throws IllegalArgumentException если конфигурация продюсера не найдена
+     */
+    public KafkaConfigurationProperties.ProducerProperties getProperties(String configName) {
+        Map<String, KafkaConfigurationProperties.ProducerProperties> producers = this.properties.getProducers();
+        KafkaConfigurationProperties.ProducerProperties properties = producers == null ? null : producers.get(configName);
+        if (properties == null) {
+            throw new IllegalArgumentException("Producer's properties is null");
+        }
+
+        return properties;
+    }
+
+    /**
+     * Создает {@link ProducerFactory} используя конфигурацию продюсера.
+     * Если размер пула больше единицы, создается {@link PooledProducerFactory}.
+     * При включенном {@code latency-tracking} в сообщения добавляется заголовок времени отправки.
+     * При наличии {@link MeterRegistry} метрики kafka клиента публикуются с тегом конфигурации.
+     *
+     * @param configName название конфигурации продюсера
+     * @param properties конфигурация продюсера
+     * @return {@link ProducerFactory} соответствующую конфигурации
+     */
+    private ProducerFactory<?,?> createProducerFactory(String configName, KafkaConfigurationProperties.ProducerProperties properties) {
+        if (properties.getPoolSize() < 1) {
+            throw new IllegalArgumentException("Producer's pool size must be positive");
+        }
+
+        if (properties.getTransactionIdPrefix() != null && properties.getPoolSize() > 1) {
+            throw new IllegalArgumentException("Producer's pool size must be 1 for transactional producer");
+        }
+
+        ProducerFactoryBuilder producerFactoryBuilder = ProducerFactoryBuilder.of(properties);
+
+        boolean configureKeySerializer = true;
+        String keySerializerBeanName = properties.getKeySerializerBeanName();
+        if (keySerializerBeanName != null) {
+            Serializer<?> keySerializer = (Serializer<?>) beanFactory.getBean(keySerializerBeanName);
+            producerFactoryBuilder.keySerializer(keySerializer);
+            producerFactoryBuilder.config(config -> config.remove(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG));
+            configureKeySerializer = false;
+        }
+
+        boolean configureValueSerializer = true;
+        String valueSerializerBeanName = properties.getValueSerializerBeanName();
+        if (valueSerializerBeanName != null) {
+            Serializer<?> valueSerializer = (Serializer<?>) beanFactory.getBean(valueSerializerBeanName);
+            producerFactoryBuilder.valueSerializer(valueSerializer);
+            producerFactoryBuilder.config(config -> config.remove(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG));
+            configureValueSerializer = false;
+        }
+
+        producerFactoryBuilder.configureSerializers(configureKeySerializer || configureValueSerializer);
+
+        if (properties.isLatencyTracking()) {
+            producerFactoryBuilder.interceptor(LatencyHeaderInterceptor.class)
+                    .property(LatencyHeaderInterceptor.SOURCE_CONFIG, configName);
+        }
+
+        ProducerFactory<Object, Object> producerFactory;
+        if (properties.getPoolSize() == 1) {
+            producerFactory = build(producerFactoryBuilder);
+        } else {
+            List<ProducerFactory<Object, Object>> delegates = new ArrayList<>(properties.getPoolSize());
+            for (int i = 0; i < properties.getPoolSize(); i++) {
+                delegates.add(build(producerFactoryBuilder));
+            }
+            producerFactory = new PooledProducerFactory<>(delegates);
+        }
+
+        Set<Producer<?,?>> activeProducers = ConcurrentHashMap.newKeySet();
+        configActiveProducersMap.put(configName, activeProducers);
+        producerFactory.addListener(new ProducerFactory.Listener<>() {
+
+            @Override
+            public void producerAdded(@NonNull String id, @NonNull Producer<Object, Object> producer) {
+                activeProducers.add(producer);
+            }
+
+            @Override
+            public void producerRemoved(@NonNull String id, @NonNull Producer<Object, Object> producer) {
+                activeProducers.remove(producer);
+            }
+        });
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry, List.of(Tag.of(KafkaMetrics.TAG_CONFIG, configName))));
+        }
+
+        return producerFactory;
+    }
+
+    /**
+     * Создает фабрику продюсеров конфигурации, время закрытия продюсеров которой ограничено сроком остановки.
+     * Типы ключа и значения определяются серелизаторами конфигурации, поэтому приведение не проверяется.
+     *
+     * @param producerFactoryBuilder построитель фабрики продюсеров
+     * @return фабрика продюсеров
+     */
+    @SuppressWarnings("unchecked")
+    private ProducerFactory<Object, Object> build(ProducerFactoryBuilder producerFactoryBuilder) {
+        ProducerFactory<Object, Object> producerFactory = (ProducerFactory<Object, Object>) producerFactoryBuilder.build();
+        producerFactory.addPostProcessor(producer -> new CloseDeadlineProducer<>(producer, this::remainingCloseTimeout));
+        return producerFactory;
+    }
+}
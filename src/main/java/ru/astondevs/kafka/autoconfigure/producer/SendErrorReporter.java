@@ -0,0 +1,82 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+/**
+ * Общий для конфигурации продюсера {@link Callback}, учитывающий ошибки отправки в счетчике
+ * и передающий их {@link ProducerErrorHandler}. Если обработчика нет, ошибки записываются в журнал.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see AbstractKafkaProducer#sendAndForget(Object)
+ */
+@Slf4j
+@RequiredArgsConstructor
+final class SendErrorReporter implements Callback {
+
+    /**
+     * Название конфигурации продюсера.
+     */
+    private final String configName;
+
+    /**
+     * Счетчик ошибок отправки.
+     * Не установлен, если в контексте нет реестра метрик.
+     */
+    private final Counter errorCounter;
+
+    /**
+     * Обработчик ошибок отправки.
+     * Не установлен, если в контексте нет компонента обработчика.
+     */
+    private final ProducerErrorHandler errorHandler;
+
+    @Override
+    public void onCompletion(RecordMetadata metadata, Exception exception) {
+        if (exception != null) {
+            report(exception);
+        }
+    }
+
+    /**
+     * Возвращает {@link Callback}, который сообщает об ошибке и затем вызывает указанный {@link Callback}.
+     *
+     * @param callback {@link Callback} вызывающей стороны
+     * @return {@link Callback} с учетом ошибок
+     */
+    Callback wrap(Callback callback) {
+        return (metadata, exception) -> {
+            if (exception != null) {
+                report(exception);
+            }
+            callback.onCompletion(metadata, exception);
+        };
+    }
+
+    /**
+     * Учитывает ошибку отправки и передает ее обработчику.
+     *
+     * @param exception причина ошибки
+     */
+    void report(Exception exception) {
+        if (errorCounter != null) {
+            errorCounter.increment();
+        }
+
+        if (errorHandler == null) {
+            log.warn("Failed to send record of producer config {}", configName, exception);
+            return;
+        }
+
+        try {
+            errorHandler.handle(configName, exception);
+        } catch (RuntimeException e) {
+            log.error("Producer error handler failed for producer config {}", configName, e);
+        }
+    }
+}
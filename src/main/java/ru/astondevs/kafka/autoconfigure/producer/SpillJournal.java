@@ -0,0 +1,519 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import org.springframework.kafka.KafkaException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Журнал сообщений только на добавление из сегментов фиксированного размера, отображенных в память.
+ * <p>
+ * Запись сегмента: длина записи ({@code int}, положительная для неотправленной и отрицательная для отправленной записи),
+ * время создания ({@code long}), длина и байты ключа, длина и байты значения (длина -1 для null).
+ * Длина записывается после содержимого записи, поэтому прерванная запись не читается после перезапуска.
+ * Отправленные записи помечаются при {@link #commit()}, полностью отправленные сегменты удаляются.
+ * После перезапуска журнал продолжает с первой неотправленной записи.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @see SpillingSender
+ */
+final class SpillJournal implements AutoCloseable {
+
+    /**
+     * Расширение файлов сегментов.
+     */
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Размер заголовков записи: длина записи, время создания, длины ключа и значения.
+     */
+    private static final int ENTRY_OVERHEAD = Integer.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    /**
+     * Каталог сегментов.
+     */
+    private final Path directory;
+
+    /**
+     * Размер сегмента.
+     */
+    private final int segmentSize;
+
+    /**
+     * Максимальное количество сегментов.
+     */
+    private final int maxSegments;
+
+    /**
+     * Сегменты от старого к новому. Запись выполняется в последний сегмент.
+     */
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    /**
+     * Количество сегментов на диске.
+     */
+    private volatile int segmentCount;
+
+    /**
+     * Идентификатор следующего сегмента.
+     */
+    private long nextSegmentId;
+
+    /**
+     * Признак закрытия журнала.
+     */
+    private boolean closed;
+
+    SpillJournal(Path directory, long segmentSize, long maxSize) {
+        if (segmentSize < ENTRY_OVERHEAD || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Producer's spill segment size must be between " + ENTRY_OVERHEAD + " bytes and 2GB");
+        }
+
+        if (maxSize < segmentSize) {
+            throw new IllegalArgumentException("Producer's spill max size must not be less than segment size");
+        }
+
+        this.directory = directory;
+        this.segmentSize = (int) segmentSize;
+        this.maxSegments = (int) Math.min(maxSize / segmentSize, Integer.MAX_VALUE);
+        try {
+            Files.createDirectories(directory);
+            recover();
+            if (segments.isEmpty()) {
+                segments.addLast(openSegment(nextSegmentId++));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open spill journal " + directory, e);
+        }
+        segmentCount = segments.size();
+    }
+
+    /**
+     * Добавляет запись в конец журнала.
+     *
+     * @param timestamp время создания сообщения
+     * @param key байты ключа или null
+     * @param value байты значения или null
+     * @return результат добавления
+     */
+    synchronized AppendResult append(long timestamp, byte[] key, byte[] value) {
+        return append(() -> true, timestamp, key, value);
+    }
+
+    /**
+     * Добавляет запись в конец журнала, если условие выполняется. Условие проверяется под той же блокировкой,
+     * что и действие {@link #runIfEmpty(Runnable)}, поэтому запись не добавляется в журнал, который уже опустошен
+     * и больше не читается.
+     *
+     * @param condition условие добавления
+     * @param timestamp время создания сообщения
+     * @param key байты ключа или null
+     * @param value байты значения или null
+     * @return результат добавления
+     */
+    synchronized AppendResult append(BooleanSupplier condition, long timestamp, byte[] key, byte[] value) {
+        if (closed) {
+            return AppendResult.CLOSED;
+        }
+
+        if (!condition.getAsBoolean()) {
+            return AppendResult.SKIPPED;
+        }
+
+        int length = ENTRY_OVERHEAD - Integer.BYTES + (key == null ? 0 : key.length) + (value == null ? 0 : value.length);
+        int entrySize = Integer.BYTES + length;
+        if (entrySize > segmentSize) {
+            return AppendResult.FULL;
+        }
+
+        Segment segment = segments.getLast();
+        if (segmentSize - segment.writePosition < entrySize) {
+            if (segments.size() >= maxSegments) {
+                return AppendResult.FULL;
+            }
+
+            segment = rollSegment();
+        }
+
+        MappedByteBuffer buffer = segment.buffer;
+        int position = segment.writePosition + Integer.BYTES;
+        buffer.putLong(position, timestamp);
+        position = putBytes(buffer, position + Long.BYTES, key);
+        putBytes(buffer, position, value);
+        buffer.putInt(segment.writePosition, length);
+        segment.writePosition += entrySize;
+        return AppendResult.APPENDED;
+    }
+
+    /**
+     * Читает следующие неотправленные записи, начиная с позиции предыдущего чтения.
+     * Прочитанные записи помечаются отправленными только при {@link #commit()}.
+     *
+     * @param maxEntries максимальное количество записей
+     * @return прочитанные записи
+     */
+    synchronized List<Entry> read(int maxEntries) {
+        List<Entry> entries = new ArrayList<>(Math.min(maxEntries, 256));
+        for (Segment segment : segments) {
+            while (entries.size() < maxEntries && segment.readPosition < segment.writePosition) {
+                MappedByteBuffer buffer = segment.buffer;
+                int length = buffer.getInt(segment.readPosition);
+                int position = segment.readPosition + Integer.BYTES;
+                long timestamp = buffer.getLong(position);
+                byte[] key = getBytes(buffer, position + Long.BYTES);
+                byte[] value = getBytes(buffer, position + Long.BYTES + Integer.BYTES + (key == null ? 0 : key.length));
+                entries.add(new Entry(timestamp, key, value));
+                segment.readPosition += Integer.BYTES + length;
+            }
+
+            if (entries.size() >= maxEntries) {
+                break;
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Возвращает позицию чтения к первой неотправленной записи, если прочитанные записи не удалось отправить.
+     * Записи, отправленные до ошибки, будут отправлены повторно.
+     */
+    synchronized void rewind() {
+        for (Segment segment : segments) {
+            segment.readPosition = segment.committedPosition;
+        }
+    }
+
+    /**
+     * Помечает прочитанные записи отправленными и удаляет полностью отправленные сегменты, кроме сегмента записи.
+     */
+    synchronized void commit() {
+        for (Segment segment : segments) {
+            while (segment.committedPosition < segment.readPosition) {
+                int length = segment.buffer.getInt(segment.committedPosition);
+                segment.buffer.putInt(segment.committedPosition, -length);
+                segment.committedPosition += Integer.BYTES + length;
+            }
+        }
+
+        while (segments.size() > 1 && segments.getFirst().isConsumed()) {
+            deleteSegment(segments.removeFirst());
+        }
+        segmentCount = segments.size();
+    }
+
+    /**
+     * Возвращает true, если все записи журнала прочитаны.
+     *
+     * @return признак отсутствия непрочитанных записей
+     */
+    synchronized boolean isEmpty() {
+        for (Segment segment : segments) {
+            if (segment.readPosition < segment.writePosition) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Выполняет действие, если все записи журнала прочитаны. Добавление записей во время действия ожидает его завершения.
+     *
+     * @param action действие
+     * @return true, если действие выполнено
+     */
+    synchronized boolean runIfEmpty(Runnable action) {
+        if (!isEmpty()) {
+            return false;
+        }
+
+        action.run();
+        return true;
+    }
+
+    /**
+     * Возвращает размер журнала на диске.
+     *
+     * @return размер сегментов журнала в байтах
+     */
+    long diskSize() {
+        return (long) segmentCount * segmentSize;
+    }
+
+    /**
+     * Сбрасывает изменения сегментов на диск.
+     */
+    synchronized void force() {
+        segments.forEach(segment -> segment.buffer.force());
+    }
+
+    /**
+     * Закрывает журнал. Последующие записи не добавляются и получают {@link AppendResult#CLOSED}.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        force();
+        for (Segment segment : segments) {
+            closeChannel(segment);
+        }
+        segments.clear();
+    }
+
+    /**
+     * Открывает существующие сегменты каталога и восстанавливает позиции чтения и записи.
+     * Полностью отправленные сегменты, кроме последнего, удаляются.
+     *
+     * @throws IOException если сегменты не удалось прочитать
+     */
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            long segmentId = Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = openSegment(segmentId);
+            recover(segment);
+            segments.addLast(segment);
+            nextSegmentId = Math.max(nextSegmentId, segmentId + 1);
+        }
+
+        while (segments.size() > 1 && segments.getFirst().isConsumed()) {
+            deleteSegment(segments.removeFirst());
+        }
+    }
+
+    /**
+     * Восстанавливает позиции сегмента: отправленные записи пропускаются, запись продолжается после последней полной записи.
+     *
+     * @param segment сегмент
+     */
+    private void recover(Segment segment) {
+        int position = 0;
+        boolean pending = false;
+        while (segmentSize - position >= Integer.BYTES) {
+            int length = segment.buffer.getInt(position);
+            int size = Integer.BYTES + Math.abs(length);
+            if (length == 0 || length == Integer.MIN_VALUE || size > segmentSize - position) {
+                break;
+            }
+
+            position += size;
+            if (length > 0) {
+                pending = true;
+            } else if (!pending) {
+                segment.committedPosition = position;
+                segment.readPosition = position;
+            }
+        }
+
+        segment.writePosition = position;
+    }
+
+    /**
+     * Создает следующий сегмент записи.
+     *
+     * @return новый сегмент
+     */
+    private Segment rollSegment() {
+        try {
+            Segment segment = openSegment(nextSegmentId++);
+            segments.getLast().buffer.force();
+            segments.addLast(segment);
+            segmentCount = segments.size();
+            return segment;
+        } catch (IOException e) {
+            throw new KafkaException("Failed to create spill journal segment in " + directory, e);
+        }
+    }
+
+    /**
+     * Открывает или создает файл сегмента и отображает его в память.
+     *
+     * @param segmentId идентификатор сегмента
+     * @return сегмент
+     * @throws IOException если файл не удалось открыть
+     */
+    private Segment openSegment(long segmentId) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", segmentId, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Закрывает и удаляет файл сегмента.
+     *
+     * @param segment сегмент
+     */
+    private void deleteSegment(Segment segment) {
+        closeChannel(segment);
+        try {
+            Files.deleteIfExists(segment.file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete spill journal segment " + segment.file, e);
+        }
+    }
+
+    /**
+     * Закрывает канал файла сегмента. Отображение в память освобождается сборщиком мусора.
+     *
+     * @param segment сегмент
+     */
+    private static void closeChannel(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close spill journal segment " + segment.file, e);
+        }
+    }
+
+    /**
+     * Записывает длину и байты массива.
+     *
+     * @param buffer буфер сегмента
+     * @param position позиция записи
+     * @param bytes массив или null
+     * @return позиция после записанных байт
+     */
+    private static int putBytes(MappedByteBuffer buffer, int position, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(position, -1);
+            return position + Integer.BYTES;
+        }
+
+        buffer.putInt(position, bytes.length);
+        buffer.put(position + Integer.BYTES, bytes);
+        return position + Integer.BYTES + bytes.length;
+    }
+
+    /**
+     * Читает длину и байты массива.
+     *
+     * @param buffer буфер сегмента
+     * @param position позиция длины
+     * @return массив или null
+     */
+    private static byte[] getBytes(MappedByteBuffer buffer, int position) {
+        int length = buffer.getInt(position);
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(position + Integer.BYTES, bytes);
+        return bytes;
+    }
+
+    /**
+     * Результат добавления записи.
+     */
+    enum AppendResult {
+
+        /**
+         * Запись добавлена.
+         */
+        APPENDED,
+
+        /**
+         * Условие добавления не выполнено.
+         */
+        SKIPPED,
+
+        /**
+         * Журнал достиг максимального размера или запись больше сегмента.
+         */
+        FULL,
+
+        /**
+         * Журнал закрыт.
+         */
+        CLOSED
+    }
+
+    /**
+     * Запись журнала.
+     *
+     * @param timestamp время создания сообщения
+     * @param key байты ключа или null
+     * @param value байты значения или null
+     */
+    record Entry(long timestamp, byte[] key, byte[] value) {
+    }
+
+    /**
+     * Сегмент журнала.
+     */
+    private static final class Segment {
+
+        /**
+         * Файл сегмента.
+         */
+        private final Path file;
+
+        /**
+         * Канал файла сегмента.
+         */
+        private final FileChannel channel;
+
+        /**
+         * Отображение файла сегмента в память.
+         */
+        private final MappedByteBuffer buffer;
+
+        /**
+         * Позиция следующей записи.
+         */
+        private int writePosition;
+
+        /**
+         * Позиция следующего чтения.
+         */
+        private int readPosition;
+
+        /**
+         * Позиция первой неотправленной записи.
+         */
+        private int committedPosition;
+
+        private Segment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Возвращает true, если все записи сегмента отправлены.
+         *
+         * @return признак отправки всех записей
+         */
+        private boolean isConsumed() {
+            return committedPosition == writePosition;
+        }
+    }
+}
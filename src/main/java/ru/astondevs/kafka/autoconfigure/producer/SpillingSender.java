@@ -0,0 +1,575 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.util.ClassUtils;
+import ru.astondevs.kafka.autoconfigure.KafkaConfigurationProperties;
+import ru.astondevs.kafka.autoconfigure.KafkaMetrics;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Отправка {@code sendAndForget} конфигурации продюсера с журналом переполнения на диске.
+ * <p>
+ * Пока в буфере kafka продюсера есть место хотя бы на один пакет ({@code batch-size}), сообщения отправляются напрямую.
+ * Иначе сообщение сериализуется и записывается в {@link SpillJournal}, и до опустошения журнала все последующие
+ * сообщения также записываются в журнал, чтобы сохранить порядок. Фоновая задача ({@link #run()}) сначала ожидает
+ * отправки сообщений, оставшихся в буфере продюсера с момента начала записи в журнал, а затем, пока в буфере
+ * продюсера есть место, отправляет сообщения журнала по порядку отдельным продюсером байтовых сообщений
+ * с небольшим буфером. Сообщения удаляются из журнала только после подтверждения всех отправок пакета,
+ * при повторяемой ошибке или истечении {@code delivery-timeout} пакет отправляется заново
+ * (сообщения пакета могут быть доставлены повторно).
+ * Вызывающий поток не ожидает освобождения буфера продюсера. Сообщения, не поместившиеся в журнал, устаревшие в нем
+ * или отклоненные брокером без возможности повтора, отбрасываются и передаются обработчику ошибок отправки.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <K> ключ
+ * @param <V> значение
+ *
+ * @see KafkaConfigurationProperties.ProducerProperties.Spill
+ */
+@Slf4j
+final class SpillingSender<K,V> implements Runnable, AutoCloseable {
+
+    /**
+     * Максимальное количество сообщений, отправляемых из журнала между сбросами продюсера.
+     */
+    private static final int DRAIN_BATCH_SIZE = 1000;
+
+    /**
+     * Количество пакетов ({@code batch-size}), помещающихся в буфер продюсера байтовых сообщений.
+     */
+    private static final int SPILL_BUFFER_BATCHES = 16;
+
+    /**
+     * Время ожидания подтверждения отправок пакета журнала сверх {@code delivery.timeout.ms}.
+     */
+    private static final long SEND_TIMEOUT_MARGIN_MILLIS = 5000;
+
+    /**
+     * Значение {@code delivery.timeout.ms} kafka продюсера по умолчанию.
+     */
+    private static final long DEFAULT_DELIVERY_TIMEOUT_MILLIS = 120_000;
+
+    /**
+     * Метрика свободного объема буфера продюсера.
+     */
+    private static final String BUFFER_AVAILABLE_BYTES = "buffer-available-bytes";
+
+    /**
+     * Группа метрик kafka продюсера.
+     */
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+
+    /**
+     * Заменитель отсутствующей метрики буфера продюсера.
+     */
+    private static final Metric NO_METRIC = new Metric() {
+
+        @Override
+        public MetricName metricName() {
+            return null;
+        }
+
+        @Override
+        public Object metricValue() {
+            return null;
+        }
+    };
+
+    /**
+     * Название конфигурации продюсера.
+     */
+    private final String configName;
+
+    /**
+     * Топик конфигурации.
+     */
+    private final String topic;
+
+    /**
+     * Фабрика продюсеров конфигурации.
+     */
+    private final ProducerFactory<K,V> producerFactory;
+
+    /**
+     * Фабрика продюсеров байтовых сообщений для отправки из журнала.
+     */
+    private final ProducerFactory<byte[], byte[]> spillProducerFactory;
+
+    /**
+     * Сериализатор ключа конфигурации.
+     */
+    private final Serializer<K> keySerializer;
+
+    /**
+     * Сериализатор значения конфигурации.
+     */
+    private final Serializer<V> valueSerializer;
+
+    /**
+     * Журнал переполнения.
+     */
+    private final SpillJournal journal;
+
+    /**
+     * Максимальный возраст сообщения журнала в миллисекундах или 0, если возраст не ограничен.
+     */
+    private final long maxAgeMillis;
+
+    /**
+     * Признак сброса журнала на диск после каждой записи.
+     */
+    private final boolean fsyncAlways;
+
+    /**
+     * Объем буфера продюсера, необходимый для прямой отправки.
+     */
+    private final int batchSize;
+
+    /**
+     * Максимальное время ожидания подтверждения отправок пакета журнала в наносекундах.
+     */
+    private final long sendTimeoutNanos;
+
+    /**
+     * Обработчик ошибок отправки конфигурации.
+     */
+    private final SendErrorReporter errorReporter;
+
+    /**
+     * Счетчик сообщений, записанных в журнал. Может быть null.
+     */
+    private final Counter spilledCounter;
+
+    /**
+     * Счетчик сообщений, отброшенных из-за заполненного журнала. Может быть null.
+     */
+    private final Counter fullCounter;
+
+    /**
+     * Счетчик сообщений, отброшенных из-за возраста. Может быть null.
+     */
+    private final Counter expiredCounter;
+
+    /**
+     * Карта продюсера и метрики свободного объема его буфера.
+     */
+    private final Map<Producer<?,?>, Metric> producerBufferMetricMap = new ConcurrentHashMap<>();
+
+    /**
+     * Признак записи сообщений в журнал.
+     */
+    private volatile boolean spilling;
+
+    /**
+     * Признак закрытия, после которого сообщения отправляются напрямую.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Признак отправки буфера продюсера после начала записи в журнал.
+     */
+    private volatile boolean producerFlushed;
+
+    SpillingSender(String configName, KafkaConfigurationProperties.ProducerProperties properties, ProducerFactory<K,V> producerFactory,
+                   SendErrorReporter errorReporter, MeterRegistry meterRegistry) {
+        KafkaConfigurationProperties.ProducerProperties.Spill spill = properties.getSpill();
+        this.configName = configName;
+        this.topic = properties.getTopic();
+        this.producerFactory = producerFactory;
+        this.keySerializer = resolveSerializer(producerFactory.getKeySerializerSupplier().get(), ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, true);
+        this.valueSerializer = resolveSerializer(producerFactory.getValueSerializerSupplier().get(), ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, false);
+        this.maxAgeMillis = spill.getMaxAge() == null ? 0 : spill.getMaxAge().toMillis();
+        this.fsyncAlways = spill.getFsync() == KafkaConfigurationProperties.ProducerProperties.Spill.Fsync.ALWAYS;
+        this.batchSize = (int) properties.getBatchSize().toBytes();
+        long deliveryTimeoutMillis = properties.getDeliveryTimeout() == null ? DEFAULT_DELIVERY_TIMEOUT_MILLIS : properties.getDeliveryTimeout().toMillis();
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(deliveryTimeoutMillis + SEND_TIMEOUT_MARGIN_MILLIS);
+        this.errorReporter = errorReporter;
+        this.journal = new SpillJournal(Path.of(spill.getDirectory(), configName), spill.getSegmentSize().toBytes(), spill.getMaxSize().toBytes());
+        this.spilling = !journal.isEmpty();
+        this.spillProducerFactory = createSpillProducerFactory(properties);
+
+        if (meterRegistry != null) {
+            spilledCounter = Counter.builder(KafkaMetrics.PRODUCER_SPILLED)
+                    .description("Records written to the spill journal because the producer buffer was full")
+                    .tag(KafkaMetrics.TAG_CONFIG, configName)
+                    .register(meterRegistry);
+            fullCounter = createDroppedCounter(meterRegistry, "full");
+            expiredCounter = createDroppedCounter(meterRegistry, "expired");
+            Gauge.builder(KafkaMetrics.PRODUCER_SPILL_SIZE, journal, SpillJournal::diskSize)
+                    .description("Disk size of the spill journal segments")
+                    .tag(KafkaMetrics.TAG_CONFIG, configName)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        } else {
+            spilledCounter = null;
+            fullCounter = null;
+            expiredCounter = null;
+        }
+    }
+
+    /**
+     * Отправляет сообщение напрямую или записывает его в журнал, не ожидая освобождения буфера продюсера.
+     *
+     * @param key ключ
+     * @param value значение
+     */
+    void send(K key, V value) {
+        if (closed || !spilling) {
+            Producer<K,V> producer = producerFactory.createProducer();
+            if (closed || hasCapacity(producer)) {
+                send(producer, new ProducerRecord<>(topic, key, value));
+                return;
+            }
+
+            spill(key, value, this::startSpilling);
+            return;
+        }
+
+        spill(key, value, this::isSpilling);
+    }
+
+    /**
+     * Отправляет сообщения журнала по порядку, пока в буфере продюсера есть место. Перед первой отправкой
+     * из журнала ожидает отправки буфера продюсера, чтобы сообщения журнала не опередили отправленные ранее.
+     * Пакет удаляется из журнала только после подтверждения всех его отправок, иначе он будет прочитан заново.
+     * Когда журнал опустошен, включает прямую отправку.
+     */
+    @Override
+    public void run() {
+        if (closed || !spilling) {
+            return;
+        }
+
+        try {
+            Producer<K,V> producer = producerFactory.createProducer();
+            if (!producerFlushed) {
+                producer.flush();
+                producerFlushed = true;
+            }
+
+            Producer<byte[], byte[]> spillProducer = spillProducerFactory.createProducer();
+            while (!closed && hasCapacity(producer)) {
+                List<SpillJournal.Entry> entries = journal.read(DRAIN_BATCH_SIZE);
+                if (entries.isEmpty()) {
+                    break;
+                }
+
+                if (!replay(spillProducer, entries)) {
+                    journal.rewind();
+                    return;
+                }
+            }
+
+            if (journal.runIfEmpty(() -> spilling = false)) {
+                log.info("Drained spill journal of producer config {}", configName);
+            }
+        } catch (RuntimeException e) {
+            journal.rewind();
+            log.warn("Failed to drain spill journal of producer config {}", configName, e);
+        }
+    }
+
+    /**
+     * Отправляет пакет сообщений журнала и ожидает подтверждения всех отправок не дольше
+     * {@code delivery.timeout.ms}. Если все отправки завершены, пакет удаляется из журнала,
+     * а устаревшие и отклоненные без возможности повтора сообщения передаются обработчику ошибок отправки.
+     *
+     * @param producer продюсер байтовых сообщений
+     * @param entries пакет сообщений журнала
+     * @return false, если хотя бы одна отправка завершилась повторяемой ошибкой или не завершилась к сроку
+     */
+    private boolean replay(Producer<byte[], byte[]> producer, List<SpillJournal.Entry> entries) {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        List<Future<RecordMetadata>> futures = new ArrayList<>(entries.size());
+        for (SpillJournal.Entry entry : entries) {
+            if (maxAgeMillis > 0 && now - entry.timestamp() > maxAgeMillis) {
+                expired++;
+                continue;
+            }
+
+            futures.add(producer.send(new ProducerRecord<>(topic, null, entry.timestamp(), entry.key(), entry.value())));
+        }
+
+        long deadline = System.nanoTime() + sendTimeoutNanos;
+        List<Exception> rejected = new ArrayList<>();
+        boolean retry = false;
+        for (Future<RecordMetadata> future : futures) {
+            try {
+                future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RetriableException) {
+                    retry = true;
+                } else {
+                    rejected.add(e.getCause() instanceof Exception cause ? cause : e);
+                }
+            } catch (TimeoutException e) {
+                retry = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                retry = true;
+            }
+        }
+
+        if (retry) {
+            log.warn("Failed to send spilled records of producer config {}, they will be sent again", configName);
+            return false;
+        }
+
+        journal.commit();
+        for (int i = 0; i < expired; i++) {
+            increment(expiredCounter);
+            errorReporter.report(new KafkaException("Spilled record of producer config " + configName + " expired"));
+        }
+        rejected.forEach(errorReporter::report);
+        return true;
+    }
+
+    /**
+     * Сбрасывает журнал на диск.
+     */
+    void force() {
+        journal.force();
+    }
+
+    /**
+     * Закрывает журнал. Неотправленные сообщения журнала отправляются после следующего запуска,
+     * последующие сообщения отправляются напрямую.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        journal.close();
+        if (spillProducerFactory instanceof DisposableBean disposable) {
+            try {
+                disposable.destroy();
+            } catch (Exception e) {
+                log.warn("Failed to close spill producer of producer config {}", configName, e);
+            }
+        }
+    }
+
+    /**
+     * Сериализует сообщение и записывает его в журнал, если условие выполняется под блокировкой журнала.
+     * Иначе (журнал уже опустошен или закрыт) сообщение отправляется напрямую.
+     *
+     * @param key ключ
+     * @param value значение
+     * @param condition условие записи в журнал
+     */
+    private void spill(K key, V value, BooleanSupplier condition) {
+        SpillJournal.AppendResult result;
+        try {
+            byte[] keyBytes = keySerializer.serialize(topic, key);
+            byte[] valueBytes = valueSerializer.serialize(topic, value);
+            result = journal.append(condition, System.currentTimeMillis(), keyBytes, valueBytes);
+        } catch (RuntimeException e) {
+            errorReporter.report(e);
+            return;
+        }
+
+        switch (result) {
+            case APPENDED -> {
+                increment(spilledCounter);
+                if (fsyncAlways) {
+                    journal.force();
+                }
+            }
+            case FULL -> {
+                increment(fullCounter);
+                errorReporter.report(new KafkaException("Spill journal of producer config " + configName + " is full"));
+            }
+            case SKIPPED, CLOSED -> {
+                try {
+                    send(producerFactory.createProducer(), new ProducerRecord<>(topic, key, value));
+                } catch (RuntimeException e) {
+                    errorReporter.report(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Включает запись в журнал. Вызывается под блокировкой журнала.
+     *
+     * @return true
+     */
+    private boolean startSpilling() {
+        producerFlushed = false;
+        spilling = true;
+        return true;
+    }
+
+    /**
+     * Возвращает признак записи в журнал. Вызывается под блокировкой журнала.
+     *
+     * @return true, если сообщения записываются в журнал
+     */
+    private boolean isSpilling() {
+        return spilling;
+    }
+
+    /**
+     * Отправляет сообщение продюсером, передавая синхронные ошибки обработчику ошибок отправки.
+     *
+     * @param producer kafka продюсер
+     * @param record сообщение
+     */
+    private <T, U> void send(Producer<T, U> producer, ProducerRecord<T, U> record) {
+        try {
+            producer.send(record, errorReporter);
+        } catch (RuntimeException e) {
+            errorReporter.onCompletion(null, e);
+        }
+    }
+
+    /**
+     * Возвращает true, если в буфере продюсера есть место хотя бы на один пакет.
+     *
+     * @param producer kafka продюсер
+     * @return признак свободного места в буфере
+     */
+    private boolean hasCapacity(Producer<?,?> producer) {
+        Metric metric = producerBufferMetricMap.computeIfAbsent(producer, SpillingSender::findBufferMetric);
+        return metric == NO_METRIC || !(metric.metricValue() instanceof Double availableBytes) || availableBytes >= batchSize;
+    }
+
+    /**
+     * Находит метрику свободного объема буфера продюсера.
+     *
+     * @param producer kafka продюсер
+     * @return метрика или {@link #NO_METRIC}, если продюсер ее не публикует
+     */
+    private static Metric findBufferMetric(Producer<?,?> producer) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : producer.metrics().entrySet()) {
+            if (PRODUCER_METRICS_GROUP.equals(entry.getKey().group()) && BUFFER_AVAILABLE_BYTES.equals(entry.getKey().name())) {
+                return entry.getValue();
+            }
+        }
+
+        return NO_METRIC;
+    }
+
+    /**
+     * Создает фабрику продюсеров байтовых сообщений с теми же свойствами конфигурации. Пакет журнала
+     * отправляется только после подтверждения предыдущего, поэтому буфер продюсера ограничен
+     * {@value #SPILL_BUFFER_BATCHES} пакетами, но вмещает сообщение максимального размера.
+     *
+     * @param properties свойства конфигурации продюсера
+     * @return фабрика продюсеров байтовых сообщений
+     */
+    @SuppressWarnings("unchecked")
+    private ProducerFactory<byte[], byte[]> createSpillProducerFactory(KafkaConfigurationProperties.ProducerProperties properties) {
+        return (ProducerFactory<byte[], byte[]>) ProducerFactoryBuilder.of(properties)
+                .keySerializer(new ByteArraySerializer())
+                .valueSerializer(new ByteArraySerializer())
+                .configureSerializers(false)
+                .config(config -> {
+                    config.remove(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG);
+                    config.remove(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG);
+                    config.put(ProducerConfig.BUFFER_MEMORY_CONFIG, spillBufferMemory(properties));
+                    Object clientId = config.get(ProducerConfig.CLIENT_ID_CONFIG);
+                    if (clientId != null) {
+                        config.put(ProducerConfig.CLIENT_ID_CONFIG, clientId + "-spill");
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Возвращает объем буфера продюсера байтовых сообщений, не превышающий буфер продюсера конфигурации.
+     *
+     * @param properties свойства конфигурации продюсера
+     * @return объем буфера в байтах
+     */
+    private long spillBufferMemory(KafkaConfigurationProperties.ProducerProperties properties) {
+        long maxRequestSize = properties.getMaxRequestSize() != null
+                ? properties.getMaxRequestSize().toBytes()
+                : ((Number) ProducerConfig.configDef().defaultValues().get(ProducerConfig.MAX_REQUEST_SIZE_CONFIG)).longValue();
+        long bufferMemory = properties.getBufferMemory() != null
+                ? properties.getBufferMemory().toBytes()
+                : ((Number) ProducerConfig.configDef().defaultValues().get(ProducerConfig.BUFFER_MEMORY_CONFIG)).longValue();
+        return Math.min(bufferMemory, Math.max((long) SPILL_BUFFER_BATCHES * batchSize, maxRequestSize));
+    }
+
+    /**
+     * Возвращает сериализатор фабрики или создает его по классу из свойств фабрики.
+     *
+     * @param serializer сериализатор фабрики или null
+     * @param classConfig название свойства класса сериализатора
+     * @param isKey признак сериализатора ключа
+     * @return сериализатор
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Serializer<T> resolveSerializer(Serializer<T> serializer, String classConfig, boolean isKey) {
+        if (serializer != null) {
+            return serializer;
+        }
+
+        Object serializerClass = producerFactory.getConfigurationProperties().get(classConfig);
+        try {
+            Class<?> type = serializerClass instanceof Class<?> clazz
+                    ? clazz
+                    : ClassUtils.forName(String.valueOf(serializerClass), getClass().getClassLoader());
+            Serializer<T> created = (Serializer<T>) BeanUtils.instantiateClass(type);
+            created.configure(producerFactory.getConfigurationProperties(), isKey);
+            return created;
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Producer's serializer class " + serializerClass + " is not found", e);
+        }
+    }
+
+    /**
+     * Создает счетчик отброшенных сообщений журнала.
+     *
+     * @param meterRegistry реестр метрик
+     * @param reason причина отбрасывания
+     * @return счетчик
+     */
+    private Counter createDroppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder(KafkaMetrics.PRODUCER_SPILL_DROPPED)
+                .description("Records dropped by the spill journal")
+                .tag(KafkaMetrics.TAG_CONFIG, configName)
+                .tag(KafkaMetrics.TAG_REASON, reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Увеличивает счетчик, если он задан.
+     *
+     * @param counter счетчик или null
+     */
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
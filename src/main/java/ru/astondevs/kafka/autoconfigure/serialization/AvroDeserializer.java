@@ -0,0 +1,121 @@
+package ru.astondevs.kafka.autoconfigure.serialization;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.util.ByteBufferInputStream;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Десерелизатор значений из двоичного формата Avro без идентификатора схемы, разбирающий данные
+ * непосредственно из байт сообщения или {@link ByteBuffer}. Схема записи должна совпадать со схемой чтения.
+ * <p>
+ * При создании kafka клиентом по классу класс значения задается свойством {@value SchemaSerialization#VALUE_TYPE_CONFIG},
+ * название схемы - свойством {@value SchemaSerialization#VALUE_SCHEMA_CONFIG} (или соответствующими свойствами ключа).
+ * Для сгенерированных классов схема берется из класса, для {@code GenericRecord} обязательно название схемы,
+ * остальные классы, которые должны иметь конструктор без параметров, читаются через {@code ReflectData}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <T> тип значения
+ */
+public class AvroDeserializer<T> implements Deserializer<T> {
+
+    /**
+     * Объект чтения значений. Не установлен, пока класс или схема значения не известны.
+     */
+    private DatumReader<T> reader;
+
+    /**
+     * Создает десерелизатор, класс или схема значения которого задаются конфигурацией kafka клиента.
+     */
+    public AvroDeserializer() {
+    }
+
+    /**
+     * Создает десерелизатор значений указанного класса со схемой класса.
+     *
+     * @param type класс значения
+     */
+    public AvroDeserializer(Class<T> type) {
+        this.reader = AvroSupport.reader(type, null);
+    }
+
+    /**
+     * Создает десерелизатор {@code GenericRecord} указанной схемы.
+     *
+     * @param schema схема значения
+     */
+    public AvroDeserializer(Schema schema) {
+        this.reader = AvroSupport.reader(null, schema);
+    }
+
+    /**
+     * Создает десерелизатор значений указанного класса с указанной схемой.
+     *
+     * @param type класс значения
+     * @param schema схема значения
+     */
+    public AvroDeserializer(Class<T> type, Schema schema) {
+        this.reader = AvroSupport.reader(type, schema);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (reader != null) {
+            return;
+        }
+
+        Class<?> type = SchemaSerialization.typeOf(configs, isKey);
+        Schema schema = AvroSupport.schemaOf(configs, isKey);
+        if (type == null && schema == null) {
+            throw new IllegalStateException("Property " + (isKey ? SchemaSerialization.KEY_TYPE_CONFIG : SchemaSerialization.VALUE_TYPE_CONFIG)
+                    + " or " + (isKey ? SchemaSerialization.KEY_SCHEMA_CONFIG : SchemaSerialization.VALUE_SCHEMA_CONFIG) + " is required");
+        }
+
+        this.reader = AvroSupport.reader(type, schema);
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            return reader.read(null, DecoderFactory.get().binaryDecoder(data, null));
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Can't deserialize data from topic " + topic, e);
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        return deserialize(topic, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, ByteBuffer data) {
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            if (data.hasArray()) {
+                return reader.read(null, DecoderFactory.get().binaryDecoder(data.array(), data.arrayOffset() + data.position(), data.remaining(), null));
+            }
+
+            return reader.read(null, DecoderFactory.get().directBinaryDecoder(new ByteBufferInputStream(List.of(data.duplicate())), null));
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Can't deserialize data from topic " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package ru.astondevs.kafka.autoconfigure.serialization;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Серелизатор значений в двоичный формат Avro без идентификатора схемы, записывающий данные
+ * в переиспользуемые буферы из пула вместе с переиспользуемыми {@link BinaryEncoder}.
+ * Для каждого сообщения выделяется только итоговый массив байт, который требует kafka клиент.
+ * <p>
+ * При создании kafka клиентом по классу класс значения задается свойством {@value SchemaSerialization#VALUE_TYPE_CONFIG},
+ * название схемы - свойством {@value SchemaSerialization#VALUE_SCHEMA_CONFIG} (или соответствующими свойствами ключа).
+ * Для сгенерированных классов схема берется из класса, для {@code GenericRecord} обязательно название схемы,
+ * остальные классы записываются через {@code ReflectData}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <T> тип значения
+ */
+public class AvroSerializer<T> implements Serializer<T> {
+
+    /**
+     * Начальный размер буфера.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /**
+     * Максимальный размер буфера, возвращаемого в пул.
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Пул буферов.
+     */
+    private final BlockingQueue<EncoderBuffer> bufferPool =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * Объект записи значений. Не установлен, пока класс или схема значения не известны.
+     */
+    private DatumWriter<T> writer;
+
+    /**
+     * Создает серелизатор, класс или схема значения которого задаются конфигурацией kafka клиента.
+     */
+    public AvroSerializer() {
+    }
+
+    /**
+     * Создает серелизатор значений указанного класса со схемой класса.
+     *
+     * @param type класс значения
+     */
+    public AvroSerializer(Class<T> type) {
+        this.writer = AvroSupport.writer(type, null);
+    }
+
+    /**
+     * Создает серелизатор {@code GenericRecord} указанной схемы.
+     *
+     * @param schema схема значения
+     */
+    public AvroSerializer(Schema schema) {
+        this.writer = AvroSupport.writer(null, schema);
+    }
+
+    /**
+     * Создает серелизатор значений указанного класса с указанной схемой.
+     *
+     * @param type класс значения
+     * @param schema схема значения
+     */
+    public AvroSerializer(Class<T> type, Schema schema) {
+        this.writer = AvroSupport.writer(type, schema);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (writer != null) {
+            return;
+        }
+
+        Class<?> type = SchemaSerialization.typeOf(configs, isKey);
+        Schema schema = AvroSupport.schemaOf(configs, isKey);
+        if (type == null && schema == null) {
+            throw new IllegalStateException("Property " + (isKey ? SchemaSerialization.KEY_TYPE_CONFIG : SchemaSerialization.VALUE_TYPE_CONFIG)
+                    + " or " + (isKey ? SchemaSerialization.KEY_SCHEMA_CONFIG : SchemaSerialization.VALUE_SCHEMA_CONFIG) + " is required");
+        }
+
+        this.writer = AvroSupport.writer(type, schema);
+    }
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        if (data == null) {
+            return null;
+        }
+
+        EncoderBuffer buffer = bufferPool.poll();
+        if (buffer == null) {
+            buffer = new EncoderBuffer();
+        }
+
+        try {
+            buffer.encoder = EncoderFactory.get().directBinaryEncoder(buffer.stream, buffer.encoder);
+            writer.write(data, buffer.encoder);
+            return buffer.stream.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Can't serialize data for topic " + topic, e);
+        } finally {
+            buffer.stream.reset();
+            if (buffer.stream.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+                bufferPool.offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * Буфер и связанный с ним {@link BinaryEncoder}. Кодировщик пишет в буфер напрямую, без собственной буферизации,
+     * поэтому после ошибки записи в нем не остается данных предыдущего сообщения.
+     */
+    private static final class EncoderBuffer {
+
+        /**
+         * Буфер.
+         */
+        private final ReusableByteArrayOutputStream stream = new ReusableByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+
+        /**
+         * Кодировщик, записывающий в буфер. Не установлен до первой записи.
+         */
+        private BinaryEncoder encoder;
+    }
+}
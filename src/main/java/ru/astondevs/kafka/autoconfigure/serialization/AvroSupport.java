@@ -0,0 +1,129 @@
+package ru.astondevs.kafka.autoconfigure.serialization;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericContainer;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.reflect.ReflectData;
+import org.apache.avro.reflect.ReflectDatumReader;
+import org.apache.avro.reflect.ReflectDatumWriter;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Создание схем, объектов чтения и записи Avro с кешированием в {@link SchemaSerialization}.
+ * Объект выбирается по классу: сгенерированный {@link SpecificRecord}, {@link GenericContainer}
+ * (или класс не указан) и остальные классы, которые читаются и записываются через {@link ReflectData}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+final class AvroSupport {
+
+    private AvroSupport() {
+    }
+
+    /**
+     * Ключ кеша схемы.
+     *
+     * @param content содержимое схемы
+     */
+    private record SchemaKey(String content) {
+    }
+
+    /**
+     * Ключ кеша объекта чтения или записи.
+     *
+     * @param writer признак объекта записи
+     * @param type класс или null
+     * @param schema схема или null
+     */
+    private record DatumKey(boolean writer, Class<?> type, Schema schema) {
+    }
+
+    /**
+     * Возвращает схему из конфигурации kafka клиента.
+     *
+     * @param configs конфигурация kafka клиента
+     * @param isKey признак ключа
+     * @return схема или null, если ее название не указано
+     */
+    static Schema schemaOf(Map<String, ?> configs, boolean isKey) {
+        String name = SchemaSerialization.schemaNameOf(configs, isKey);
+        if (name == null) {
+            return null;
+        }
+
+        String content = new String(SchemaSerialization.sourceOf(configs).load(name), StandardCharsets.UTF_8);
+        return SchemaSerialization.cached(new SchemaKey(content), () -> new Schema.Parser().parse(content));
+    }
+
+    /**
+     * Возвращает объект записи класса или схемы.
+     *
+     * @param type класс или null для {@link GenericContainer}
+     * @param schema схема или null для схемы класса
+     * @return объект записи
+     * @param <T> тип значения
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> DatumWriter<T> writer(Class<?> type, Schema schema) {
+        return SchemaSerialization.cached(new DatumKey(true, type, schema), () -> {
+            if (isSpecific(type)) {
+                return new SpecificDatumWriter<>(schema != null ? schema : SpecificData.get().getSchema(type));
+            }
+
+            if (isReflect(type)) {
+                return new ReflectDatumWriter<>(schema != null ? schema : ReflectData.get().getSchema(type));
+            }
+
+            return new GenericDatumWriter(requireSchema(schema));
+        });
+    }
+
+    /**
+     * Возвращает объект чтения класса или схемы.
+     *
+     * @param type класс или null для {@link GenericContainer}
+     * @param schema схема или null для схемы класса
+     * @return объект чтения
+     * @param <T> тип значения
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> DatumReader<T> reader(Class<?> type, Schema schema) {
+        return SchemaSerialization.cached(new DatumKey(false, type, schema), () -> {
+            if (isSpecific(type)) {
+                return new SpecificDatumReader<>(schema != null ? schema : SpecificData.get().getSchema(type));
+            }
+
+            if (isReflect(type)) {
+                return new ReflectDatumReader<>(schema != null ? schema : ReflectData.get().getSchema(type));
+            }
+
+            return new GenericDatumReader(requireSchema(schema));
+        });
+    }
+
+    private static boolean isSpecific(Class<?> type) {
+        return type != null && SpecificRecord.class.isAssignableFrom(type);
+    }
+
+    private static boolean isReflect(Class<?> type) {
+        return type != null && !GenericContainer.class.isAssignableFrom(type);
+    }
+
+    private static Schema requireSchema(Schema schema) {
+        if (schema == null) {
+            throw new IllegalStateException("Avro schema is required for generic records, set property "
+                    + SchemaSerialization.VALUE_SCHEMA_CONFIG + " or " + SchemaSerialization.KEY_SCHEMA_CONFIG);
+        }
+        return schema;
+    }
+}
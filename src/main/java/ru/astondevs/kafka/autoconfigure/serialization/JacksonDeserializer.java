@@ -0,0 +1,122 @@
+package ru.astondevs.kafka.autoconfigure.serialization;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Десерелизатор значений из JSON, разбирающий данные непосредственно из байт сообщения
+ * или {@link ByteBuffer} без промежуточного копирования в строку.
+ * <p>
+ * При создании kafka клиентом по классу тип значения задается свойством {@value JacksonSerialization#VALUE_TYPE_CONFIG}
+ * (или {@value JacksonSerialization#KEY_TYPE_CONFIG} для ключа), а модуль ускорения -
+ * свойством {@value JacksonSerialization#MODULE_CONFIG}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <T> тип значения
+ */
+public class JacksonDeserializer<T> implements Deserializer<T> {
+
+    /**
+     * Объект чтения значений. Не установлен, пока тип значения не известен.
+     */
+    private ObjectReader reader;
+
+    /**
+     * Создает десерелизатор, тип значения которого задается конфигурацией kafka клиента.
+     */
+    public JacksonDeserializer() {
+    }
+
+    /**
+     * Создает десерелизатор указанного типа.
+     *
+     * @param type тип значения
+     */
+    public JacksonDeserializer(Class<T> type) {
+        this(JacksonSerialization.sharedObjectMapper(JacksonSerialization.Module.NONE), type);
+    }
+
+    /**
+     * Создает десерелизатор указанного типа с указанным {@link ObjectMapper}.
+     *
+     * @param objectMapper {@link ObjectMapper}
+     * @param type тип значения
+     */
+    public JacksonDeserializer(ObjectMapper objectMapper, Class<T> type) {
+        this.reader = objectMapper.readerFor(type);
+    }
+
+    /**
+     * Создает десерелизатор указанного типа с указанным {@link ObjectMapper}.
+     *
+     * @param objectMapper {@link ObjectMapper}
+     * @param type тип значения, в том числе параметризованный
+     */
+    public JacksonDeserializer(ObjectMapper objectMapper, JavaType type) {
+        this.reader = objectMapper.readerFor(type);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (reader != null) {
+            return;
+        }
+
+        Object type = configs.get(isKey ? JacksonSerialization.KEY_TYPE_CONFIG : JacksonSerialization.VALUE_TYPE_CONFIG);
+        if (type == null) {
+            throw new IllegalStateException("Property " + (isKey ? JacksonSerialization.KEY_TYPE_CONFIG : JacksonSerialization.VALUE_TYPE_CONFIG) + " is required");
+        }
+
+        Class<?> typeClass = type instanceof Class<?> value
+                ? value
+                : ClassUtils.resolveClassName(type.toString().trim(), ClassUtils.getDefaultClassLoader());
+        this.reader = JacksonSerialization.sharedObjectMapper(JacksonSerialization.moduleOf(configs)).readerFor(typeClass);
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            return reader.readValue(data);
+        } catch (IOException e) {
+            throw new SerializationException("Can't deserialize data from topic " + topic, e);
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        return deserialize(topic, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, ByteBuffer data) {
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            if (data.hasArray()) {
+                return reader.readValue(data.array(), data.arrayOffset() + data.position(), data.remaining());
+            }
+
+            return reader.readValue(new ByteBufferBackedInputStream(data.duplicate()));
+        } catch (IOException e) {
+            throw new SerializationException("Can't deserialize data from topic " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ru.astondevs.kafka.autoconfigure.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.util.ClassUtils;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Общие свойства и вспомогательные методы {@link JacksonSerializer} и {@link JacksonDeserializer}.
+ * Свойства задаются в {@code properties} конфигурации продюсера или потребителя.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+public final class JacksonSerialization {
+
+    /**
+     * Свойство с модулем ускорения Jackson: {@code none}, {@code afterburner} или {@code blackbird}.
+     */
+    public static final String MODULE_CONFIG = "ru.astondevs.kafka.jackson.module";
+
+    /**
+     * Свойство с классом ключа для {@link JacksonDeserializer}.
+     */
+    public static final String KEY_TYPE_CONFIG = "ru.astondevs.kafka.jackson.key.type";
+
+    /**
+     * Свойство с классом значения для {@link JacksonDeserializer}.
+     */
+    public static final String VALUE_TYPE_CONFIG = "ru.astondevs.kafka.jackson.value.type";
+
+    /**
+     * Общие {@link ObjectMapper} по модулю ускорения.
+     */
+    private static final Map<Module, ObjectMapper> OBJECT_MAPPERS = new ConcurrentHashMap<>();
+
+    private JacksonSerialization() {
+    }
+
+    /**
+     * Модуль ускорения сериализации Jackson.
+     */
+    public enum Module {
+
+        /**
+         * Без модуля ускорения.
+         */
+        NONE,
+
+        /**
+         * Модуль {@code jackson-module-afterburner}, генерирующий байт-код доступа к свойствам.
+         */
+        AFTERBURNER,
+
+        /**
+         * Модуль {@code jackson-module-blackbird}, использующий {@code LambdaMetafactory} для доступа к свойствам.
+         */
+        BLACKBIRD
+    }
+
+    /**
+     * Создает {@link ObjectMapper} с указанным модулем ускорения. Как и у {@code JsonSerializer} spring-kafka,
+     * регистрируются только известные модули типов ({@code java.time}, {@code Optional}), а не все модули
+     * из {@code META-INF/services}: иначе модуль ускорения из classpath подключался бы независимо от настройки.
+     *
+     * @param module модуль ускорения
+     * @return новый {@link ObjectMapper}
+     * @throws IllegalStateException если модуль отсутствует в classpath
+     */
+    public static ObjectMapper createObjectMapper(Module module) {
+        return registerModule(JacksonUtils.enhancedObjectMapper(), module);
+    }
+
+    /**
+     * Возвращает общий {@link ObjectMapper} с указанным модулем ускорения, создавая его при первом обращении.
+     * Используется серелизаторами, созданными kafka клиентами, поэтому клиенты одной конфигурации не создают
+     * собственные {@link ObjectMapper}.
+     *
+     * @param module модуль ускорения
+     * @return общий {@link ObjectMapper}
+     * @throws IllegalStateException если модуль отсутствует в classpath
+     */
+    static ObjectMapper sharedObjectMapper(Module module) {
+        return OBJECT_MAPPERS.computeIfAbsent(module, JacksonSerialization::createObjectMapper);
+    }
+
+    /**
+     * Регистрирует в {@link ObjectMapper} указанный модуль ускорения.
+     *
+     * @param objectMapper {@link ObjectMapper}
+     * @param module модуль ускорения
+     * @return переданный {@link ObjectMapper}
+     * @throws IllegalStateException если модуль отсутствует в classpath
+     */
+    public static ObjectMapper registerModule(ObjectMapper objectMapper, Module module) {
+        switch (module) {
+            case AFTERBURNER -> {
+                requireClass("com.fasterxml.jackson.module.afterburner.AfterburnerModule", "jackson-module-afterburner");
+                AfterburnerRegistrar.register(objectMapper);
+            }
+            case BLACKBIRD -> {
+                requireClass("com.fasterxml.jackson.module.blackbird.BlackbirdModule", "jackson-module-blackbird");
+                BlackbirdRegistrar.register(objectMapper);
+            }
+            default -> {
+            }
+        }
+
+        return objectMapper;
+    }
+
+    /**
+     * Возвращает модуль ускорения из конфигурации kafka клиента.
+     *
+     * @param configs конфигурация kafka клиента
+     * @return модуль ускорения или {@link Module#NONE}, если он не указан
+     */
+    static Module moduleOf(Map<String, ?> configs) {
+        Object module = configs.get(MODULE_CONFIG);
+        if (module == null) {
+            return Module.NONE;
+        }
+
+        return module instanceof Module value ? value : Module.valueOf(module.toString().trim().toUpperCase(Locale.ROOT));
+    }
+
+    private static void requireClass(String className, String artifactId) {
+        if (!ClassUtils.isPresent(className, JacksonSerialization.class.getClassLoader())) {
+            throw new IllegalStateException("Jackson module " + artifactId + " is not on the classpath");
+        }
+    }
+
+    /**
+     * Регистрирует {@link AfterburnerModule}. Вынесен в отдельный класс,
+     * чтобы отсутствие необязательного модуля в classpath не мешало загрузке {@link JacksonSerialization}.
+     */
+    private static final class AfterburnerRegistrar {
+
+        private static void register(ObjectMapper objectMapper) {
+            objectMapper.registerModule(new AfterburnerModule());
+        }
+    }
+
+    /**
+     * Регистрирует {@link BlackbirdModule}. Вынесен в отдельный класс по той же причине, что и {@link AfterburnerRegistrar}.
+     */
+    private static final class BlackbirdRegistrar {
+
+        private static void register(ObjectMapper objectMapper) {
+            objectMapper.registerModule(new BlackbirdModule());
+        }
+    }
+}
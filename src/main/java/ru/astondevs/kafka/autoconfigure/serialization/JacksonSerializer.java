@@ -0,0 +1,101 @@
+package ru.astondevs.kafka.autoconfigure.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Серелизатор значений в JSON, записывающий данные в переиспользуемые буферы из пула.
+ * Для каждого сообщения выделяется только итоговый массив байт, который требует kafka клиент.
+ * <p>
+ * При создании kafka клиентом по классу используется общий {@link ObjectMapper} с модулем ускорения,
+ * указанным в свойстве {@value JacksonSerialization#MODULE_CONFIG}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <T> тип значения
+ */
+public class JacksonSerializer<T> implements Serializer<T> {
+
+    /**
+     * Начальный размер буфера.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /**
+     * Максимальный размер буфера, возвращаемого в пул.
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Пул буферов.
+     */
+    private final BlockingQueue<ReusableByteArrayOutputStream> bufferPool =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * Признак того, что {@link ObjectMapper} передан явно и не должен пересоздаваться при конфигурации.
+     */
+    private final boolean customObjectMapper;
+
+    /**
+     * Объект записи значений.
+     */
+    private ObjectWriter writer;
+
+    /**
+     * Создает серелизатор с {@link ObjectMapper}, который может быть переопределен конфигурацией kafka клиента.
+     */
+    public JacksonSerializer() {
+        this.writer = JacksonSerialization.sharedObjectMapper(JacksonSerialization.Module.NONE).writer();
+        this.customObjectMapper = false;
+    }
+
+    /**
+     * Создает серелизатор с указанным {@link ObjectMapper}.
+     *
+     * @param objectMapper {@link ObjectMapper}
+     */
+    public JacksonSerializer(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writer();
+        this.customObjectMapper = true;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (!customObjectMapper) {
+            this.writer = JacksonSerialization.sharedObjectMapper(JacksonSerialization.moduleOf(configs)).writer();
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        if (data == null) {
+            return null;
+        }
+
+        ReusableByteArrayOutputStream buffer = bufferPool.poll();
+        if (buffer == null) {
+            buffer = new ReusableByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        }
+
+        try {
+            writer.writeValue(buffer, data);
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Can't serialize data for topic " + topic, e);
+        } finally {
+            buffer.reset();
+            if (buffer.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+                bufferPool.offer(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ru.astondevs.kafka.autoconfigure.serialization;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Десерелизатор сообщений Protobuf, разбирающий данные непосредственно из байт сообщения или {@link ByteBuffer}.
+ * <p>
+ * При создании kafka клиентом по классу сгенерированный класс сообщения задается свойством
+ * {@value SchemaSerialization#VALUE_TYPE_CONFIG} (или {@value SchemaSerialization#KEY_TYPE_CONFIG} для ключа).
+ * Парсер класса находится один раз и кешируется в {@link SchemaSerialization}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <T> тип сообщения
+ */
+public class ProtobufDeserializer<T extends MessageLite> implements Deserializer<T> {
+
+    /**
+     * Парсер сообщений. Не установлен, пока класс сообщения не известен.
+     */
+    private Parser<T> parser;
+
+    /**
+     * Создает десерелизатор, класс сообщения которого задается конфигурацией kafka клиента.
+     */
+    public ProtobufDeserializer() {
+    }
+
+    /**
+     * Создает десерелизатор сообщений указанного сгенерированного класса.
+     *
+     * @param type класс сообщения
+     */
+    public ProtobufDeserializer(Class<T> type) {
+        this.parser = parserOf(type);
+    }
+
+    /**
+     * Создает десерелизатор с указанным парсером, например, парсером {@code DynamicMessage}.
+     *
+     * @param parser парсер сообщений
+     */
+    public ProtobufDeserializer(Parser<T> parser) {
+        this.parser = parser;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (parser != null) {
+            return;
+        }
+
+        Class<?> type = SchemaSerialization.typeOf(configs, isKey);
+        if (type == null) {
+            throw new IllegalStateException("Property " + (isKey ? SchemaSerialization.KEY_TYPE_CONFIG : SchemaSerialization.VALUE_TYPE_CONFIG) + " is required");
+        }
+
+        this.parser = parserOf(type);
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            return parser.parseFrom(data);
+        } catch (InvalidProtocolBufferException e) {
+            throw new SerializationException("Can't deserialize data from topic " + topic, e);
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        return deserialize(topic, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, ByteBuffer data) {
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            return parser.parseFrom(data.duplicate());
+        } catch (InvalidProtocolBufferException e) {
+            throw new SerializationException("Can't deserialize data from topic " + topic, e);
+        }
+    }
+
+    /**
+     * Возвращает парсер сгенерированного класса сообщения.
+     *
+     * @param type класс сообщения
+     * @return парсер сообщений
+     * @param <T> тип сообщения
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends MessageLite> Parser<T> parserOf(Class<?> type) {
+        if (!MessageLite.class.isAssignableFrom(type)) {
+            throw new IllegalStateException("Class " + type.getName() + " is not a protobuf message");
+        }
+
+        return SchemaSerialization.cached(type, () -> {
+            Method getDefaultInstance = ReflectionUtils.findMethod(type, "getDefaultInstance");
+            if (getDefaultInstance == null) {
+                throw new IllegalStateException("Class " + type.getName() + " is not a generated protobuf message");
+            }
+            return (Parser<T>) ((MessageLite) ReflectionUtils.invokeMethod(getDefaultInstance, null)).getParserForType();
+        });
+    }
+}
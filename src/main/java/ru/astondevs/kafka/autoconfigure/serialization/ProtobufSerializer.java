@@ -0,0 +1,21 @@
+package ru.astondevs.kafka.autoconfigure.serialization;
+
+import com.google.protobuf.MessageLite;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Серелизатор сообщений Protobuf. Размер сообщения известен до записи, поэтому сообщение записывается
+ * сразу в итоговый массив байт точного размера без промежуточного буфера.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ *
+ * @param <T> тип сообщения
+ */
+public class ProtobufSerializer<T extends MessageLite> implements Serializer<T> {
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        return data != null ? data.toByteArray() : null;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.astondevs.kafka.autoconfigure.serialization;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Несинхронизированный {@link OutputStream} в массив байт, буфер которого сохраняется между использованиями.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+final class ReusableByteArrayOutputStream extends OutputStream {
+
+    /**
+     * Буфер.
+     */
+    private byte[] buffer;
+
+    /**
+     * Количество записанных байт.
+     */
+    private int count;
+
+    ReusableByteArrayOutputStream(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    /**
+     * Возвращает копию записанных байт.
+     *
+     * @return записанные байты
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * Сбрасывает записанные байты, сохраняя буфер.
+     */
+    void reset() {
+        count = 0;
+    }
+
+    /**
+     * Возвращает размер буфера.
+     *
+     * @return размер буфера
+     */
+    int capacity() {
+        return buffer.length;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(minCapacity, buffer.length << 1));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ru.astondevs.kafka.autoconfigure.serialization;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Общие свойства и вспомогательные методы серелизаторов Avro и Protobuf.
+ * Свойства задаются в {@code properties} конфигурации продюсера или потребителя.
+ * <p>
+ * Разобранные схемы, объекты чтения и записи Avro и парсеры Protobuf кешируются на время работы приложения
+ * и разделяются всеми kafka клиентами, поэтому повторное создание клиентов не разбирает схемы заново.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+public final class SchemaSerialization {
+
+    /**
+     * Свойство с классом {@link SchemaSource} или его экземпляром. По умолчанию схемы загружаются из classpath.
+     */
+    public static final String SCHEMA_SOURCE_CONFIG = "ru.astondevs.kafka.schema.source";
+
+    /**
+     * Свойство с классом ключа.
+     */
+    public static final String KEY_TYPE_CONFIG = "ru.astondevs.kafka.schema.key.type";
+
+    /**
+     * Свойство с классом значения.
+     */
+    public static final String VALUE_TYPE_CONFIG = "ru.astondevs.kafka.schema.value.type";
+
+    /**
+     * Свойство с названием схемы ключа в {@link SchemaSource}.
+     */
+    public static final String KEY_SCHEMA_CONFIG = "ru.astondevs.kafka.schema.key.name";
+
+    /**
+     * Свойство с названием схемы значения в {@link SchemaSource}.
+     */
+    public static final String VALUE_SCHEMA_CONFIG = "ru.astondevs.kafka.schema.value.name";
+
+    /**
+     * Кеш разобранных схем, объектов чтения и записи.
+     */
+    private static final Map<Object, Object> CACHE = new ConcurrentHashMap<>();
+
+    private SchemaSerialization() {
+    }
+
+    /**
+     * Возвращает источник схем из конфигурации kafka клиента.
+     *
+     * @param configs конфигурация kafka клиента
+     * @return источник схем или источник classpath, если он не указан
+     */
+    static SchemaSource sourceOf(Map<String, ?> configs) {
+        Object source = configs.get(SCHEMA_SOURCE_CONFIG);
+        if (source == null) {
+            return SchemaSource.classpath();
+        }
+
+        if (source instanceof SchemaSource value) {
+            return value;
+        }
+
+        Class<?> sourceClass = source instanceof Class<?> value
+                ? value
+                : ClassUtils.resolveClassName(source.toString().trim(), ClassUtils.getDefaultClassLoader());
+        return (SchemaSource) BeanUtils.instantiateClass(sourceClass);
+    }
+
+    /**
+     * Возвращает класс ключа или значения из конфигурации kafka клиента.
+     *
+     * @param configs конфигурация kafka клиента
+     * @param isKey признак ключа
+     * @return класс или null, если он не указан
+     */
+    static Class<?> typeOf(Map<String, ?> configs, boolean isKey) {
+        Object type = configs.get(isKey ? KEY_TYPE_CONFIG : VALUE_TYPE_CONFIG);
+        if (type == null) {
+            return null;
+        }
+
+        return type instanceof Class<?> value
+                ? value
+                : ClassUtils.resolveClassName(type.toString().trim(), ClassUtils.getDefaultClassLoader());
+    }
+
+    /**
+     * Возвращает название схемы ключа или значения из конфигурации kafka клиента.
+     *
+     * @param configs конфигурация kafka клиента
+     * @param isKey признак ключа
+     * @return название схемы или null, если оно не указано
+     */
+    static String schemaNameOf(Map<String, ?> configs, boolean isKey) {
+        Object name = configs.get(isKey ? KEY_SCHEMA_CONFIG : VALUE_SCHEMA_CONFIG);
+        return name != null ? name.toString().trim() : null;
+    }
+
+    /**
+     * Возвращает закешированный объект, создавая его при первом обращении.
+     *
+     * @param key ключ кеша, учитывающий вид объекта
+     * @param factory создание объекта
+     * @return закешированный объект
+     * @param <T> тип объекта
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T cached(Object key, Supplier<T> factory) {
+        return (T) CACHE.computeIfAbsent(key, k -> factory.get());
+    }
+}
@@ -0,0 +1,80 @@
+package ru.astondevs.kafka.autoconfigure.serialization;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Источник схем сообщений по названию, используемый {@link AvroSerializer} и {@link AvroDeserializer}.
+ * <p>
+ * По умолчанию схемы загружаются из classpath. Другой источник задается классом с конструктором без параметров
+ * в свойстве {@value SchemaSerialization#SCHEMA_SOURCE_CONFIG} или экземпляром при создании серелизатора бином.
+ * Источник вызывается только при конфигурации kafka клиента, разобранные схемы кешируются по содержимому.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+@FunctionalInterface
+public interface SchemaSource {
+
+    /**
+     * Загружает содержимое схемы.
+     *
+     * @param name название схемы
+     * @return содержимое схемы
+     * @throws IllegalStateException если схема не найдена
+     */
+    byte[] load(String name);
+
+    /**
+     * Возвращает источник, загружающий схемы из ресурсов classpath.
+     *
+     * @return источник схем classpath
+     */
+    static SchemaSource classpath() {
+        return name -> {
+            try (InputStream inputStream = new ClassPathResource(name).getInputStream()) {
+                return inputStream.readAllBytes();
+            } catch (IOException e) {
+                throw new IllegalStateException("Schema " + name + " is not found on the classpath", e);
+            }
+        };
+    }
+
+    /**
+     * Возвращает источник, загружающий схемы из файлов каталога, например, локальной копии реестра схем.
+     *
+     * @param directory каталог схем
+     * @return источник схем каталога
+     */
+    static SchemaSource directory(Path directory) {
+        return name -> {
+            try {
+                return Files.readAllBytes(directory.resolve(name));
+            } catch (IOException e) {
+                throw new IllegalStateException("Schema " + name + " is not found in " + directory, e);
+            }
+        };
+    }
+
+    /**
+     * Возвращает источник схем, хранящихся в памяти.
+     *
+     * @param schemas карта названия и содержимого схемы
+     * @return источник схем в памяти
+     */
+    static SchemaSource of(Map<String, byte[]> schemas) {
+        Map<String, byte[]> copy = Map.copyOf(schemas);
+        return name -> {
+            byte[] schema = copy.get(name);
+            if (schema == null) {
+                throw new IllegalStateException("Schema " + name + " is not found");
+            }
+            return schema.clone();
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты {@link BackpressureController}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+class BackpressureControllerTest {
+
+    private final AtomicReference<Double> level = new AtomicReference<>(0.0);
+
+    private final BackpressureController controller = new BackpressureController("config", level::get, 10.0, 5.0);
+
+    @Test
+    void pausesAndResumesContainers() {
+        MessageListenerContainer container = register();
+
+        signal(10);
+        verify(container).pause();
+
+        signal(5);
+        verify(container).resume();
+    }
+
+    @Test
+    void keepsContainerPausedByOthers() {
+        MessageListenerContainer container = register();
+        when(container.isPauseRequested()).thenReturn(true);
+
+        signal(10);
+        signal(5);
+
+        verify(container, never()).pause();
+        verify(container, never()).resume();
+    }
+
+    @Test
+    void resumesStoppingContainerOnlyAfterRestart() {
+        MessageListenerContainer container = register();
+        signal(10);
+
+        controller.stopping(container);
+        signal(5);
+        verify(container, never()).resume();
+
+        controller.restarted(container);
+        verify(container).resume();
+    }
+
+    @Test
+    void keepsRestartedContainerPausedWhileSignalIsHigh() {
+        MessageListenerContainer container = register();
+        signal(10);
+
+        controller.stopping(container);
+        controller.restarted(container);
+        verify(container, never()).resume();
+
+        signal(5);
+        verify(container).resume();
+    }
+
+    private MessageListenerContainer register() {
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        controller.register(container);
+        return container;
+    }
+
+    private void signal(double value) {
+        level.set(value);
+        controller.run();
+    }
+}
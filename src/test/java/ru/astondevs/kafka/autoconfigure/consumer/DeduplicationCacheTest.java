@@ -0,0 +1,201 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тесты {@link DeduplicationCache}.
+ * <p>
+ * Хеши окна партиции задаются явно: пока буферы не выросли, таблица состоит из 32 ячеек,
+ * и хеши с одинаковыми младшими пятью битами попадают в одну ячейку.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+class DeduplicationCacheTest {
+
+    /**
+     * Размер таблицы окна партиции до первого роста буферов.
+     */
+    private static final int INITIAL_TABLE_SIZE = 32;
+
+    private static final TopicPartition PARTITION = new TopicPartition("topic", 0);
+
+    @Test
+    void findsCollidingHashes() {
+        DeduplicationCache.PartitionWindow window = window(100, 1000);
+        long[] hashes = colliding(1, 4);
+        for (long hash : hashes) {
+            window.add(hash, 0);
+        }
+
+        assertThat(LongStream.of(hashes)).allMatch(hash -> window.contains(hash, 1));
+        assertThat(window.contains(1 + 4 * INITIAL_TABLE_SIZE, 1)).isFalse();
+    }
+
+    @Test
+    void keepsChainAcrossTableEndAfterEviction() {
+        DeduplicationCache.PartitionWindow window = window(3, 1000);
+        // Цепочка занимает последнюю, нулевую и первую ячейки таблицы.
+        long[] hashes = colliding(INITIAL_TABLE_SIZE - 1, 3);
+        for (long hash : hashes) {
+            window.add(hash, 0);
+        }
+
+        window.add(5, 0);
+
+        assertThat(window.contains(hashes[0], 1)).isFalse();
+        assertThat(window.contains(hashes[1], 1)).isTrue();
+        assertThat(window.contains(hashes[2], 1)).isTrue();
+        assertThat(window.contains(5, 1)).isTrue();
+    }
+
+    @Test
+    void shiftsChainWhenPrecedingHashesAreEvicted() {
+        DeduplicationCache.PartitionWindow window = window(3, 1000);
+        window.add(2, 0);
+        window.add(1, 0);
+        // Хеш попадает в ячейку 3, удаление хешей 2 и 1 сдвигает его обратно к ячейке 1.
+        window.add(1 + INITIAL_TABLE_SIZE, 0);
+        window.add(7, 0);
+        window.add(8, 0);
+
+        assertThat(window.contains(2, 1)).isFalse();
+        assertThat(window.contains(1, 1)).isFalse();
+        assertThat(LongStream.of(1 + INITIAL_TABLE_SIZE, 7, 8)).allMatch(hash -> window.contains(hash, 1));
+    }
+
+    @Test
+    void evictsOldestHashWhenFull() {
+        DeduplicationCache.PartitionWindow window = window(3, 1000);
+        window.add(1, 0);
+        window.add(2, 0);
+        window.add(3, 0);
+        window.add(4, 0);
+
+        assertThat(window.contains(1, 1)).isFalse();
+        assertThat(LongStream.of(2, 3, 4)).allMatch(hash -> window.contains(hash, 1));
+    }
+
+    @Test
+    void ignoresRepeatedHash() {
+        DeduplicationCache.PartitionWindow window = window(2, 1000);
+        window.add(1, 0);
+        window.add(1, 0);
+        window.add(2, 0);
+
+        assertThat(window.contains(1, 1)).isTrue();
+        assertThat(window.contains(2, 1)).isTrue();
+    }
+
+    @Test
+    void expiresHashesAfterWindow() {
+        DeduplicationCache.PartitionWindow window = window(100, 10);
+        window.add(1, 0);
+        window.add(2, 5);
+
+        assertThat(window.contains(1, 9)).isTrue();
+        assertThat(window.contains(1, 10)).isFalse();
+        assertThat(window.contains(2, 10)).isTrue();
+        assertThat(window.contains(2, 15)).isFalse();
+    }
+
+    @Test
+    void growsWrappedRingInOrder() {
+        DeduplicationCache.PartitionWindow window = window(64, 100);
+        long[] first = colliding(3, 8);
+        long[] second = colliding(4, 8);
+        long[] third = colliding(5, 9);
+        for (long hash : first) {
+            window.add(hash, 0);
+        }
+        for (long hash : second) {
+            window.add(hash, 50);
+        }
+        // Первые хеши истекают, следующие записываются в начало кольцевого буфера, затем буферы растут.
+        for (long hash : third) {
+            window.add(hash, 100);
+        }
+
+        assertThat(LongStream.of(first)).noneMatch(hash -> window.contains(hash, 100));
+        assertThat(LongStream.of(second)).allMatch(hash -> window.contains(hash, 100));
+        assertThat(LongStream.of(third)).allMatch(hash -> window.contains(hash, 100));
+
+        assertThat(LongStream.of(second)).noneMatch(hash -> window.contains(hash, 150));
+        assertThat(LongStream.of(third)).allMatch(hash -> window.contains(hash, 150));
+    }
+
+    @Test
+    void growsUpToCapacity() {
+        DeduplicationCache.PartitionWindow window = window(40, 1000);
+        long[] hashes = colliding(7, 41);
+        for (long hash : hashes) {
+            window.add(hash, 0);
+        }
+
+        assertThat(window.contains(hashes[0], 1)).isFalse();
+        assertThat(LongStream.of(hashes).skip(1)).allMatch(hash -> window.contains(hash, 1));
+    }
+
+    @Test
+    void hashesEqualKeysEqually() {
+        DeduplicationCache cache = new DeduplicationCache(DedupKeyExtractor.recordKey(), 10, Duration.ofMinutes(1));
+        UUID uuid = UUID.randomUUID();
+
+        assertThat(cache.keyHash(record("key"))).isEqualTo(cache.keyHash(record(new StringBuilder("key"))));
+        assertThat(cache.keyHash(record(new byte[] {1, 2}))).isEqualTo(cache.keyHash(record(new byte[] {1, 2})));
+        assertThat(cache.keyHash(record(uuid))).isEqualTo(cache.keyHash(record(new UUID(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()))));
+        assertThat(cache.keyHash(record(0L))).isNotZero();
+        assertThat(cache.keyHash(record(null))).isZero();
+    }
+
+    @Test
+    void clearsRevokedPartitions() {
+        DeduplicationCache cache = new DeduplicationCache(DedupKeyExtractor.recordKey(), 10, Duration.ofMinutes(1));
+        TopicPartition other = new TopicPartition("topic", 1);
+        cache.add(PARTITION, 1);
+        cache.add(other, 1);
+
+        cache.clear(List.of(PARTITION));
+
+        assertThat(cache.contains(PARTITION, 1)).isFalse();
+        assertThat(cache.contains(other, 1)).isTrue();
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThatThrownBy(() -> new DeduplicationCache(DedupKeyExtractor.recordKey(), 0, Duration.ofMinutes(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new DeduplicationCache(DedupKeyExtractor.recordKey(), 10, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static DeduplicationCache.PartitionWindow window(int capacity, long windowNanos) {
+        DeduplicationCache cache = new DeduplicationCache(DedupKeyExtractor.recordKey(), capacity, Duration.ofNanos(windowNanos));
+        return cache.new PartitionWindow();
+    }
+
+    /**
+     * Возвращает хеши, попадающие в одну ячейку таблицы до роста буферов.
+     *
+     * @param slot ячейка таблицы
+     * @param count количество хешей
+     * @return хеши
+     */
+    private static long[] colliding(int slot, int count) {
+        return LongStream.range(0, count).map(i -> slot + i * INITIAL_TABLE_SIZE).toArray();
+    }
+
+    private static ConsumerRecord<Object, String> record(Object key) {
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), 0, key, "value");
+    }
+}
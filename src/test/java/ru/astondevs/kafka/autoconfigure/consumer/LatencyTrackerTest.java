@@ -0,0 +1,59 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.astondevs.kafka.autoconfigure.KafkaMetrics;
+import ru.astondevs.kafka.autoconfigure.LatencyHeader;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тесты {@link LatencyTracker}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+class LatencyTrackerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void limitsSourceTagValuesPerTopic() {
+        LatencyTracker tracker = new LatencyTracker(meterRegistry, "config", "bean", 2);
+
+        record(tracker, "topic", "first");
+        record(tracker, "topic", "second");
+        record(tracker, "topic", "third");
+        record(tracker, "topic", "fourth");
+        record(tracker, "topic", "first");
+        record(tracker, "other-topic", "third");
+
+        assertThat(sources("topic")).containsExactlyInAnyOrder("first", "second", LatencyTracker.OTHER_SOURCE);
+        assertThat(sources("other-topic")).containsExactly("third");
+        assertThat(meterRegistry.get(KafkaMetrics.CONSUMER_LATENCY)
+                .tags(KafkaMetrics.TAG_TOPIC, "topic", KafkaMetrics.TAG_SOURCE, LatencyTracker.OTHER_SOURCE, KafkaMetrics.TAG_PHASE, "broker")
+                .timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsNonPositiveMaxSources() {
+        assertThatThrownBy(() -> new LatencyTracker(meterRegistry, "config", "bean", 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void record(LatencyTracker tracker, String topic, String source) {
+        byte[] headerValue = LatencyHeader.encode(LatencyHeader.currentTimeMicros(), source.getBytes(StandardCharsets.UTF_8));
+        tracker.recordDelivery(topic, headerValue, new long[] {LatencyHeader.currentTimeMicros(), System.nanoTime()}, System.nanoTime());
+    }
+
+    private String[] sources(String topic) {
+        return meterRegistry.get(KafkaMetrics.CONSUMER_LATENCY)
+                .tags(KafkaMetrics.TAG_TOPIC, topic, KafkaMetrics.TAG_PHASE, "broker")
+                .timers().stream()
+                .map(timer -> timer.getId().getTag(KafkaMetrics.TAG_SOURCE))
+                .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,245 @@
+package ru.astondevs.kafka.autoconfigure.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты {@link ParallelMessageListener}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+class ParallelMessageListenerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("topic", 0);
+
+    private final MessageListenerContainer container = mock(MessageListenerContainer.class);
+
+    /**
+     * Смещения подтвержденных сообщений в порядке подтверждения.
+     */
+    private final List<Long> acknowledged = new CopyOnWriteArrayList<>();
+
+    private ParallelMessageListener<String, String> listener;
+
+    @AfterEach
+    void close() {
+        if (listener != null) {
+            listener.close();
+        }
+    }
+
+    @Test
+    void acknowledgesContiguousPrefixOnOutOfOrderCompletion() {
+        ParallelMessageListener<String, String>.PartitionTracker tracker = tracker(10);
+        for (long offset = 0; offset < 4; offset++) {
+            tracker.dispatched(offset, acknowledgment(offset));
+        }
+
+        tracker.completed(2);
+        tracker.completed(3);
+        assertThat(acknowledged).isEmpty();
+
+        tracker.completed(0);
+        assertThat(acknowledged).containsExactly(0L);
+
+        tracker.completed(1);
+        assertThat(acknowledged).containsExactly(0L, 3L);
+    }
+
+    @Test
+    void acknowledgesAcrossOffsetGaps() {
+        ParallelMessageListener<String, String>.PartitionTracker tracker = tracker(10);
+        // Смещения сжатого топика идут с пропусками.
+        for (long offset : new long[] {10, 12, 15}) {
+            tracker.dispatched(offset, acknowledgment(offset));
+        }
+
+        tracker.completed(12);
+        assertThat(acknowledged).isEmpty();
+
+        tracker.completed(10);
+        assertThat(acknowledged).containsExactly(12L);
+
+        tracker.completed(15);
+        assertThat(acknowledged).containsExactly(12L, 15L);
+    }
+
+    @Test
+    void pausesAtMaxInFlightAndResumesAtHalf() {
+        ParallelMessageListener<String, String>.PartitionTracker tracker = tracker(4);
+        assertThat(tracker.dispatched(0, acknowledgment(0))).isFalse();
+        assertThat(tracker.dispatched(1, acknowledgment(1))).isFalse();
+        assertThat(tracker.dispatched(2, acknowledgment(2))).isFalse();
+        assertThat(tracker.dispatched(3, acknowledgment(3))).isTrue();
+        assertThat(tracker.dispatched(4, acknowledgment(4))).isFalse();
+
+        assertThat(tracker.completed(0)).isFalse();
+        assertThat(tracker.completed(1)).isFalse();
+        assertThat(tracker.completed(2)).isTrue();
+        assertThat(tracker.completed(3)).isFalse();
+    }
+
+    @Test
+    void ignoresCompletionsAfterRevoke() {
+        ParallelMessageListener<String, String>.PartitionTracker tracker = tracker(2);
+        tracker.dispatched(0, acknowledgment(0));
+        tracker.dispatched(1, acknowledgment(1));
+
+        assertThat(tracker.revoke()).isTrue();
+        assertThat(tracker.completed(0)).isFalse();
+        assertThat(tracker.completed(1)).isFalse();
+        assertThat(acknowledged).isEmpty();
+    }
+
+    @Test
+    void resumesPausedPartitionOnRevoke() throws InterruptedException {
+        listener = new ParallelMessageListener<>(data -> sleep(), container, null, "test-", 1);
+        listener.onMessage(record(0, "key"), acknowledgment(0), null);
+        verify(container).pausePartition(PARTITION);
+
+        listener.onPartitionsRevoked(List.of(PARTITION));
+
+        verify(container).resumePartition(PARTITION);
+        assertThat(listener.awaitCompletion(Duration.ofSeconds(5))).isZero();
+        assertThat(acknowledged).isEmpty();
+    }
+
+    @Test
+    void processesRecordsWithSameKeyInOrder() throws InterruptedException {
+        List<Long> processed = new CopyOnWriteArrayList<>();
+        listener = new ParallelMessageListener<>(data -> processed.add(data.offset()), container, null, "test-", 100);
+        for (long offset = 0; offset < 50; offset++) {
+            listener.onMessage(record(offset, "key"), acknowledgment(offset), null);
+        }
+
+        assertThat(listener.awaitCompletion(Duration.ofSeconds(5))).isZero();
+        assertThat(processed).isSorted().hasSize(50);
+        assertThat(acknowledged).last().isEqualTo(49L);
+    }
+
+    @Test
+    void routesFailureToErrorHandlerAndAcknowledgesRecovered() throws InterruptedException {
+        CommonErrorHandler errorHandler = mock(CommonErrorHandler.class);
+        when(errorHandler.handleOne(any(), any(), isNull(), eq(container))).thenReturn(true);
+        listener = new ParallelMessageListener<>(failing(1), container, errorHandler, "test-", 10);
+
+        ConsumerRecord<String, String> record = record(0, "key");
+        listener.onMessage(record, acknowledgment(0), null);
+
+        assertThat(listener.awaitCompletion(Duration.ofSeconds(5))).isZero();
+        verify(errorHandler).handleOne(any(IllegalStateException.class), eq(record), isNull(), eq(container));
+        assertThat(acknowledged).containsExactly(0L);
+    }
+
+    @Test
+    void retriesWhileErrorHandlerDoesNotRecover() throws InterruptedException {
+        CommonErrorHandler errorHandler = mock(CommonErrorHandler.class);
+        when(container.isRunning()).thenReturn(true);
+        MessageListener<String, String> delegate = failing(2);
+        listener = new ParallelMessageListener<>(delegate, container, errorHandler, "test-", 10);
+
+        listener.onMessage(record(0, "key"), acknowledgment(0), null);
+
+        assertThat(listener.awaitCompletion(Duration.ofSeconds(5))).isZero();
+        verify(errorHandler, times(2)).handleOne(any(), any(), isNull(), eq(container));
+        assertThat(acknowledged).containsExactly(0L);
+    }
+
+    @Test
+    void leavesRecordUnacknowledgedWhenContainerStopsBeforeRecovery() throws InterruptedException {
+        CommonErrorHandler errorHandler = mock(CommonErrorHandler.class);
+        listener = new ParallelMessageListener<>(failing(Integer.MAX_VALUE), container, errorHandler, "test-", 10);
+
+        listener.onMessage(record(0, "key"), acknowledgment(0), null);
+
+        assertThat(listener.awaitCompletion(Duration.ofSeconds(5))).isZero();
+        verify(errorHandler).clearThreadState();
+        assertThat(acknowledged).isEmpty();
+    }
+
+    @Test
+    void recoversFailedRecordWithDefaultErrorHandler() throws InterruptedException {
+        when(container.isRunning()).thenReturn(true);
+        listener = new ParallelMessageListener<>(failing(Integer.MAX_VALUE), container, null, "test-", 10);
+
+        listener.onMessage(record(0, "key"), acknowledgment(0), null);
+
+        assertThat(listener.awaitCompletion(Duration.ofSeconds(5))).isZero();
+        assertThat(acknowledged).containsExactly(0L);
+    }
+
+    @Test
+    void propagatesPollTimeToProcessingThread() throws InterruptedException {
+        ConsumerRecord<Object, Object> polled = new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), 0, "key", "value");
+        new LatencyPollInterceptor().onConsume(new ConsumerRecords<>(Map.of(PARTITION, List.of(polled))));
+        long[] pollTime = LatencyPollInterceptor.pollTime();
+        List<long[]> processingPollTimes = new CopyOnWriteArrayList<>();
+        listener = new ParallelMessageListener<>(data -> processingPollTimes.add(LatencyPollInterceptor.pollTime()),
+                container, null, "test-", 10, true);
+
+        listener.onMessage(record(0, "key"), acknowledgment(0), null);
+
+        assertThat(listener.awaitCompletion(Duration.ofSeconds(5))).isZero();
+        assertThat(pollTime[1]).isNotZero();
+        assertThat(processingPollTimes).containsExactly(pollTime);
+    }
+
+    private ParallelMessageListener<String, String>.PartitionTracker tracker(int maxInFlight) {
+        listener = new ParallelMessageListener<>(data -> { }, container, null, "test-", maxInFlight);
+        return listener.new PartitionTracker(PARTITION);
+    }
+
+    private Acknowledgment acknowledgment(long offset) {
+        return () -> acknowledged.add(offset);
+    }
+
+    /**
+     * Возвращает слушателя, обработка которого завершается исключением указанное количество раз.
+     *
+     * @param failures количество неудачных вызовов
+     * @return слушатель
+     */
+    private static MessageListener<String, String> failing(int failures) {
+        AtomicInteger calls = new AtomicInteger();
+        return data -> {
+            if (calls.incrementAndGet() <= failures) {
+                throw new IllegalStateException("failure " + calls.get());
+            }
+        };
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String key) {
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, key, "value");
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Тесты {@link CloseDeadlineProducer}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+class CloseDeadlineProducerTest {
+
+    @SuppressWarnings("unchecked")
+    private final Producer<String, String> delegate = mock(Producer.class);
+
+    @Test
+    void closesWithRequestedTimeoutBeforeShutdown() {
+        new CloseDeadlineProducer<>(delegate, () -> null).close(Duration.ofSeconds(30));
+
+        verify(delegate).close(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void limitsTimeoutBySubSecondRemainder() {
+        new CloseDeadlineProducer<>(delegate, () -> Duration.ofMillis(750)).close(Duration.ofSeconds(30));
+
+        verify(delegate).close(Duration.ofMillis(750));
+    }
+
+    @Test
+    void keepsShorterRequestedTimeout() {
+        new CloseDeadlineProducer<>(delegate, () -> Duration.ofSeconds(5)).close(Duration.ofMillis(100));
+
+        verify(delegate).close(Duration.ofMillis(100));
+    }
+
+    @Test
+    void limitsUnboundedClose() {
+        new CloseDeadlineProducer<>(delegate, () -> Duration.ZERO).close();
+
+        verify(delegate).close(Duration.ZERO);
+    }
+}
@@ -0,0 +1,145 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тесты {@link CoalescingBuffer}.
+ * <p>
+ * Отправленные значения записываются в виде {@code ключ=значение} в порядке передачи продюсеру.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+class CoalescingBufferTest {
+
+    /**
+     * Отправленные значения в порядке отправки.
+     */
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+
+    @Test
+    void sendsLatestValuePerKey() {
+        Counter collapsed = new SimpleMeterRegistry().counter("collapsed");
+        CoalescingBuffer<String, String> buffer = new CoalescingBuffer<>(this::send, 10, collapsed);
+        buffer.offer("a", "1");
+        buffer.offer("b", "1");
+        buffer.offer("a", "2");
+        buffer.offer("c", "1");
+        buffer.offer("c", null);
+        assertThat(sent).isEmpty();
+
+        buffer.run();
+
+        assertThat(sent).containsExactlyInAnyOrder("a=2", "b=1", "c=null");
+        assertThat(collapsed.count()).isEqualTo(2);
+    }
+
+    @Test
+    void flushesWhenMaxKeysReached() {
+        CoalescingBuffer<String, String> buffer = new CoalescingBuffer<>(this::send, 2, null);
+        buffer.offer("a", "1");
+        buffer.offer("a", "2");
+        assertThat(sent).isEmpty();
+
+        buffer.offer("b", "1");
+
+        assertThat(sent).containsExactlyInAnyOrder("a=2", "b=1");
+    }
+
+    @Test
+    void flushesPendingValuesOnCloseAndSendsLaterValuesDirectly() {
+        CoalescingBuffer<String, String> buffer = new CoalescingBuffer<>(this::send, 10, null);
+        buffer.offer("a", "1");
+
+        buffer.close();
+        assertThat(sent).containsExactly("a=1");
+
+        buffer.offer("a", "2");
+        assertThat(sent).containsExactly("a=1", "a=2");
+    }
+
+    @Test
+    void sendsPendingValueBeforeDirectSend() {
+        CoalescingBuffer<String, String> buffer = new CoalescingBuffer<>(this::send, 10, null);
+        buffer.offer("a", "1");
+        buffer.offer("b", "1");
+
+        directSend(buffer, "a", "2");
+        directSend(buffer, "c", "1");
+        directSend(buffer, null, "1");
+        assertThat(sent).containsExactly("a=1", "a=2", "c=1", "null=1");
+
+        buffer.run();
+        assertThat(sent).containsExactly("a=1", "a=2", "c=1", "null=1", "b=1");
+    }
+
+    @Test
+    void directSendWaitsForRunningFlush() throws Exception {
+        CountDownLatch flushStarted = new CountDownLatch(1);
+        CountDownLatch releaseFlush = new CountDownLatch(1);
+        AtomicReference<String> blockedKey = new AtomicReference<>();
+        CoalescingBuffer<String, String> buffer = new CoalescingBuffer<>((key, value) -> {
+            if (blockedKey.compareAndSet(null, key)) {
+                flushStarted.countDown();
+                await(releaseFlush);
+            }
+            send(key, value);
+        }, 10, null);
+        buffer.offer("a", "1");
+        buffer.offer("b", "1");
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(buffer::run);
+        assertThat(flushStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        // Значение второго ключа еще в буфере или уже извлечено отправкой буфера, но не передано продюсеру.
+        String otherKey = blockedKey.get().equals("a") ? "b" : "a";
+        CompletableFuture<Void> direct = CompletableFuture.runAsync(() -> directSend(buffer, otherKey, "2"));
+        releaseFlush.countDown();
+
+        flush.get(5, TimeUnit.SECONDS);
+        direct.get(5, TimeUnit.SECONDS);
+        assertThat(sent).containsSubsequence(otherKey + "=1", otherKey + "=2");
+    }
+
+    @Test
+    void rejectsNonPositiveMaxKeys() {
+        assertThatThrownBy(() -> new CoalescingBuffer<String, String>(this::send, 0, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void send(String key, String value) {
+        sent.add(key + "=" + value);
+    }
+
+    /**
+     * Отправляет значение напрямую так же, как {@link AbstractKafkaProducer}: сначала из буфера
+     * отправляется неотправленное значение ключа.
+     *
+     * @param buffer буфер объединения
+     * @param key ключ
+     * @param value значение
+     */
+    private void directSend(CoalescingBuffer<String, String> buffer, String key, String value) {
+        buffer.flushKey(key);
+        send(key, value);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package ru.astondevs.kafka.autoconfigure.producer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты {@link SpillJournal}.
+ *
+ * @author Ivan Andrianov
+ * @author Maksim Yaskov
+ */
+class SpillJournalTest {
+
+    /**
+     * Размер записи с ключом из 4 байт и значением из 8 байт.
+     */
+    private static final int ENTRY_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES + 4 + Integer.BYTES + 8;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsEntriesInAppendOrder() {
+        try (SpillJournal journal = new SpillJournal(directory, 1024, 4096)) {
+            append(journal, 1);
+            append(journal, 2);
+            journal.append(3, null, null);
+
+            List<SpillJournal.Entry> entries = journal.read(10);
+
+            assertThat(entries).extracting(SpillJournal.Entry::timestamp).containsExactly(1L, 2L, 3L);
+            assertThat(value(entries.get(1))).isEqualTo("value-02");
+            assertThat(entries.get(2).key()).isNull();
+            assertThat(entries.get(2).value()).isNull();
+            assertThat(journal.isEmpty()).isTrue();
+        }
+    }
+
+    @Test
+    void ignoresTornTailOnReopen() throws IOException {
+        try (SpillJournal journal = new SpillJournal(directory, 1024, 4096)) {
+            append(journal, 1);
+            append(journal, 2);
+        }
+
+        // Содержимое третьей записи записано, а ее длина - нет.
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(ENTRY_SIZE);
+            torn.putInt(0).putLong(3).putInt(4).put(new byte[] {1, 2, 3, 4}).putInt(8);
+            channel.write(torn.flip(), 2L * ENTRY_SIZE);
+        }
+
+        try (SpillJournal journal = new SpillJournal(directory, 1024, 4096)) {
+            assertThat(journal.read(10)).extracting(SpillJournal.Entry::timestamp).containsExactly(1L, 2L);
+
+            append(journal, 4);
+            assertThat(journal.read(10)).extracting(SpillJournal.Entry::timestamp).containsExactly(4L);
+        }
+    }
+
+    @Test
+    void ignoresLengthBeyondSegmentOnReopen() throws IOException {
+        try (SpillJournal journal = new SpillJournal(directory, 1024, 4096)) {
+            append(journal, 1);
+        }
+
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(4096).flip(), ENTRY_SIZE);
+        }
+
+        try (SpillJournal journal = new SpillJournal(directory, 1024, 4096)) {
+            assertThat(journal.read(10)).extracting(SpillJournal.Entry::timestamp).containsExactly(1L);
+        }
+    }
+
+    @Test
+    void resumesAfterLastCommittedEntryOnReopen() {
+        try (SpillJournal journal = new SpillJournal(directory, 1024, 4096)) {
+            append(journal, 1);
+            append(journal, 2);
+            append(journal, 3);
+
+            assertThat(journal.read(2)).hasSize(2);
+            journal.commit();
+        }
+
+        try (SpillJournal journal = new SpillJournal(directory, 1024, 4096)) {
+            assertThat(journal.isEmpty()).isFalse();
+            assertThat(journal.read(10)).extracting(SpillJournal.Entry::timestamp).containsExactly(3L);
+        }
+    }
+
+    @Test
+    void rereadsUncommittedEntriesOnReopen() {
+        try (SpillJournal journal = new SpillJournal(directory, 1024, 4096)) {
+            append(journal, 1);
+            append(journal, 2);
+            journal.read(10);
+        }
+
+        try (SpillJournal journal = new SpillJournal(directory, 1024, 4096)) {
+            assertThat(journal.read(10)).extracting(SpillJournal.Entry::timestamp).containsExactly(1L, 2L);
+        }
+    }
+
+    @Test
+    void rewindsToFirstUncommittedEntry() {
+        try (SpillJournal journal = new SpillJournal(directory, 1024, 4096)) {
+            append(journal, 1);
+            append(journal, 2);
+            append(journal, 3);
+
+            journal.read(1);
+            journal.commit();
+            assertThat(journal.read(10)).hasSize(2);
+
+            journal.rewind();
+
+            assertThat(journal.isEmpty()).isFalse();
+            assertThat(journal.read(10)).extracting(SpillJournal.Entry::timestamp).containsExactly(2L, 3L);
+        }
+    }
+
+    @Test
+    void rollsAcrossSegmentsAndDeletesConsumedOnes() throws IOException {
+        try (SpillJournal journal = new SpillJournal(directory, 2L * ENTRY_SIZE, 6L * ENTRY_SIZE)) {
+            for (int i = 1; i <= 6; i++) {
+                assertThat(append(journal, i)).isEqualTo(SpillJournal.AppendResult.APPENDED);
+            }
+            assertThat(append(journal, 7)).isEqualTo(SpillJournal.AppendResult.FULL);
+            assertThat(segmentFiles()).hasSize(3);
+            assertThat(journal.diskSize()).isEqualTo(6L * ENTRY_SIZE);
+
+            assertThat(journal.read(3)).extracting(SpillJournal.Entry::timestamp).containsExactly(1L, 2L, 3L);
+            journal.commit();
+            assertThat(segmentFiles()).hasSize(2);
+        }
+
+        try (SpillJournal journal = new SpillJournal(directory, 2L * ENTRY_SIZE, 6L * ENTRY_SIZE)) {
+            assertThat(journal.read(10)).extracting(SpillJournal.Entry::timestamp).containsExactly(4L, 5L, 6L);
+            journal.commit();
+            assertThat(segmentFiles()).hasSize(1);
+
+            append(journal, 7);
+            assertThat(journal.read(10)).extracting(SpillJournal.Entry::timestamp).containsExactly(7L);
+        }
+    }
+
+    @Test
+    void rejectsEntryLargerThanSegment() {
+        try (SpillJournal journal = new SpillJournal(directory, ENTRY_SIZE, 4L * ENTRY_SIZE)) {
+            assertThat(journal.append(1, new byte[ENTRY_SIZE], null)).isEqualTo(SpillJournal.AppendResult.FULL);
+        }
+    }
+
+    @Test
+    void appendsOnlyWhenConditionHoldsAndJournalIsOpen() {
+        SpillJournal journal = new SpillJournal(directory, 1024, 4096);
+
+        assertThat(journal.append(() -> false, 1, null, null)).isEqualTo(SpillJournal.AppendResult.SKIPPED);
+        assertThat(journal.isEmpty()).isTrue();
+
+        journal.close();
+
+        assertThat(journal.append(() -> true, 2, null, null)).isEqualTo(SpillJournal.AppendResult.CLOSED);
+    }
+
+    private static SpillJournal.AppendResult append(SpillJournal journal, long timestamp) {
+        return journal.append(timestamp, "k-%02d".formatted(timestamp).getBytes(StandardCharsets.UTF_8),
+                "value-%02d".formatted(timestamp).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String value(SpillJournal.Entry entry) {
+        return new String(entry.value(), StandardCharsets.UTF_8);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}